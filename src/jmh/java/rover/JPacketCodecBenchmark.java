@@ -0,0 +1,92 @@
+package rover;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes JPackets of every kind, through the JPacket object codec of JPacketUtil and through the
+ * JPacketFlyweight the send and receive paths use, which reads and writes a reusable buffer in place
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JPacketCodecBenchmark {
+    private final static int PAYLOAD_SIZE = 1332;
+
+    @Param({"syn", "data", "ack"})
+    public String kind;
+
+    private JPacket jPacket;
+    private byte[] packet;
+    private ByteBuffer buffer, packetBuffer;
+    private final JPacketFlyweight flyweight = new JPacketFlyweight();
+
+    @Setup
+    public void setUp() throws UnknownHostException {
+        byte flags;
+        int totalSize = 0, chunkSize = 0;
+        long transferId = 0;
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        new Random(42).nextBytes(payload);
+        switch (kind) {
+            case "syn":
+                flags = BitUtils.setBitInByte(BitUtils.setBitInByte((byte) 0, JPacketUtil.SYN_INDEX),
+                        JPacketUtil.RESUME_INDEX);
+                totalSize = 8_000_000;
+                chunkSize = PAYLOAD_SIZE;
+                transferId = 0x1234_5678_9ABCL;
+                payload = new byte[0];
+                break;
+            case "data":
+                flags = BitUtils.setBitInByte((byte) 0, JPacketUtil.NORMAL_INDEX);
+                break;
+            default:
+                flags = BitUtils.setBitInByte((byte) 0, JPacketUtil.ACK_INDEX);
+                payload = new byte[0];
+        }
+        jPacket = new JPacket(InetAddress.getByName("10.2.0.1"), InetAddress.getByName("10.1.0.1"), 7, 1234, 1200,
+                flags, payload, totalSize, chunkSize, 0b1011L, 0, transferId);
+        packet = JPacketUtil.jPacket2Arr(jPacket);
+        packetBuffer = ByteBuffer.wrap(packet);
+        buffer = ByteBuffer.wrap(new byte[packet.length]);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return JPacketUtil.jPacket2Arr(jPacket);
+    }
+
+    @Benchmark
+    public JPacket decode() throws UnknownHostException {
+        return JPacketUtil.arr2JPacket(packet);
+    }
+
+    @Benchmark
+    public int encodeFlyweight() {
+        JPacket source = jPacket;
+        int payloadLength = source.payload.length;
+        flyweight.wrap(buffer, 0, 0).writeHeader(source.flags, 0x020001, 0x010001, source.sessionId,
+                source.seqNumber, source.ackNumber, source.sackBits, source.totalSize, source.chunkSize,
+                source.fecBlockSize, source.transferId, payloadLength);
+        buffer.position(flyweight.payloadOffset());
+        buffer.put(source.payload, 0, payloadLength);
+        return flyweight.length();
+    }
+
+    @Benchmark
+    public long decodeFlyweight() {
+        JPacketFlyweight read = flyweight.wrap(packetBuffer, 0, packet.length);
+        return read.flags() + read.destAddress() + read.sourceAddress() + read.sessionId() +
+                (read.isFlagSet(JPacketUtil.SYN_INDEX) ? read.totalSize() + read.chunkSize() + read.transferId() : 0) +
+                (read.isFlagSet(JPacketUtil.NORMAL_INDEX) ? read.seqNumber() + read.payloadLength() : 0) +
+                (read.isFlagSet(JPacketUtil.ACK_INDEX) ? read.ackNumber() + read.sackBits() : 0);
+    }
+}
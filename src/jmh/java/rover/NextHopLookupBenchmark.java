@@ -0,0 +1,87 @@
+package rover;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the next hop of a packet's destination in tables of various sizes: through the compiled forwarding table
+ * the rovers forward with, with one path per route and with four equal-cost paths picked by flow hash, and through the
+ * routing table itself, under its lock as the rovers used to
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NextHopLookupBenchmark {
+    private final static int INFINITY = 16, DATA_PORT = 6161, ACK_PORT = 5454, PATHS = 4,
+            LOOKUPS = 1024, // Destinations looked up in turn, so that the branches can't learn a single one
+            SUBNET_MASK = 0xFFFFFF00;
+
+    @Param({"16", "256", "4096"})
+    public int routes;
+
+    private RoutingTable routingTable;
+    private ForwardingTable forwardingTable, multipathTable;
+    private int[] destinations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        routingTable = new IntRoutingTable();
+        EqualCostNextHops equalCostNextHops = new EqualCostNextHops(PATHS);
+        int[] routeAddresses = new int[routes];
+        for (int route = 0; route < routes; route++) {
+            routeAddresses[route] = IPUtils.toInt((byte) 10, (byte) (route >>> 8), (byte) route, (byte) 0);
+            routingTable.put(routeAddresses[route], (byte) 24, nextHop(random.nextInt(8)), (byte) 2);
+            for (int path = 1; path < PATHS; path++) {
+                equalCostNextHops.add(routeAddresses[route], nextHop(8 + path));
+            }
+        }
+        forwardingTable = ForwardingTable.compile(routingTable, INFINITY, DATA_PORT, ACK_PORT);
+        multipathTable = ForwardingTable.compile(routingTable, equalCostNextHops, INFINITY, DATA_PORT, ACK_PORT);
+
+        destinations = new int[LOOKUPS];
+        for (int lookup = 0; lookup < LOOKUPS; lookup++) {
+            destinations[lookup] = routeAddresses[random.nextInt(routes)] | 1 + random.nextInt(254);
+        }
+    }
+
+    private static int nextHop(int index) {
+        return IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) (index + 2));
+    }
+
+    private int nextDestination() {
+        next = next + 1 & LOOKUPS - 1;
+        return destinations[next];
+    }
+
+    @Benchmark
+    public InetSocketAddress forwardingTable() {
+        ForwardingTable table = forwardingTable;
+        int route = table.lookup(nextDestination());
+        return route == ForwardingTable.NO_ROUTE ? null : table.forwardingAddress(route, false);
+    }
+
+    @Benchmark
+    public InetSocketAddress forwardingTableMultipath() {
+        ForwardingTable table = multipathTable;
+        int destination = nextDestination();
+        int route = table.lookup(destination);
+        return route == ForwardingTable.NO_ROUTE ? null : table.forwardingAddress(route,
+                JPacketFlyweight.flowHash(destination, 0x010001, 7), false);
+    }
+
+    @Benchmark
+    public int routingTable() {
+        synchronized (routingTable) {
+            int slot = routingTable.find(nextDestination() & SUBNET_MASK);
+            return slot == RoutingTable.NO_ROUTE ? 0 : routingTable.nextHop(slot);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package rover;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a routing table into a RIP update and decodes it, through the list codec of RIPPacketUtil
+ * (getRIPPackets, decodeRIPPacket into RoutingTableEntry objects) and through the reusable buffers the rovers use
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RIPCodecBenchmark {
+    private final static byte RIP_UPDATE = 2, ROVER_ID = 1;
+
+    // A full packet holds RIPPacketUtil.MAX_ENTRIES (91) routes
+    @Param({"8", "91"})
+    public int routes;
+
+    private RoutingTable table;
+    private byte[] packet, buffer;
+    private int packetLength;
+    private final RIPEntryBuffer entries = new RIPEntryBuffer();
+
+    @Setup
+    public void setUp() {
+        table = new IntRoutingTable();
+        for (int route = 0; route < routes; route++) {
+            table.put(IPUtils.toInt((byte) 10, (byte) (route + 2), (byte) 0, (byte) 0), (byte) 24,
+                    IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) (route % 4 + 2)), (byte) (route % 15 + 1));
+        }
+        buffer = new byte[RIPPacketUtil.MAX_PACKET_SIZE];
+        packet = RIPPacketUtil.getRIPPackets(RIP_UPDATE, ROVER_ID, table).get(0);
+        packetLength = packet.length;
+    }
+
+    @Benchmark
+    public List<byte[]> encode() {
+        return RIPPacketUtil.getRIPPackets(RIP_UPDATE, ROVER_ID, table);
+    }
+
+    @Benchmark
+    public List<RoutingTableEntry> decode() {
+        return RIPPacketUtil.decodeRIPPacket(packet, packetLength);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        return RIPPacketUtil.encodeRIPPacket(RIP_UPDATE, ROVER_ID, table, buffer);
+    }
+
+    @Benchmark
+    public int decodeIntoBuffer() {
+        RIPPacketUtil.decodeRIPPacket(packet, packetLength, entries);
+        return entries.size;
+    }
+}
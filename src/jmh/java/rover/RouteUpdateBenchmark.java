@@ -0,0 +1,84 @@
+package rover;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Applies the entries of a neighbor's RIP update to a rover's routing table of various sizes, one entry per
+ * operation: a refresh which changes nothing (most entries of a regular update), a cost change of the route, and an
+ * equal-cost next hop coming and going. The rover is on a host of a simulated network and never started, so it needs
+ * no network and no thread runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteUpdateBenchmark {
+    private final static byte SUBNET_MASK = 24;
+    private final static int
+            NEIGHBOR = IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) 2),
+            OTHER_NEIGHBOR = IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) 3),
+            NEIGHBORS_NEXT_HOP = IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) 4);
+    // Held on to, or the level would be lost once the logger is garbage collected
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+
+    @Param({"16", "256", "4096"})
+    public int routes;
+
+    private Rover rover;
+    private int[] destinations;
+    private int next;
+    private boolean flip;
+
+    @Setup
+    public void setUp() throws IOException {
+        LOGGER.setLevel(Level.WARNING);
+        InMemoryNetwork network = new InMemoryNetwork(42, 1500);
+        rover = new Rover(network.addHost(InetAddress.getByName("192.168.0.1")), (byte) 1, 520,
+                InetAddress.getByName("233.0.0.0"), Collections.emptyList(), Collections.emptyList(), 8, "aimd", true, 2,
+                10, 0, 0, 2, false);
+        destinations = new int[routes];
+        for (int route = 0; route < routes; route++) {
+            destinations[route] = IPUtils.toInt((byte) 10, (byte) (route >>> 8), (byte) route, (byte) 0);
+            rover.updateTableFromEntry(NEIGHBOR, destinations[route], SUBNET_MASK, NEIGHBORS_NEXT_HOP, (byte) 1);
+        }
+    }
+
+    /**
+     * Returns the next destination, going round the table
+     */
+    private int nextDestination() {
+        if (++next == destinations.length) {
+            next = 0;
+            flip = !flip;
+        }
+        return destinations[next];
+    }
+
+    @Benchmark
+    public boolean refresh() {
+        return rover.updateTableFromEntry(NEIGHBOR, nextDestination(), SUBNET_MASK, NEIGHBORS_NEXT_HOP, (byte) 1);
+    }
+
+    @Benchmark
+    public boolean costChange() {
+        int destination = nextDestination();
+        return rover.updateTableFromEntry(NEIGHBOR, destination, SUBNET_MASK, NEIGHBORS_NEXT_HOP,
+                (byte) (flip ? 2 : 1));
+    }
+
+    @Benchmark
+    public boolean equalCostNextHop() {
+        int destination = nextDestination();
+        return rover.updateTableFromEntry(OTHER_NEIGHBOR, destination, SUBNET_MASK, NEIGHBORS_NEXT_HOP,
+                (byte) (flip ? 1 : 3));
+    }
+}
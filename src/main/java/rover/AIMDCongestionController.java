@@ -0,0 +1,48 @@
+package rover;
+
+/**
+ * Loss based congestion control in the spirit of TCP Reno.
+ * <p>
+ * The window starts at 1 packet and doubles every round trip (slow start) until it reaches the slow start threshold.
+ * After that it grows by 1 packet per round trip (additive increase). A loss halves the threshold and restarts slow
+ * start from 1 packet (multiplicative decrease), which is what TCP does on a retransmission timeout.
+ */
+class AIMDCongestionController implements CongestionController {
+    private final static double
+            INITIAL_WINDOW = 1,
+            MIN_SLOW_START_THRESHOLD = 2;
+
+    private double congestionWindow = INITIAL_WINDOW;
+    private double slowStartThreshold = Double.MAX_VALUE;
+
+    @Override
+    public synchronized int getCongestionWindow() {
+        return Math.max(1, (int) congestionWindow);
+    }
+
+    @Override
+    public synchronized void onAck(long rttMillis) {
+        if (congestionWindow < slowStartThreshold) {
+            congestionWindow += 1;
+        } else {
+            congestionWindow += 1 / congestionWindow;
+        }
+    }
+
+    @Override
+    public synchronized void onLoss() {
+        slowStartThreshold = Math.max(MIN_SLOW_START_THRESHOLD, congestionWindow / 2);
+        congestionWindow = INITIAL_WINDOW;
+    }
+
+    /**
+     * Returns a string representation of the controller
+     *
+     * @return string representation of the controller
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("AIMD cwnd %.1f ssthresh %s", congestionWindow,
+                slowStartThreshold == Double.MAX_VALUE ? "-" : String.format("%.1f", slowStartThreshold));
+    }
+}
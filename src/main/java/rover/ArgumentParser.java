@@ -0,0 +1,206 @@
+package rover;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Utility class to parse all the arguments
+ */
+
+class ArgumentParser {
+    // Set the default values in case it is not specified by the user
+    InetAddress multicastAddress = InetAddress.getByName("233.0.0.0");
+    int multicastPort = 5200;
+    byte roverId = 10;
+    int windowSize = 8; // Number of JRTP packets which may be in flight (unacknowledged) at once
+    String congestionController = "aimd";
+    boolean eventLoop = false; // Serve every socket and timer from a single thread
+    int ackEvery = 2; // Number of JRTP packets received in order which are acknowledged by a single ACK
+    int ackDelay = 10; // Longest an ACK is held back waiting for more packets, in milliseconds
+    int fecBlockSize = 0; // Number of JRTP packets covered by each parity packet, 0 sends no parity packets
+    int compressionLevel = Deflater.NO_COMPRESSION; // Deflater level the chunks of the outgoing files are sent with
+    int maxPaths = 1; // Most equal-cost next hops kept per destination
+    boolean stripePackets = false; // Spread the packets of a transfer over the paths instead of keeping it on one
+    boolean success=false;
+
+    // The files to send and the rover each one goes to, in the order given. Every -f is paired with the -d at the same
+    // position, so a rover can send several files at once.
+    List<String> filesToSend = new ArrayList<>();
+    List<InetAddress> destAddresses = new ArrayList<>();
+
+    /**
+     * Constructs the argument parser object using the arguments which are
+     * passed
+     *
+     * @param args passed string arguments
+     */
+    ArgumentParser(String args[]) throws UnknownHostException {
+
+        if(args.length == 0 || args.length == 1 || args[0].equals("-h") || args[0].equals("--help")){
+            displayHelp();
+            return;
+        }
+
+        if(args.length % 2 != 0){
+            throw new IllegalArgumentException("You've probably thrown an Illegal exception. " +
+                    "Please run `java Rover --help` for the correct options");
+        }
+
+        int index = 0;
+        while(index < args.length){
+            if(args[index].contains("-")){
+                switch(args[index]){
+                    case "-p":
+                    case "--port":
+                        multicastPort = Integer.parseInt(args[index + 1]);
+                        index += 2;
+                        break;
+                    case "-m":
+                    case "--multicastIp":
+                        multicastAddress = InetAddress.getByName(args[index + 1]);
+                        index += 2;
+                        break;
+                    case "-i":
+                    case "--id":
+                        int id = Integer.parseInt(args[index + 1]);
+                        // The id is the third byte of the private address, and 0 tags the RIP updates for everyone
+                        if (id < 1 || id > 255) {
+                            throw new IllegalArgumentException("The rover id has to be between 1 and 255");
+                        }
+                        roverId = (byte) id;
+                        index += 2;
+                        break;
+                    case "-f":
+                    case "--file":
+                        filesToSend.add(args[index + 1]);
+                        index += 2;
+                        break;
+                    case "-d":
+                    case "--dest":
+                        destAddresses.add(InetAddress.getByName(args[index + 1]));
+                        index += 2;
+                        break;
+                    case "-w":
+                    case "--window":
+                        windowSize = Integer.parseInt(args[index + 1]);
+                        if (windowSize < 1) {
+                            throw new IllegalArgumentException("The window size has to be at least 1");
+                        }
+                        index += 2;
+                        break;
+                    case "-c":
+                    case "--congestion":
+                        congestionController = args[index + 1];
+                        // fail early on an unknown name
+                        CongestionController.forName(congestionController);
+                        index += 2;
+                        break;
+                    case "-e":
+                    case "--eventLoop":
+                        eventLoop = Boolean.parseBoolean(args[index + 1]);
+                        index += 2;
+                        break;
+                    case "-a":
+                    case "--ackEvery":
+                        ackEvery = Integer.parseInt(args[index + 1]);
+                        if (ackEvery < 1) {
+                            throw new IllegalArgumentException("ACKs have to be sent at least every 1 packet");
+                        }
+                        index += 2;
+                        break;
+                    case "-t":
+                    case "--ackDelay":
+                        ackDelay = Integer.parseInt(args[index + 1]);
+                        // A held back ACK mustn't make the sender's timer run out
+                        if (ackDelay < 0 || ackDelay >= RTTEstimator.MIN_RTO) {
+                            throw new IllegalArgumentException("The ACK delay has to be between 0 and " +
+                                    (RTTEstimator.MIN_RTO - 1) + " milliseconds");
+                        }
+                        index += 2;
+                        break;
+                    case "-k":
+                    case "--fec":
+                        fecBlockSize = Integer.parseInt(args[index + 1]);
+                        // The block size travels in a single byte of the SYN
+                        if (fecBlockSize < 0 || fecBlockSize > 255) {
+                            throw new IllegalArgumentException("The FEC block size has to be between 0 and 255");
+                        }
+                        index += 2;
+                        break;
+                    case "-z":
+                    case "--compress":
+                        switch (args[index + 1]) {
+                            case "none":
+                                compressionLevel = Deflater.NO_COMPRESSION;
+                                break;
+                            case "fast":
+                                compressionLevel = Deflater.BEST_SPEED;
+                                break;
+                            case "deflate":
+                                compressionLevel = Deflater.DEFAULT_COMPRESSION;
+                                break;
+                            default:
+                                throw new IllegalArgumentException("Unknown compression " + args[index + 1] +
+                                        ", pick none, fast or deflate");
+                        }
+                        index += 2;
+                        break;
+                    case "-n":
+                    case "--paths":
+                        maxPaths = Integer.parseInt(args[index + 1]);
+                        if (maxPaths < 1 || maxPaths > 8) {
+                            throw new IllegalArgumentException("The number of paths has to be between 1 and 8");
+                        }
+                        index += 2;
+                        break;
+                    case "-s":
+                    case "--stripe":
+                        switch (args[index + 1]) {
+                            case "flow":
+                                stripePackets = false;
+                                break;
+                            case "packet":
+                                stripePackets = true;
+                                break;
+                            default:
+                                throw new IllegalArgumentException("Unknown striping " + args[index + 1] +
+                                        ", pick flow or packet");
+                        }
+                        index += 2;
+                        break;
+                    default:
+                            throw new IllegalArgumentException("You've probably provided an Illegal argument. " +
+                                    "Please run `java Rover --help` for the correct options");
+                }
+            }
+            success = true;
+        }
+
+        if (filesToSend.size() != destAddresses.size()) {
+            throw new IllegalArgumentException("Every file needs a destination, please give as many --file as --dest");
+        }
+        if (fecBlockSize > windowSize) {
+            throw new IllegalArgumentException("An FEC block can't be larger than the window");
+        }
+    }
+
+    /**
+     * Displays the help in case an incorrect argument list is passed
+     */
+    void displayHelp(){
+        System.out.println("DESCRIPTION :\n Initializes a Rover on a given multicast ip, port and with a given id\n" +
+                "USAGE :\n " +
+                "- java Rover [-h | --help]\n"+
+                "- java Rover [-p | --port] 520 [-m | --multicastIp] 233.0.0.0  [-i | --id] 10" +
+                " [-f | --file] fileToSend  [-d | --dest] [-w | --window] 8" +
+                " [-c | --congestion] aimd|delay|none [-e | --eventLoop] true|false" +
+                " [-a | --ackEvery] 2 [-t | --ackDelay] 10 [-k | --fec] 0" +
+                " [-z | --compress] none|fast|deflate [-n | --paths] 1 [-s | --stripe] flow|packet\n" +
+                " (--file and --dest may be repeated to send several files at once)\n" +
+                "\nEXAMPLE:\n" +
+                "java Rover --port 520 --multicastIp 233.0.0.0 --id 10 --file path/to/file --dest 10.2.0.1");
+    }
+}
\ No newline at end of file
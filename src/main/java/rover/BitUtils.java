@@ -1,3 +1,5 @@
+package rover;
+
 /**
  * Utility class for handling common bit wise operations
  */
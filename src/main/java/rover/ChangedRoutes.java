@@ -0,0 +1,93 @@
+package rover;
+
+import java.util.Arrays;
+
+/**
+ * The set of destinations whose route changed since the set was last cleared, kept as primitive ints.
+ * <p>
+ * Adding and clearing cost O(1) per changed route, whatever the size of the routing table. The destinations are
+ * kept in the order they first changed in, and a small open addressing index avoids listing one twice.
+ */
+class ChangedRoutes {
+    private final static int INITIAL_CAPACITY = 16;
+
+    private int[] destinations = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Open addressing index into destinations, holding position + 1 so that 0 marks an empty slot
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Adds the destination to the set, unless it is already in it
+     *
+     * @param destination the destination whose route changed
+     */
+    void add(int destination) {
+        int slot = findSlot(destination);
+        if (index[slot] != 0) {
+            return;
+        }
+        if (size == destinations.length) {
+            destinations = Arrays.copyOf(destinations, size * 2);
+            rebuildIndex(index.length * 2);
+            slot = findSlot(destination);
+        }
+        destinations[size++] = destination;
+        index[slot] = size;
+    }
+
+    /**
+     * Returns true if the destination is in the set
+     *
+     * @param destination the destination
+     * @return true if its route changed
+     */
+    boolean contains(int destination) {
+        return index[findSlot(destination)] != 0;
+    }
+
+    /**
+     * Returns the destination at the given position, in the order they were added in
+     *
+     * @param position the position, less than size()
+     * @return the destination
+     */
+    int get(int position) {
+        return destinations[position];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties the set, only touching the slots which were used
+     */
+    void clear() {
+        // Newest first: a destination's probe sequence only crosses slots of destinations added before it, so they
+        // all have to be in place until it is found
+        for (int position = size - 1; position >= 0; position--) {
+            index[findSlot(destinations[position])] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the slot of the index which holds the destination, or the empty slot where it would go
+     */
+    private int findSlot(int destination) {
+        int hash = destination * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & (index.length - 1);
+        while (index[slot] != 0 && destinations[index[slot] - 1] != destination) {
+            slot = (slot + 1) & (index.length - 1);
+        }
+        return slot;
+    }
+
+    private void rebuildIndex(int newLength) {
+        index = new int[newLength];
+        for (int position = 0; position < size; position++) {
+            index[findSlot(destinations[position])] = position + 1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rover;
+
+/**
+ * The time a rover runs on: the system's, or the virtual time of a simulated network (see InMemoryNetwork), which
+ * only moves on when the simulation does
+ */
+interface Clock {
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Returns the time in nanoseconds, only meaningful as the difference between two calls
+     *
+     * @return the time in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * Returns the time in milliseconds, the deadlines of FileTransferSender are in this time
+     *
+     * @return the time in milliseconds
+     */
+    long currentTimeMillis();
+}
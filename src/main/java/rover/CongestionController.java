@@ -0,0 +1,50 @@
+package rover;
+
+/**
+ * Decides how many JRTP packets a sender may have in flight, based on the ACK and loss signals it observes.
+ * <p>
+ * The sender never keeps more than min(window size, congestion window) packets unacknowledged.
+ */
+interface CongestionController {
+
+    /**
+     * Returns the number of packets which may currently be in flight
+     *
+     * @return the congestion window in packets, at least 1
+     */
+    int getCongestionWindow();
+
+    /**
+     * Called when a new packet is acknowledged
+     *
+     * @param rttMillis the round trip time of the packet, or -1 if it was retransmitted or its ACK covered newer packets
+     *                  too, and can't be used as a sample
+     */
+    void onAck(long rttMillis);
+
+    /**
+     * Called when a packet is considered lost, i.e. its retransmission timer ran out or the SACK bits reported it
+     * missing
+     */
+    void onLoss();
+
+    /**
+     * Creates the congestion controller with the given name
+     *
+     * @param name one of "aimd", "delay" or "none"
+     * @return a new congestion controller
+     */
+    static CongestionController forName(String name) {
+        switch (name) {
+            case "aimd":
+                return new AIMDCongestionController();
+            case "delay":
+                return new DelayBasedCongestionController();
+            case "none":
+                return new FixedCongestionController();
+            default:
+                throw new IllegalArgumentException("Unknown congestion controller " + name +
+                        ". Please use one of aimd, delay or none");
+        }
+    }
+}
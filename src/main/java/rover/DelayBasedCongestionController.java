@@ -0,0 +1,81 @@
+package rover;
+
+/**
+ * Delay based congestion control in the spirit of TCP Vegas.
+ * <p>
+ * The smallest RTT seen is taken as the RTT of an empty path. Once per round trip the number of packets queued along
+ * the path is estimated as cwnd * (1 - baseRtt / rtt). The window grows while fewer than ALPHA packets are queued and
+ * shrinks when more than BETA are, so the sender backs off as soon as the forwarding rovers' queues start to build up
+ * instead of waiting for them to overflow. A loss still halves the window.
+ */
+class DelayBasedCongestionController implements CongestionController {
+    private final static double
+            INITIAL_WINDOW = 2,
+            MIN_WINDOW = 2,
+            ALPHA = 2,
+            BETA = 4,
+            GAMMA = 1; // Queued packets at which slow start is left
+
+    private double congestionWindow = INITIAL_WINDOW;
+    private long baseRtt = Long.MAX_VALUE, minRttThisRound = Long.MAX_VALUE;
+    private int acksThisRound = 0;
+    private boolean slowStart = true;
+
+    @Override
+    public synchronized int getCongestionWindow() {
+        return Math.max(1, (int) congestionWindow);
+    }
+
+    @Override
+    public synchronized void onAck(long rttMillis) {
+        if (rttMillis >= 0) {
+            // Avoid dividing by 0 on very fast links, where the timer resolution is too coarse
+            long rtt = Math.max(1, rttMillis);
+            baseRtt = Math.min(baseRtt, rtt);
+            minRttThisRound = Math.min(minRttThisRound, rtt);
+        }
+
+        // Only adjust once per round trip, i.e. once a window worth of packets was acknowledged
+        if (++acksThisRound < congestionWindow) {
+            return;
+        }
+        acksThisRound = 0;
+
+        if (minRttThisRound == Long.MAX_VALUE) {
+            return;
+        }
+        double queuedPackets = congestionWindow * (1 - (double) baseRtt / minRttThisRound);
+        minRttThisRound = Long.MAX_VALUE;
+
+        if (slowStart) {
+            if (queuedPackets > GAMMA) {
+                slowStart = false;
+                congestionWindow = Math.max(MIN_WINDOW, congestionWindow - queuedPackets);
+            } else {
+                congestionWindow *= 2;
+            }
+        } else if (queuedPackets < ALPHA) {
+            congestionWindow += 1;
+        } else if (queuedPackets > BETA) {
+            congestionWindow = Math.max(MIN_WINDOW, congestionWindow - 1);
+        }
+    }
+
+    @Override
+    public synchronized void onLoss() {
+        slowStart = false;
+        acksThisRound = 0;
+        congestionWindow = Math.max(MIN_WINDOW, congestionWindow / 2);
+    }
+
+    /**
+     * Returns a string representation of the controller
+     *
+     * @return string representation of the controller
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("Delay cwnd %.1f base RTT %s", congestionWindow,
+                baseRtt == Long.MAX_VALUE ? "-" : baseRtt + "ms");
+    }
+}
@@ -0,0 +1,169 @@
+package rover;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The next hops a destination can be reached through at the same cost as through the one the routing table holds,
+ * learned from the neighbors' updates along with the routes.
+ * <p>
+ * The routing table keeps a single next hop per destination, the one RIP advertises and poisons routes for. Every
+ * other neighbor which advertises the destination at the same cost is kept here, up to maxAlternates of them, and
+ * compiled into the forwarding table as further paths of the route (see ForwardingTable). An alternate is dropped as
+ * soon as its neighbor advertises another cost or the route's cost changes, so every path of a route always has the
+ * route's metric, and an alternate can take over at once when the routing table's next hop goes away.
+ * <p>
+ * Not thread safe: it is guarded by the routing table's lock, like the table itself.
+ */
+class EqualCostNextHops {
+    private final static int NONE = 0; // Marks a free place, 0.0.0.0 is never a next hop
+
+    private final int maxAlternates;
+    private final Map<Integer, int[]> alternates = new HashMap<>(); // Next hops by destination, NONE marks free places
+
+    /**
+     * Constructs an empty set of alternates
+     *
+     * @param maxPaths the most paths kept per destination, the routing table's next hop included
+     */
+    EqualCostNextHops(int maxPaths) {
+        this.maxAlternates = maxPaths - 1;
+    }
+
+    /**
+     * Records that the next hop reaches the destination at the route's cost
+     *
+     * @param ipAddress the destination
+     * @param nextHop   the neighbor, other than the routing table's next hop
+     * @return true if it wasn't known already and there was room for it
+     */
+    boolean add(int ipAddress, int nextHop) {
+        if (maxAlternates == 0) {
+            return false;
+        }
+        int[] nextHops = alternates.computeIfAbsent(ipAddress, address -> new int[maxAlternates]);
+        int free = -1;
+        for (int index = 0; index < nextHops.length; index++) {
+            if (nextHops[index] == nextHop) {
+                return false;
+            }
+            if (nextHops[index] == NONE && free < 0) {
+                free = index;
+            }
+        }
+        if (free < 0) {
+            return false;
+        }
+        nextHops[free] = nextHop;
+        return true;
+    }
+
+    /**
+     * Forgets the next hop for the destination
+     *
+     * @param ipAddress the destination
+     * @param nextHop   the neighbor
+     * @return true if it was an alternate of the destination
+     */
+    boolean remove(int ipAddress, int nextHop) {
+        int[] nextHops = alternates.get(ipAddress);
+        if (nextHops == null) {
+            return false;
+        }
+        for (int index = 0; index < nextHops.length; index++) {
+            if (nextHops[index] == nextHop) {
+                nextHops[index] = NONE;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes one of the alternates of the destination out, to become the routing table's next hop
+     *
+     * @param ipAddress the destination
+     * @return the next hop taken out, or 0 if the destination has no alternates
+     */
+    int takeAny(int ipAddress) {
+        int[] nextHops = alternates.get(ipAddress);
+        if (nextHops == null) {
+            return NONE;
+        }
+        for (int index = 0; index < nextHops.length; index++) {
+            if (nextHops[index] != NONE) {
+                int nextHop = nextHops[index];
+                nextHops[index] = NONE;
+                return nextHop;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Forgets every alternate of the destination, once the cost they were kept for changed
+     *
+     * @param ipAddress the destination
+     * @return true if there were any
+     */
+    boolean clear(int ipAddress) {
+        int[] nextHops = alternates.remove(ipAddress);
+        if (nextHops == null) {
+            return false;
+        }
+        for (int nextHop : nextHops) {
+            if (nextHop != NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the next hop for every destination, once the neighbor is dead
+     *
+     * @param nextHop the neighbor
+     * @return true if it was an alternate of any destination
+     */
+    boolean removeNextHop(int nextHop) {
+        boolean removed = false;
+        for (int[] nextHops : alternates.values()) {
+            for (int index = 0; index < nextHops.length; index++) {
+                if (nextHops[index] == nextHop) {
+                    nextHops[index] = NONE;
+                    removed = true;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Copies the alternates of the destination into the array
+     *
+     * @param ipAddress the destination
+     * @param nextHops  receives the next hops, has room for maxPaths - 1 of them
+     * @return the number of next hops copied
+     */
+    int get(int ipAddress, int[] nextHops) {
+        int[] known = alternates.get(ipAddress);
+        int count = 0;
+        if (known != null) {
+            for (int nextHop : known) {
+                if (nextHop != NONE) {
+                    nextHops[count++] = nextHop;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the most alternates kept per destination
+     *
+     * @return maxPaths - 1
+     */
+    int maxAlternates() {
+        return maxAlternates;
+    }
+}
@@ -0,0 +1,68 @@
+package rover;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class for the forward error correction of JRTP transfers.
+ * <p>
+ * The packets following the SYN are cut into FEC blocks of fecBlockSize packets, the first block starting at
+ * sequence number 1 and the last one ending with the last packet of the transfer. Each block is followed by a parity
+ * packet whose payload is the XOR of the payloads of the block, the shorter last payload padded with zeroes. Any one
+ * packet of the block is then the XOR of the parity and of the other packets, so a block missing a single packet is
+ * rebuilt by the receiver without the sender having to resend it.
+ */
+class FecUtils {
+    /**
+     * Returns the number of packets of a transfer, the SYN included
+     *
+     * @param totalSize the size of the file
+     * @param chunkSize the payload length of every packet but the last
+     * @return the number of packets, at least 1 since the SYN is always sent
+     */
+    static int packetCount(long totalSize, int chunkSize) {
+        return chunkSize == 0 ? 1 : (int) Math.max(1, (totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Returns the first packet of the FEC block holding the given packet
+     *
+     * @param seqNumber    the sequence number of the packet, at least 1
+     * @param fecBlockSize the packets of a block
+     * @return the sequence number the block starts at
+     */
+    static int blockStart(int seqNumber, int fecBlockSize) {
+        return seqNumber - (seqNumber - 1) % fecBlockSize;
+    }
+
+    /**
+     * Returns the last packet of the FEC block starting at the given packet
+     *
+     * @param blockStart   the sequence number the block starts at
+     * @param fecBlockSize the packets of a block
+     * @param packetCount  the number of packets of the transfer
+     * @return the sequence number the block ends at, included
+     */
+    static int blockEnd(int blockStart, int fecBlockSize, int packetCount) {
+        return Math.min(blockStart + fecBlockSize, packetCount) - 1;
+    }
+
+    /**
+     * XORs length bytes of the source into the target, 8 bytes at a time. Positions and limits are left untouched.
+     *
+     * @param source      the buffer to read from
+     * @param sourceIndex the index of the first byte to read
+     * @param target      the buffer to update, may be the source
+     * @param targetIndex the index of the first byte to update
+     * @param length      the number of bytes
+     */
+    static void xor(ByteBuffer source, int sourceIndex, ByteBuffer target, int targetIndex, int length) {
+        int index = 0;
+        for (; index + 8 <= length; index += 8) {
+            target.putLong(targetIndex + index, target.getLong(targetIndex + index) ^
+                    source.getLong(sourceIndex + index));
+        }
+        for (; index < length; index++) {
+            target.put(targetIndex + index, (byte) (target.get(targetIndex + index) ^ source.get(sourceIndex + index)));
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package rover;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The receiving side of a file transfer, fed with the packets of its session by whoever receives them: a thread
+ * blocking on the data socket or the rover's event loop.
+ * <p>
+ * Packets which arrive ahead of the next expected sequence number (but within the window) are accepted as well. ACKs
+ * are cumulative and carry SACK bits for the packets received beyond the next expected one, so a single ACK covers
+ * every packet received so far.
+ * <p>
+ * ACKs are delayed: one is sent once ackEvery packets arrived in order, or when the delayed ACK timeout runs out after
+ * maxAckDelay milliseconds, whichever comes first. Anything which tells the sender about a loss or ends a loss is
+ * acknowledged at once so that loss recovery isn't slowed down: a packet arriving out of order, one filling a hole,
+ * any packet while holes remain, and duplicates (the previous ACK must have been lost). The SYN and the last packet are
+ * acknowledged at once too.
+ * <p>
+ * Every payload is written at its place in the file, seqNumber * chunk size, straight from the buffer the packet was
+ * received into, so the order of arrival doesn't matter. The SYN tells the total size and the chunk size the sender
+ * picked for its path, the file is then preallocated and memory mapped (see MappedFile) and payloads are copied into
+ * the mapping. The sender waits for the SYN's ACK before sending anything else, so other packets are only dropped
+ * before the SYN if they are stray ones.
+ * <p>
+ * If the SYN carries the FEC flag, the parity packet of each FEC block (see FecUtils) is kept until the block is
+ * complete. Once a block misses a single packet and its parity packet is there, the missing payload is rebuilt right
+ * in the mapped file, from the parity and the payloads of the block already written there, and the packet counts as
+ * received. The parity packets are never acknowledged themselves.
+ * <p>
+ * If the SYN carries the COMPRESSION flag, the payloads of the packets with that flag are deflated chunks: each one is
+ * inflated on arrival and written at its place like any other, so the file is never held compressed. An inflated
+ * chunk of the wrong length is dropped, the sender will resend it.
+ * <p>
+ * If the SYN carries the RESUME flag, every packet written is recorded in a TransferJournal kept beside the output
+ * file. When a later session sends the SYN of the same transfer, after either rover was restarted, the output file is
+ * kept as it is and the SYN is acknowledged up to the first packet the journal misses, which the sender resumes from.
+ * The packets the journal has beyond that one are simply received again.
+ * <p>
+ * The delayed ACK timeout runs on the wheel's thread, so every method is synchronized.
+ */
+class FileTransferReceiver {
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int SACK_BITS = 64;
+
+    /**
+     * Sends an ACK for the packets received so far
+     */
+    interface AckSender {
+        void sendAck(int sourceAddress, int sessionId, int ackNumber, long sackBits) throws IOException;
+    }
+
+    private final String outputFileName;
+    private final RandomAccessFile outputFile;
+    private TransferJournal journal; // null unless the SYN carries the RESUME flag
+    private MappedFile file; // The mapped file, null until the SYN arrives
+    private int chunkSize;
+    private final int windowSize, ackEvery;
+    private final long maxAckDelay;
+    private final AckSender ackSender;
+    private final TimingWheel timingWheel;
+    private final TimingWheel.Timeout delayedAckTimeout;
+    private long totalFileSize = -1, bytesReceived = 0;
+    private int expectedSequenceNumber = 0, highestSequenceNumber = -1;
+    private int sourceAddress, sessionId;
+    private int fecBlockSize, packetCount; // No FEC if the block size is 0
+
+    // Parity payloads of the blocks not complete yet: the block starting at n is kept in slot (n - 1) / fecBlockSize
+    // % paritySlots, whose start, or -1, is in parityBlocks
+    private byte[][] parities;
+    private int[] parityBlocks, parityLengths;
+
+    // Inflates the compressed payloads into inflatedChunk, null unless the SYN carries the COMPRESSION flag
+    private Inflater inflater;
+    private byte[] inflatedChunk;
+    private int unacknowledgedPackets = 0; // Received in order since the last ACK
+    private boolean delayedAckArmed = false;
+    private boolean active = false, closed = false; // active if a packet arrived since the last call to isIdle
+
+    // Sequence numbers received ahead of expectedSequenceNumber, n is kept in slot n % windowSize
+    private final int[] receivedSeqNumbers;
+
+    /**
+     * Opens the output file, which is only emptied once the SYN tells whether the transfer is resumed
+     *
+     * @param outputFileName the path the received file is saved to
+     * @param windowSize     the number of packets the sender may have unacknowledged at once
+     * @param ackEvery       the number of packets received in order which are acknowledged together
+     * @param maxAckDelay    the longest an ACK is held back, in milliseconds
+     * @param timingWheel    the wheel running the delayed ACK timeout
+     * @param ackSender      sends the ACKs
+     * @throws IOException if the file can't be created
+     */
+    FileTransferReceiver(String outputFileName, int windowSize, int ackEvery, long maxAckDelay,
+                         TimingWheel timingWheel, AckSender ackSender) throws IOException {
+        this.outputFileName = outputFileName;
+        this.outputFile = new RandomAccessFile(outputFileName, "rw");
+        this.windowSize = windowSize;
+        this.ackEvery = ackEvery;
+        this.maxAckDelay = maxAckDelay;
+        this.timingWheel = timingWheel;
+        this.ackSender = ackSender;
+        delayedAckTimeout = timingWheel.newTimeout(this::onDelayedAckTimeout);
+        receivedSeqNumbers = new int[windowSize];
+        Arrays.fill(receivedSeqNumbers, -1);
+    }
+
+    /**
+     * Takes in a packet of the session
+     *
+     * @param jPacket the packet, wrapping the buffer it was received into
+     * @param buffer  the array backing the packet
+     * @return true once the whole file was received and written
+     * @throws IOException if the file can't be written or the ACK can't be sent
+     */
+    synchronized boolean onPacket(JPacketFlyweight jPacket, byte[] buffer) throws IOException {
+        boolean isSyn = jPacket.isFlagSet(JPacketUtil.SYN_INDEX);
+        if (!isSyn && !jPacket.isFlagSet(JPacketUtil.NORMAL_INDEX)) {
+            return false;
+        }
+        active = true;
+        sourceAddress = jPacket.sourceAddress();
+        sessionId = jPacket.sessionId();
+        boolean isParity = !isSyn && jPacket.isFlagSet(JPacketUtil.FEC_INDEX);
+
+        // Nothing is written once closed, but the sender of a finished transfer whose last ACK was lost keeps resending
+        // packets which were written already, and they are acknowledged again until it stops
+        if (closed) {
+            if (!isParity && jPacket.seqNumber() < expectedSequenceNumber) {
+                sendAck();
+            }
+            return false;
+        }
+        if (isParity) {
+            return onParity(jPacket, buffer);
+        }
+
+        // The SYN doesn't carry a sequence number, it is always the first packet
+        int sequenceNumber = jPacket.seqNumber();
+
+        // Already written, so our ACK must have been lost. Acknowledge it again.
+        if (sequenceNumber < expectedSequenceNumber ||
+                receivedSeqNumbers[sequenceNumber % windowSize] == sequenceNumber) {
+            sendAck();
+            return false;
+        }
+
+        // drop packets beyond the window, the sender will resend them
+        if (sequenceNumber >= expectedSequenceNumber + windowSize) {
+            return false;
+        }
+
+        if (isSyn) {
+            totalFileSize = jPacket.totalSize();
+            chunkSize = jPacket.chunkSize();
+            // The journal only stands for the output file it was kept along with
+            if (jPacket.isFlagSet(JPacketUtil.RESUME_INDEX)) {
+                journal = new TransferJournal(journalFileName(outputFileName), jPacket.transferId(), totalFileSize,
+                        chunkSize, outputFile.length() == totalFileSize);
+            }
+            if (journal == null || !journal.isResumed()) {
+                outputFile.setLength(0);
+            }
+            outputFile.setLength(totalFileSize);
+            file = new MappedFile(outputFile.getChannel(), FileChannel.MapMode.READ_WRITE, totalFileSize, chunkSize);
+            packetCount = FecUtils.packetCount(totalFileSize, chunkSize);
+            // A block has to fit in the window to be tracked, the parity packets are ignored otherwise
+            fecBlockSize = jPacket.fecBlockSize() <= windowSize ? jPacket.fecBlockSize() : 0;
+            if (fecBlockSize > 0) {
+                int paritySlots = windowSize / fecBlockSize + 2;
+                parities = new byte[paritySlots][chunkSize];
+                parityBlocks = new int[paritySlots];
+                parityLengths = new int[paritySlots];
+                Arrays.fill(parityBlocks, -1);
+            }
+            if (jPacket.isFlagSet(JPacketUtil.COMPRESSION_INDEX)) {
+                inflater = new Inflater();
+                inflatedChunk = new byte[chunkSize];
+            }
+            if (journal != null && journal.isResumed() && journal.firstMissing() > 0) {
+                return resume(journal.firstMissing());
+            }
+        } else if (file == null) {
+            return false;
+        }
+
+        // The SYN's own payload is never compressed
+        byte[] payload = buffer;
+        int payloadOffset = jPacket.payloadOffset(), payloadLength = jPacket.payloadLength();
+        if (!isSyn && jPacket.isFlagSet(JPacketUtil.COMPRESSION_INDEX)) {
+            payloadLength = inflate(buffer, payloadOffset, payloadLength, sequenceNumber);
+            if (payloadLength < 0) {
+                return false;
+            }
+            payload = inflatedChunk;
+            payloadOffset = 0;
+        }
+
+        // A payload running past the end of the file can't belong to this transfer
+        long position = (long) sequenceNumber * chunkSize;
+        if (position + payloadLength > totalFileSize) {
+            return false;
+        }
+        ByteBuffer window = file.window(position);
+        window.position(MappedFile.index(position));
+        window.put(payload, payloadOffset, payloadLength);
+        if (received(sequenceNumber, payloadLength, isSyn)) {
+            return true;
+        }
+        return fecBlockSize > 0 && !isSyn && repair(FecUtils.blockStart(sequenceNumber, fecBlockSize));
+    }
+
+    /**
+     * Picks a transfer up where an earlier session left it: every packet below the first one the journal misses is in
+     * the output file already, the SYN's payload included, and the SYN is acknowledged up to there
+     *
+     * @param firstMissing the first packet which isn't in the output file
+     * @return true if the whole file was received already
+     * @throws IOException if the ACK can't be sent
+     */
+    private boolean resume(int firstMissing) throws IOException {
+        expectedSequenceNumber = firstMissing;
+        bytesReceived = Math.min(totalFileSize, (long) firstMissing * chunkSize);
+        LOGGER.info("Resuming " + outputFileName + " from packet " + firstMissing + ", " + bytesReceived + " of " +
+                totalFileSize + " bytes were received already");
+        sendAck();
+        return bytesReceived == totalFileSize;
+    }
+
+    /**
+     * Inflates a compressed payload into inflatedChunk
+     *
+     * @param buffer         the array holding the payload
+     * @param offset         the index of the payload
+     * @param length         the length of the payload
+     * @param sequenceNumber the sequence number of the packet
+     * @return the length of the chunk, or -1 if the payload isn't a deflated chunk of the expected length
+     */
+    private int inflate(byte[] buffer, int offset, int length, int sequenceNumber) {
+        if (inflater == null) {
+            return -1;
+        }
+        inflater.reset();
+        inflater.setInput(buffer, offset, length);
+        try {
+            int inflatedLength = inflater.inflate(inflatedChunk);
+            return inflater.finished() && inflatedLength == payloadLength(sequenceNumber) ? inflatedLength : -1;
+        } catch (DataFormatException e) {
+            LOGGER.info("Dropping packet " + sequenceNumber + " of session " + sessionId + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Keeps the parity packet of a block until the block is complete, and repairs the block if it can
+     *
+     * @param jPacket the parity packet, wrapping the buffer it was received into
+     * @param buffer  the array backing the packet
+     * @return true once the whole file was received and written
+     * @throws IOException if the ACK can't be sent
+     */
+    private boolean onParity(JPacketFlyweight jPacket, byte[] buffer) throws IOException {
+        int blockStart = jPacket.seqNumber();
+        if (fecBlockSize == 0 || blockStart < 1 || blockStart >= packetCount ||
+                FecUtils.blockStart(blockStart, fecBlockSize) != blockStart ||
+                blockStart >= expectedSequenceNumber + windowSize || jPacket.payloadLength() > chunkSize) {
+            return false;
+        }
+        int slot = (blockStart - 1) / fecBlockSize % parities.length;
+        System.arraycopy(buffer, jPacket.payloadOffset(), parities[slot], 0, jPacket.payloadLength());
+        parityBlocks[slot] = blockStart;
+        parityLengths[slot] = jPacket.payloadLength();
+        return repair(blockStart);
+    }
+
+    /**
+     * Rebuilds the packet missing from the block if it is the only one and the block's parity packet arrived. Its
+     * payload is the XOR of the parity and of the other payloads of the block, computed in place in the mapped file.
+     *
+     * @param blockStart the first packet of the block
+     * @return true once the whole file was received and written
+     * @throws IOException if the ACK can't be sent
+     */
+    private boolean repair(int blockStart) throws IOException {
+        int slot = (blockStart - 1) / fecBlockSize % parities.length;
+        if (parityBlocks[slot] != blockStart) {
+            return false;
+        }
+        int blockEnd = FecUtils.blockEnd(blockStart, fecBlockSize, packetCount), missing = -1;
+        for (int seqNumber = blockStart; seqNumber <= blockEnd; seqNumber++) {
+            if (!isReceived(seqNumber)) {
+                if (missing >= 0) {
+                    return false;
+                }
+                missing = seqNumber;
+            }
+        }
+
+        if (missing >= expectedSequenceNumber + windowSize) {
+            return false;
+        }
+
+        // The parity isn't needed any more once the block is complete
+        parityBlocks[slot] = -1;
+        long position = (long) missing * chunkSize;
+        int length = missing < 0 ? 0 : payloadLength(missing);
+        if (missing < 0 || length > parityLengths[slot]) {
+            return false;
+        }
+        ByteBuffer window = file.window(position);
+        window.position(MappedFile.index(position));
+        window.put(parities[slot], 0, length);
+        for (int seqNumber = blockStart; seqNumber <= blockEnd; seqNumber++) {
+            if (seqNumber != missing) {
+                long chunkOffset = (long) seqNumber * chunkSize;
+                FecUtils.xor(file.window(chunkOffset), MappedFile.index(chunkOffset), window,
+                        MappedFile.index(position), Math.min(length, payloadLength(seqNumber)));
+            }
+        }
+        LOGGER.fine("Rebuilt packet " + missing + " from the parity of block " + blockStart);
+        return received(missing, length, false);
+    }
+
+    /**
+     * Returns true if the packet was written already
+     *
+     * @param seqNumber the sequence number of the packet
+     * @return true if the packet was received or rebuilt
+     */
+    private boolean isReceived(int seqNumber) {
+        return seqNumber < expectedSequenceNumber || receivedSeqNumbers[seqNumber % windowSize] == seqNumber;
+    }
+
+    /**
+     * Returns the payload length of the packet, which is the chunk size for every packet but the last
+     *
+     * @param seqNumber the sequence number of the packet
+     * @return the payload length
+     */
+    private int payloadLength(int seqNumber) {
+        return (int) Math.min(chunkSize, totalFileSize - (long) seqNumber * chunkSize);
+    }
+
+    /**
+     * Records a packet whose payload was written to the file, slides the window and acknowledges it now or later
+     *
+     * @param sequenceNumber the sequence number of the packet
+     * @param payloadLength  the length of its payload
+     * @param isSyn          true for the SYN
+     * @return true once the whole file was received and written
+     * @throws IOException if the ACK can't be sent
+     */
+    private boolean received(int sequenceNumber, int payloadLength, boolean isSyn) throws IOException {
+        bytesReceived += payloadLength;
+        if (journal != null) {
+            journal.set(sequenceNumber);
+        }
+
+        // Slide the window over every packet received in a row
+        boolean inOrder = sequenceNumber == expectedSequenceNumber;
+        receivedSeqNumbers[sequenceNumber % windowSize] = sequenceNumber;
+        highestSequenceNumber = Math.max(highestSequenceNumber, sequenceNumber);
+        while (receivedSeqNumbers[expectedSequenceNumber % windowSize] == expectedSequenceNumber) {
+            expectedSequenceNumber++;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Received packet " + sequenceNumber + ", waiting for " + expectedSequenceNumber + ", " +
+                    bytesReceived + " of " + totalFileSize + " bytes received");
+        }
+
+        boolean done = bytesReceived == totalFileSize;
+        boolean holes = highestSequenceNumber >= expectedSequenceNumber;
+        boolean filledHole = expectedSequenceNumber > sequenceNumber + 1;
+        if (isSyn || done || !inOrder || holes || filledHole || ++unacknowledgedPackets >= ackEvery) {
+            sendAck();
+        } else if (!delayedAckArmed) {
+            delayedAckArmed = true;
+            timingWheel.schedule(delayedAckTimeout, maxAckDelay);
+        }
+        return done;
+    }
+
+    /**
+     * Sends the ACK held back, if the delayed ACK timeout ran out before enough packets arrived
+     */
+    private synchronized void onDelayedAckTimeout() {
+        if (!delayedAckArmed) {
+            return;
+        }
+        try {
+            sendAck();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Acknowledges every packet received so far and disarms the delayed ACK timeout
+     *
+     * @throws IOException if the ACK can't be sent
+     */
+    private void sendAck() throws IOException {
+        if (delayedAckArmed) {
+            delayedAckArmed = false;
+            timingWheel.cancel(delayedAckTimeout);
+        }
+        unacknowledgedPackets = 0;
+        ackSender.sendAck(sourceAddress, sessionId, expectedSequenceNumber, sackBits());
+    }
+
+    /**
+     * Returns the packets received beyond the next expected one
+     *
+     * @return bit i is set if packet expectedSequenceNumber + 1 + i was received
+     */
+    private long sackBits() {
+        long sackBits = 0;
+        for (int bit = 0; bit < SACK_BITS; bit++) {
+            int sequenceNumber = expectedSequenceNumber + 1 + bit;
+            if (sequenceNumber > highestSequenceNumber) {
+                break;
+            }
+            if (receivedSeqNumbers[sequenceNumber % windowSize] == sequenceNumber) {
+                sackBits |= 1L << bit;
+            }
+        }
+        return sackBits;
+    }
+
+    /**
+     * Returns true if no packet arrived since the last call
+     *
+     * @return true if the session was idle since the last call
+     */
+    synchronized boolean isIdle() {
+        boolean idle = !active;
+        active = false;
+        return idle;
+    }
+
+    /**
+     * Returns the path the received file is saved to
+     *
+     * @return the path of the output file
+     */
+    String outputFileName() {
+        return outputFileName;
+    }
+
+    /**
+     * Returns the path of the journal kept beside an output file
+     *
+     * @param outputFileName the path of the output file
+     * @return the path of its journal
+     */
+    static String journalFileName(String outputFileName) {
+        return outputFileName + ".journal";
+    }
+
+    /**
+     * Closes the output file, and the journal which is deleted if the whole file was received. Packets arriving later
+     * are only acknowledged again if they were written already, closing again does nothing.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        timingWheel.cancel(delayedAckTimeout);
+        delayedAckArmed = false;
+        if (inflater != null) {
+            inflater.end();
+        }
+        if (journal != null) {
+            journal.close(bytesReceived == totalFileSize);
+        }
+        outputFile.close();
+    }
+}
@@ -0,0 +1,551 @@
+package rover;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Deflater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The sending side of a file transfer, driven by whoever receives the ACKs: a thread blocking on the ACK socket or the
+ * rover's event loop.
+ * <p>
+ * Uses a selective repeat sliding window: up to `windowSize` packets are kept in flight, each with its own
+ * retransmission timer. ACKs are cumulative, with SACK bits for the packets received beyond the ACK number, so one ACK
+ * may acknowledge many packets. A packet still in flight while duplicateThreshold packets sent after it were
+ * acknowledged is taken as lost and resent at once (fast retransmit), once per packet, without waiting for its timer.
+ * The threshold is DUPLICATE_THRESHOLD, unless the packets may be reordered on their way, when they are striped over
+ * several paths: it is then raised so that a packet overtaken by those of a faster path isn't resent.
+ * The SYN carries the first chunk and occupies sequence number 0, along with the total size and the chunk size. Only
+ * the SYN is sent until it is acknowledged, so that the receiver knows where every later chunk goes before it arrives.
+ * Every packet carries the transfer's session id, so that the receiver can tell it apart from other transfers and its
+ * ACKs find their way back to this sender.
+ * <p>
+ * The file is memory mapped (see MappedFile, so files of any size can be sent) and chunk n is the one at
+ * n * maxPayloadSize, copied from the mapping straight into its window slot right after the space left for the header.
+ * The slots are direct buffers, so the chunk is copied once and the packet is sent from the slot without any further
+ * copy, retransmissions included.
+ * <p>
+ * The retransmission timeout comes from the destination's RTTEstimator. Only packets which were sent once are used
+ * as RTT samples, one per ACK: the newest packet it acknowledges, which is the one the receiver sent it for. The
+ * timeout is doubled whenever a timer runs out.
+ * <p>
+ * A CongestionController further limits the packets in flight from the ACK and loss signals, so that the
+ * forwarding rovers along the path aren't overrun.
+ * <p>
+ * With forward error correction, the SYN carries the FEC flag and the block size, and a parity packet is sent right
+ * after the last packet of every FEC block (see FecUtils), which lets the receiver rebuild a single lost packet per
+ * block without a round trip. The parity packets aren't acknowledged nor resent, and aren't counted by the congestion
+ * window: they add a fixed 1 / fecBlockSize to the traffic. A packet is only taken as lost once duplicateThreshold
+ * packets past the end of its block were acknowledged, so that the parity gets its chance first and a loss which was
+ * repaired doesn't shrink the congestion window.
+ * <p>
+ * With compression, the SYN carries the COMPRESSION flag and every later chunk is deflated on its way into its slot,
+ * the packet carrying the COMPRESSION flag as well. A chunk which doesn't shrink is sent as is, and the next
+ * INCOMPRESSIBLE_SKIP chunks are sent as is without trying, so that already compressed data doesn't cost a deflate
+ * per chunk. Chunk n still stands for the bytes at n * maxPayloadSize of the file, however many bytes it takes on the
+ * wire, so the SYN (always sent as is), the parity packets and the receiver's bookkeeping don't change.
+ * <p>
+ * A transfer with a transfer id can be resumed: the SYN carries the RESUME flag and the id, which names the file
+ * rather than the session (see transferId). If the receiver's journal holds the packets of an earlier session of the
+ * same transfer, the SYN's ACK number is past them and the window starts over from there instead of from packet 1.
+ * <p>
+ * After RESTART_TIMEOUTS timeouts in a row without an ACK, the path is taken as gone and the transfer starts over from
+ * a new SYN, resent as the backed off RTO allows until the path is back. The receiver may have dropped the session
+ * meanwhile (see Rover.RECEIVE_SESSION_IDLE_TIME) and would take any other packet as a stray one. A receiver which
+ * kept the session acknowledges the SYN up to the packets it has, and so does one which picks the transfer up from
+ * its journal, so the window goes on from there as it does for a resumed transfer.
+ */
+class FileTransferSender {
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int DOES_NOT_MATTER = 0;
+    final static int DUPLICATE_THRESHOLD = 3;
+    final static int RESTART_TIMEOUTS = 4; // Less than Rover.RECEIVE_SESSION_IDLE_TIME even at RTTEstimator.MAX_RTO
+    private final static int INCOMPRESSIBLE_SKIP = 16;
+
+    /**
+     * Sends an encoded data packet towards the destination
+     */
+    interface PacketSender {
+        void send(InFlightPacket packet) throws IOException;
+    }
+
+    private final String fileToSend;
+    private final FileChannel fileChannel;
+    private final MappedFile file; // The window holding each chunk has its position moved to the chunk in turn
+    private final long totalSize;
+    private final int destAddress, sourceAddress, sessionId, windowSize, maxPayloadSize;
+    private final int fecBlockSize, packetCount;
+    private final long transferId; // 0 if the transfer can't be resumed
+    private final int duplicateThreshold;
+    private final Deflater deflater; // null without compression
+    private final byte[] rawChunk, compressedChunk;
+    private int chunksToSkip = 0; // Chunks left to send as is since the last one which didn't shrink
+    private final RTTEstimator rttEstimator;
+    private final CongestionController congestionController;
+    private final PacketSender packetSender;
+    private final Clock clock; // The retransmission deadlines and RTT samples are in its time
+    private final JPacketFlyweight jPacket = new JPacketFlyweight();
+
+    // The packet with sequence number n is kept in slot n % windowSize until it is acknowledged
+    private final InFlightPacket[] window;
+    private final InFlightPacket parityPacket; // Holds the parity packet of the last block sent, null without FEC
+    private int nextSeqNumber = 0, baseSeqNumber = 0, packetsInFlight = 0;
+    private boolean fileFullyRead = false;
+    private long lastWindowReductionTime = 0;
+    private int timeoutsWithoutAck = 0; // Since the last ACK which acknowledged a packet
+
+    /**
+     * Opens and maps the file to send
+     *
+     * @param fileToSend           path of the file
+     * @param destAddress          private address of the destination rover
+     * @param sourceAddress        private address of this rover
+     * @param sessionId            id of the transfer, unique among the transfers of this rover
+     * @param windowSize           the number of packets which may be unacknowledged at once
+     * @param maxPayloadSize       the largest chunk of the file sent in one packet, see Rover.payloadSizeFor
+     * @param fecBlockSize         the packets covered by each parity packet, or 0 to send no parity packets
+     * @param compressionLevel     the Deflater level the chunks are compressed with, or Deflater.NO_COMPRESSION to
+     *                             send them as is
+     * @param transferId           the id of the file, see transferId, or 0 if the transfer can't be resumed
+     * @param duplicateThreshold   the packets acknowledged past the end of a packet's block which make it lost,
+     *                             DUPLICATE_THRESHOLD unless the packets may be reordered
+     * @param rttEstimator         the destination's RTT estimator
+     * @param congestionController the congestion controller of this transfer
+     * @param packetSender         sends the encoded packets
+     * @throws IOException if the file can't be opened or mapped
+     */
+    FileTransferSender(String fileToSend, int destAddress, int sourceAddress, int sessionId, int windowSize,
+                       int maxPayloadSize, int fecBlockSize, int compressionLevel, long transferId,
+                       int duplicateThreshold, RTTEstimator rttEstimator, CongestionController congestionController,
+                       PacketSender packetSender) throws IOException {
+        this(fileToSend, destAddress, sourceAddress, sessionId, windowSize, maxPayloadSize, fecBlockSize,
+                compressionLevel, transferId, duplicateThreshold, rttEstimator, congestionController, packetSender,
+                Clock.SYSTEM);
+    }
+
+    /**
+     * Opens and maps the file to send, timing the packets on the given clock
+     *
+     * @param clock the clock the packets are timed on, earliestDeadline is in its currentTimeMillis
+     * @see #FileTransferSender(String, int, int, int, int, int, int, int, long, int, RTTEstimator,
+     * CongestionController, PacketSender)
+     */
+    FileTransferSender(String fileToSend, int destAddress, int sourceAddress, int sessionId, int windowSize,
+                       int maxPayloadSize, int fecBlockSize, int compressionLevel, long transferId,
+                       int duplicateThreshold, RTTEstimator rttEstimator, CongestionController congestionController,
+                       PacketSender packetSender, Clock clock) throws IOException {
+        this.fileToSend = fileToSend;
+        this.fileChannel = FileChannel.open(Paths.get(fileToSend), StandardOpenOption.READ);
+        this.totalSize = fileChannel.size();
+        this.file = new MappedFile(fileChannel, FileChannel.MapMode.READ_ONLY, totalSize, maxPayloadSize);
+        this.destAddress = destAddress;
+        this.sourceAddress = sourceAddress;
+        this.sessionId = sessionId;
+        this.windowSize = windowSize;
+        this.maxPayloadSize = maxPayloadSize;
+        this.fecBlockSize = fecBlockSize;
+        this.packetCount = FecUtils.packetCount(totalSize, maxPayloadSize);
+        this.deflater = compressionLevel == Deflater.NO_COMPRESSION ? null : new Deflater(compressionLevel);
+        this.rawChunk = deflater == null ? null : new byte[maxPayloadSize];
+        this.compressedChunk = deflater == null ? null : new byte[maxPayloadSize];
+        this.transferId = transferId;
+        this.duplicateThreshold = duplicateThreshold;
+        this.rttEstimator = rttEstimator;
+        this.congestionController = congestionController;
+        this.packetSender = packetSender;
+        this.clock = clock;
+
+        window = new InFlightPacket[windowSize];
+        for (int slot = 0; slot < windowSize; slot++) {
+            window[slot] = new InFlightPacket(JPacketFlyweight.MAX_HEADER_SIZE + maxPayloadSize);
+        }
+        parityPacket = fecBlockSize > 0 ? new InFlightPacket(JPacketFlyweight.MAX_HEADER_SIZE + maxPayloadSize) : null;
+    }
+
+    /**
+     * Fills up the window, without having more packets in flight than the congestion window allows, once the SYN is
+     * acknowledged
+     *
+     * @throws IOException if a packet can't be sent
+     */
+    void fillWindow() throws IOException {
+        while (!fileFullyRead && nextSeqNumber < baseSeqNumber + windowSize &&
+                packetsInFlight < congestionController.getCongestionWindow() &&
+                (nextSeqNumber == 0 || baseSeqNumber > 0)) {
+            InFlightPacket inFlightPacket = window[nextSeqNumber % windowSize];
+            byte flags = BitUtils.setBitInByte((byte) 0,
+                    nextSeqNumber == 0 ? JPacketUtil.SYN_INDEX : JPacketUtil.NORMAL_INDEX);
+            if (nextSeqNumber == 0 && fecBlockSize > 0) {
+                flags = BitUtils.setBitInByte(flags, JPacketUtil.FEC_INDEX);
+            }
+            if (nextSeqNumber == 0 && deflater != null) {
+                flags = BitUtils.setBitInByte(flags, JPacketUtil.COMPRESSION_INDEX);
+            }
+            if (nextSeqNumber == 0 && transferId != 0) {
+                flags = BitUtils.setBitInByte(flags, JPacketUtil.RESUME_INDEX);
+            }
+            long chunkOffset = (long) nextSeqNumber * maxPayloadSize;
+            int bytesRead = (int) Math.min(maxPayloadSize, totalSize - chunkOffset), payloadLength = bytesRead;
+            ByteBuffer chunk = file.window(chunkOffset);
+            chunk.limit(MappedFile.index(chunkOffset) + bytesRead).position(MappedFile.index(chunkOffset));
+            inFlightPacket.buffer.clear().position(JPacketFlyweight.headerLength(flags));
+            int compressedLength = nextSeqNumber > 0 ? compress(chunk, bytesRead) : -1;
+            if (compressedLength >= 0) {
+                flags = BitUtils.setBitInByte(flags, JPacketUtil.COMPRESSION_INDEX);
+                inFlightPacket.buffer.put(compressedChunk, 0, compressedLength);
+                payloadLength = compressedLength;
+            } else {
+                inFlightPacket.buffer.put(chunk);
+            }
+            chunk.clear();
+
+            // The SYN is always sent, even for an empty file, so that the receiver knows the total size
+            if (chunkOffset + bytesRead == totalSize) {
+                fileFullyRead = true;
+                LOGGER.info("The last chunk is " + bytesRead + " bytes long");
+            }
+
+            jPacket.wrap(inFlightPacket.buffer, 0, 0).writeHeader(flags, destAddress, sourceAddress, sessionId,
+                    nextSeqNumber, DOES_NOT_MATTER, DOES_NOT_MATTER, totalSize, maxPayloadSize, fecBlockSize,
+                    transferId, payloadLength);
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("About to send packet\n" + jPacket + "-----------------------------\n");
+            }
+
+            inFlightPacket.sent(nextSeqNumber, jPacket.length(), clock.currentTimeMillis(), rttEstimator.getRto());
+            packetSender.send(inFlightPacket);
+            packetsInFlight++;
+            if (fecBlockSize > 0 && nextSeqNumber > 0 && nextSeqNumber == lastOfBlock(nextSeqNumber)) {
+                sendParity(FecUtils.blockStart(nextSeqNumber, fecBlockSize), nextSeqNumber);
+            }
+            nextSeqNumber++;
+        }
+    }
+
+    /**
+     * Deflates the chunk between the window's position and limit into compressedChunk, unless compression is off or
+     * skipped for now. The window is left where it was.
+     *
+     * @param chunk  the window of the mapped file holding the chunk
+     * @param length the length of the chunk
+     * @return the length of the compressed chunk, or -1 if the chunk is to be sent as is
+     */
+    private int compress(ByteBuffer chunk, int length) {
+        if (deflater == null) {
+            return -1;
+        }
+        if (chunksToSkip > 0) {
+            chunksToSkip--;
+            return -1;
+        }
+        int position = chunk.position();
+        chunk.get(rawChunk, 0, length);
+        chunk.position(position);
+        deflater.reset();
+        deflater.setInput(rawChunk, 0, length);
+        deflater.finish();
+
+        // Deflating stops once the output is as long as the chunk, it isn't finished then
+        int compressedLength = deflater.deflate(compressedChunk, 0, Math.max(length - 1, 0));
+        if (!deflater.finished()) {
+            chunksToSkip = INCOMPRESSIBLE_SKIP;
+            return -1;
+        }
+        return compressedLength;
+    }
+
+    /**
+     * Sends the parity packet of the FEC block, the XOR of its chunks read from the mapping
+     *
+     * @param blockStart the first packet of the block
+     * @param blockEnd   the last packet of the block
+     * @throws IOException if the packet can't be sent
+     */
+    private void sendParity(int blockStart, int blockEnd) throws IOException {
+        byte flags = BitUtils.setBitInByte(BitUtils.setBitInByte((byte) 0, JPacketUtil.NORMAL_INDEX),
+                JPacketUtil.FEC_INDEX);
+        int headerLength = JPacketFlyweight.headerLength(flags);
+
+        // The first chunk of a block is the longest, only the last chunk of the file can be shorter
+        long blockOffset = (long) blockStart * maxPayloadSize;
+        int parityLength = (int) Math.min(maxPayloadSize, totalSize - blockOffset);
+        ByteBuffer parity = parityPacket.buffer, chunk = file.window(blockOffset);
+        chunk.limit(MappedFile.index(blockOffset) + parityLength).position(MappedFile.index(blockOffset));
+        parity.clear().position(headerLength);
+        parity.put(chunk);
+        chunk.clear();
+        for (int seqNumber = blockStart + 1; seqNumber <= blockEnd; seqNumber++) {
+            long chunkOffset = (long) seqNumber * maxPayloadSize;
+            FecUtils.xor(file.window(chunkOffset), MappedFile.index(chunkOffset), parity, headerLength,
+                    (int) Math.min(maxPayloadSize, totalSize - chunkOffset));
+        }
+
+        jPacket.wrap(parity, 0, 0).writeHeader(flags, destAddress, sourceAddress, sessionId, blockStart,
+                DOES_NOT_MATTER, DOES_NOT_MATTER, DOES_NOT_MATTER, DOES_NOT_MATTER, DOES_NOT_MATTER, DOES_NOT_MATTER, parityLength);
+        parityPacket.length = jPacket.length();
+        parityPacket.seqNumber = blockStart;
+        packetSender.send(parityPacket);
+    }
+
+    /**
+     * Returns the last packet which has to be sent before the given one can be repaired by a parity packet
+     *
+     * @param seqNumber the sequence number of the packet
+     * @return the last packet of its FEC block, or the packet itself without FEC and for the SYN
+     */
+    private int lastOfBlock(int seqNumber) {
+        if (fecBlockSize == 0 || seqNumber == 0) {
+            return seqNumber;
+        }
+        return FecUtils.blockEnd(FecUtils.blockStart(seqNumber, fecBlockSize), fecBlockSize, packetCount);
+    }
+
+    /**
+     * Takes in an ACK, marks every packet it covers as acknowledged and slides the window
+     *
+     * @param ack the received packet
+     */
+    void onAck(JPacketFlyweight ack) {
+        if (!ack.isFlagSet(JPacketUtil.ACK_INDEX)) {
+            return;
+        }
+
+        // Every packet below the ACK number was received, and the ones whose SACK bit is set
+        int ackNumber = ack.ackNumber();
+        long sackBits = ack.sackBits();
+        int newestAcked = -1, ackedPackets = 0;
+        for (int seqNumber = baseSeqNumber; seqNumber < Math.min(ackNumber, nextSeqNumber); seqNumber++) {
+            if (acknowledge(seqNumber)) {
+                newestAcked = seqNumber;
+                ackedPackets++;
+            }
+        }
+        for (long bits = sackBits; bits != 0; bits &= bits - 1) {
+            int seqNumber = ackNumber + 1 + Long.numberOfTrailingZeros(bits);
+            if (seqNumber >= baseSeqNumber && seqNumber < nextSeqNumber && acknowledge(seqNumber)) {
+                newestAcked = Math.max(newestAcked, seqNumber);
+                ackedPackets++;
+            }
+        }
+        if (newestAcked < 0) {
+            return;
+        }
+        timeoutsWithoutAck = 0;
+
+        // Karn's algorithm: an ACK for a resent packet can't be used as an RTT sample
+        InFlightPacket newest = window[newestAcked % windowSize];
+        long rtt = newest.retransmitted ? -1 : clock.currentTimeMillis() - newest.firstSendTime;
+        if (rtt >= 0) {
+            rttEstimator.addSample(rtt);
+        }
+
+        // The controllers count acknowledged packets, the sample goes along with one of them
+        congestionController.onAck(rtt);
+        for (int packet = 1; packet < ackedPackets; packet++) {
+            congestionController.onAck(-1);
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Got an ack up to " + ackNumber + " with SACK bits " + Long.toHexString(sackBits) + ", " +
+                    rttEstimator);
+        }
+
+        // Slide the window up to the oldest unacknowledged packet
+        while (baseSeqNumber < nextSeqNumber && !window[baseSeqNumber % windowSize].inFlight) {
+            baseSeqNumber++;
+        }
+
+        // Only the SYN was sent: the receiver resumed the transfer and has every packet below the ACK number already
+        if (nextSeqNumber == 1 && baseSeqNumber == 1 && ackNumber > 1) {
+            nextSeqNumber = baseSeqNumber = Math.min(ackNumber, packetCount);
+            fileFullyRead = nextSeqNumber == packetCount;
+            LOGGER.info("Resuming " + fileToSend + " from packet " + nextSeqNumber + " of " + packetCount);
+        }
+
+        // Packets overtaken by enough acknowledged ones past the end of their block are lost, resendExpired sends them
+        // again right away
+        int ackedAfter = 0, ackedAfterBlock = 0;
+        for (int seqNumber = nextSeqNumber - 1; seqNumber >= baseSeqNumber; seqNumber--) {
+            if (lastOfBlock(seqNumber) == seqNumber) {
+                ackedAfterBlock = ackedAfter;
+            }
+            InFlightPacket inFlightPacket = window[seqNumber % windowSize];
+            if (!inFlightPacket.inFlight) {
+                ackedAfter++;
+            } else if (ackedAfterBlock >= duplicateThreshold && !inFlightPacket.fastRetransmitted) {
+                inFlightPacket.lost = true;
+                inFlightPacket.retransmitDeadline = 0;
+            }
+        }
+    }
+
+    /**
+     * Marks the packet as acknowledged
+     *
+     * @param seqNumber the sequence number of the packet, within the window
+     * @return false if it was already acknowledged
+     */
+    private boolean acknowledge(int seqNumber) {
+        InFlightPacket acked = window[seqNumber % windowSize];
+        if (!acked.inFlight) {
+            return false;
+        }
+        acked.inFlight = false;
+        packetsInFlight--;
+        return true;
+    }
+
+    /**
+     * Resends every packet whose timer ran out or which the SACK bits reported lost. The congestion window is reduced
+     * only for packets sent after the previous reduction, otherwise every loss from the same window would count again,
+     * and the RTO is backed off along with it unless the loss was found from the SACK bits. After RESTART_TIMEOUTS
+     * backoffs in a row the transfer is restarted instead, and fillWindow sends the new SYN.
+     *
+     * @throws IOException if a packet can't be sent
+     */
+    void resendExpired() throws IOException {
+        long now = clock.currentTimeMillis();
+        for (int seqNumber = baseSeqNumber; seqNumber < nextSeqNumber; seqNumber++) {
+            InFlightPacket inFlightPacket = window[seqNumber % windowSize];
+            if (inFlightPacket.inFlight && inFlightPacket.retransmitDeadline <= now) {
+                if (inFlightPacket.lastSendTime >= lastWindowReductionTime) {
+                    boolean timedOut = !inFlightPacket.lost;
+                    if (timedOut) {
+                        rttEstimator.backoff();
+                    }
+                    congestionController.onLoss();
+                    lastWindowReductionTime = now;
+                    if (timedOut && ++timeoutsWithoutAck >= RESTART_TIMEOUTS) {
+                        restart();
+                        return;
+                    }
+                }
+                if (inFlightPacket.lost) {
+                    inFlightPacket.lost = false;
+                    inFlightPacket.fastRetransmitted = true;
+                }
+                LOGGER.info("This is a repeat message because ACK was not received for " + seqNumber + ", " +
+                        rttEstimator + ", " + congestionController);
+                inFlightPacket.resent(now, rttEstimator.getRto());
+                packetSender.send(inFlightPacket);
+            }
+        }
+    }
+
+    /**
+     * Forgets every packet in flight so that the transfer starts over from the SYN, which is acknowledged up to the
+     * packets the receiver has
+     */
+    private void restart() {
+        LOGGER.info("No ACK for " + fileToSend + " after " + timeoutsWithoutAck + " timeouts, restarting session " +
+                sessionId + " from the SYN, " + rttEstimator);
+        for (int seqNumber = baseSeqNumber; seqNumber < nextSeqNumber; seqNumber++) {
+            window[seqNumber % windowSize].inFlight = false;
+        }
+        nextSeqNumber = baseSeqNumber = packetsInFlight = 0;
+        fileFullyRead = false;
+        chunksToSkip = 0;
+        timeoutsWithoutAck = 0;
+    }
+
+    /**
+     * Returns the earliest retransmission deadline, which is how long an ACK may be waited for
+     *
+     * @return the deadline in the currentTimeMillis of clock(), or Long.MAX_VALUE if no packet is in flight
+     */
+    long earliestDeadline() {
+        long earliestDeadline = Long.MAX_VALUE;
+        for (int seqNumber = baseSeqNumber; seqNumber < nextSeqNumber; seqNumber++) {
+            InFlightPacket inFlightPacket = window[seqNumber % windowSize];
+            if (inFlightPacket.inFlight) {
+                earliestDeadline = Math.min(earliestDeadline, inFlightPacket.retransmitDeadline);
+            }
+        }
+        return earliestDeadline;
+    }
+
+    /**
+     * Returns the transfer id of a file, which is the same for every session sending this version of the file, so
+     * that a transfer cut short can be resumed by a new session, after a restart of the rover included. The file's
+     * path, size and modification time are hashed: a file which changed is a new transfer.
+     *
+     * @param fileToSend path of the file
+     * @return the transfer id, never 0
+     * @throws IOException if the file can't be read
+     */
+    static long transferId(String fileToSend) throws IOException {
+        File file = new File(fileToSend).getCanonicalFile();
+        if (!file.isFile()) {
+            throw new FileNotFoundException(fileToSend);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((file.getPath() + "|" + file.length() + "|" + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+            long transferId = ByteBuffer.wrap(digest.digest()).getLong();
+            return transferId == 0 ? 1 : transferId;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the id of the transfer
+     *
+     * @return the session id
+     */
+    int sessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the clock the packets are timed on
+     *
+     * @return the clock of earliestDeadline
+     */
+    Clock clock() {
+        return clock;
+    }
+
+    /**
+     * Returns true once the whole file was sent and acknowledged
+     *
+     * @return true if the transfer is over
+     */
+    boolean isDone() {
+        return fileFullyRead && packetsInFlight == 0;
+    }
+
+    /**
+     * Closes the file, and logs the end of the transfer if it is over
+     *
+     * @throws IOException if the file can't be closed
+     */
+    void close() throws IOException {
+        fileChannel.close();
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (isDone()) {
+            LOGGER.info("All packets of " + fileToSend + " have been acknowledged (session " + sessionId + "), " +
+                    rttEstimator);
+        }
+    }
+
+    /**
+     * Returns a string representation of the window
+     *
+     * @return string representation of the window
+     */
+    @Override
+    public String toString() {
+        return "Window is [" + baseSeqNumber + ", " + nextSeqNumber + "), " + rttEstimator + ", " +
+                congestionController;
+    }
+}
@@ -0,0 +1,30 @@
+package rover;
+
+/**
+ * A congestion controller which never limits the sender. Only the flow control window applies.
+ */
+class FixedCongestionController implements CongestionController {
+
+    @Override
+    public int getCongestionWindow() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void onAck(long rttMillis) {
+    }
+
+    @Override
+    public void onLoss() {
+    }
+
+    /**
+     * Returns a string representation of the controller
+     *
+     * @return string representation of the controller
+     */
+    @Override
+    public String toString() {
+        return "No congestion control";
+    }
+}
@@ -0,0 +1,239 @@
+package rover;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+/**
+ * A forwarding information base compiled from the routing table, answering longest prefix match lookups.
+ * <p>
+ * The routes are kept in a multibit trie with a stride of 8 bits, so a lookup reads at most one entry from each of
+ * 4 levels. Prefixes whose length isn't a multiple of 8 are expanded into all the entries they cover (controlled
+ * prefix expansion) and longer prefixes are inserted after shorter ones, pushing the shorter ones down into the new
+ * nodes they overwrite. Every entry of a node is either empty, the index of a child node or the index of a route.
+ * <p>
+ * A table is never changed once compiled. It is rebuilt when the routing table changes and swapped in, so the
+ * forwarding paths can use it without taking any lock.
+ * <p>
+ * The socket addresses packets are forwarded to are built along with the table, so forwarding a packet allocates
+ * nothing.
+ * <p>
+ * A route may have several paths, one per equal-cost next hop (see EqualCostNextHops), the routing table's own next
+ * hop being path 0. The paths of route r are kept at [pathStart[r], pathStart[r + 1]) of the per-path arrays, and the
+ * forwarding paths pick one of them for every packet, by flow or in turn (see Rover).
+ */
+class ForwardingTable {
+    static final int NO_ROUTE = -1;
+    static final ForwardingTable EMPTY = new ForwardingTable(new int[0], new int[]{0}, new int[0], new byte[0], 0, 0);
+
+    private final static int
+            STRIDE = 8,
+            NODE_SIZE = 1 << STRIDE,
+            EMPTY_ENTRY = 0;
+
+    private final int[] nodes;
+    private final int[] pathStart; // One more than the routes, the paths of the last route end at the last entry
+    private final InetAddress[] nextHopAddresses; // The arrays below are per path, the metrics per route
+    private final InetSocketAddress[] dataSocketAddresses, ackSocketAddresses;
+    private final int[] nextHops;
+    private final byte[] metrics;
+
+    /**
+     * Builds the table from the compiled trie and the routes its entries point to
+     */
+    private ForwardingTable(int[] nodes, int[] pathStart, int[] nextHops, byte[] metrics, int dataPort, int ackPort) {
+        this.nodes = nodes;
+        this.pathStart = pathStart;
+        this.nextHops = nextHops;
+        this.metrics = metrics;
+        this.nextHopAddresses = new InetAddress[nextHops.length];
+        this.dataSocketAddresses = new InetSocketAddress[nextHops.length];
+        this.ackSocketAddresses = new InetSocketAddress[nextHops.length];
+        for (int path = 0; path < nextHops.length; path++) {
+            nextHopAddresses[path] = IPUtils.toInetAddress(nextHops[path]);
+            dataSocketAddresses[path] = new InetSocketAddress(nextHopAddresses[path], dataPort);
+            ackSocketAddresses[path] = new InetSocketAddress(nextHopAddresses[path], ackPort);
+        }
+    }
+
+    /**
+     * Compiles the routes of the given routing table, with a single path each
+     *
+     * @see #compile(RoutingTable, EqualCostNextHops, int, int, int)
+     */
+    static ForwardingTable compile(RoutingTable routingTable, int infinity, int dataPort, int ackPort) {
+        return compile(routingTable, new EqualCostNextHops(1), infinity, dataPort, ackPort);
+    }
+
+    /**
+     * Compiles the routes of the given routing table, with the equal-cost next hops of each destination as further
+     * paths. Unreachable routes are left out. Has to be called while holding the routing table's lock.
+     *
+     * @param routingTable      the routing table
+     * @param equalCostNextHops the alternates of the routing table's next hops
+     * @param infinity     the metric at which a destination is unreachable
+     * @param dataPort     the port the rovers receive data packets on
+     * @param ackPort      the port the rovers receive the ACKs of their own transfers on
+     * @return the compiled forwarding table
+     */
+    static ForwardingTable compile(RoutingTable routingTable, EqualCostNextHops equalCostNextHops, int infinity,
+                                   int dataPort, int ackPort) {
+        // Sort the routes on prefix length, so that longer prefixes overwrite the shorter ones they overlap with
+        long[] routes = new long[routingTable.size()];
+        int routeCount = 0;
+        for (int slot = routingTable.firstSlot(); slot != RoutingTable.NO_ROUTE; slot = routingTable.nextSlot(slot)) {
+            if (routingTable.metric(slot) < infinity) {
+                int prefixLength = Math.max(0, Math.min(32, routingTable.subnetMask(slot)));
+                routes[routeCount++] = (long) prefixLength << 32 | slot;
+            }
+        }
+        Arrays.sort(routes, 0, routeCount);
+
+        int[] pathStart = new int[routeCount + 1], alternates = new int[equalCostNextHops.maxAlternates()];
+        int[] nextHops = new int[routeCount];
+        byte[] metrics = new byte[routeCount];
+        int pathCount = 0;
+        int[] nodes = new int[NODE_SIZE];
+        int nodeCount = 1;
+
+        for (int route = 0; route < routeCount; route++) {
+            int slot = (int) routes[route];
+            int prefixLength = (int) (routes[route] >>> 32);
+            int prefix = prefixLength == 0 ? 0 : routingTable.ipAddress(slot) & -1 << (32 - prefixLength);
+            int alternateCount = equalCostNextHops.get(routingTable.ipAddress(slot), alternates);
+            if (pathCount + 1 + alternateCount > nextHops.length) {
+                nextHops = Arrays.copyOf(nextHops, Math.max(nextHops.length * 2, pathCount + 1 + alternateCount));
+            }
+            pathStart[route] = pathCount;
+            nextHops[pathCount++] = routingTable.nextHop(slot);
+            System.arraycopy(alternates, 0, nextHops, pathCount, alternateCount);
+            pathCount += alternateCount;
+            metrics[route] = routingTable.metric(slot);
+
+            // Walk down to the level the prefix ends in, creating the nodes on the way
+            int node = 0, shift = 32 - STRIDE;
+            while (prefixLength > 32 - shift) {
+                int index = node * NODE_SIZE + (prefix >>> shift & (NODE_SIZE - 1));
+                if (nodes[index] <= EMPTY_ENTRY) {
+                    if ((nodeCount + 1) * NODE_SIZE > nodes.length) {
+                        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                    }
+                    // Push the shorter route this entry held down into the new node
+                    Arrays.fill(nodes, nodeCount * NODE_SIZE, (nodeCount + 1) * NODE_SIZE, nodes[index]);
+                    nodes[index] = nodeCount++;
+                }
+                node = nodes[index];
+                shift -= STRIDE;
+            }
+
+            // Expand the prefix into every entry of the node it covers, and every node below them
+            int bitsInNode = prefixLength - (32 - shift - STRIDE);
+            int first = prefix >>> shift & (NODE_SIZE - 1);
+            int count = 1 << (STRIDE - bitsInNode);
+            for (int index = node * NODE_SIZE + first; index < node * NODE_SIZE + first + count; index++) {
+                setRoute(nodes, index, ~route);
+            }
+        }
+        pathStart[routeCount] = pathCount;
+        return new ForwardingTable(Arrays.copyOf(nodes, nodeCount * NODE_SIZE), pathStart,
+                Arrays.copyOf(nextHops, pathCount), metrics, dataPort, ackPort);
+    }
+
+    /**
+     * Points the entry, or every entry of the subtree hanging from it, at the given route
+     */
+    private static void setRoute(int[] nodes, int index, int encodedRoute) {
+        if (nodes[index] > EMPTY_ENTRY) {
+            int child = nodes[index] * NODE_SIZE;
+            for (int childIndex = child; childIndex < child + NODE_SIZE; childIndex++) {
+                setRoute(nodes, childIndex, encodedRoute);
+            }
+        } else {
+            nodes[index] = encodedRoute;
+        }
+    }
+
+    /**
+     * Finds the route with the longest prefix matching the given address
+     *
+     * @param ipAddress the destination address
+     * @return the route to pass to nextHop, metric and the other accessors, or NO_ROUTE if no prefix matches
+     */
+    int lookup(int ipAddress) {
+        if (nodes.length == 0) {
+            return NO_ROUTE;
+        }
+        int node = 0;
+        for (int shift = 32 - STRIDE; shift >= 0; shift -= STRIDE) {
+            int entry = nodes[node * NODE_SIZE + (ipAddress >>> shift & (NODE_SIZE - 1))];
+            if (entry < EMPTY_ENTRY) {
+                return ~entry;
+            }
+            if (entry == EMPTY_ENTRY) {
+                return NO_ROUTE;
+            }
+            node = entry;
+        }
+        return NO_ROUTE;
+    }
+
+    /**
+     * Returns the next hop of the route's first path, ready to be used as a datagram's address
+     *
+     * @param route a route returned by lookup
+     * @return the next hop of the route
+     */
+    InetAddress nextHopAddress(int route) {
+        return nextHopAddresses[pathStart[route]];
+    }
+
+    /**
+     * Returns the socket address a packet following the route's first path is sent to
+     *
+     * @see #forwardingAddress(int, int, boolean)
+     */
+    InetSocketAddress forwardingAddress(int route, boolean isAck) {
+        return forwardingAddress(route, 0, isAck);
+    }
+
+    /**
+     * Returns the socket address a packet following one of the route's paths is sent to: the ACK port of the next hop
+     * if the packet is an ACK and the next hop is its destination (metric 1), the data port otherwise
+     *
+     * @param route    a route returned by lookup
+     * @param selector picks the path, any int: a flow hash or a counter, taken modulo the number of paths
+     * @param isAck    whether the packet is an ACK
+     * @return the socket address of the next hop
+     */
+    InetSocketAddress forwardingAddress(int route, int selector, boolean isAck) {
+        int path = pathStart[route] + Integer.remainderUnsigned(selector, pathStart[route + 1] - pathStart[route]);
+        return isAck && metrics[route] == 1 ? ackSocketAddresses[path] : dataSocketAddresses[path];
+    }
+
+    /**
+     * Returns the number of paths of the route, one plus its equal-cost alternates
+     *
+     * @param route a route returned by lookup
+     * @return the number of paths, at least 1
+     */
+    int pathCount(int route) {
+        return pathStart[route + 1] - pathStart[route];
+    }
+
+    int nextHop(int route) {
+        return nextHops[pathStart[route]];
+    }
+
+    byte metric(int route) {
+        return metrics[route];
+    }
+
+    /**
+     * Returns the number of routes in the table
+     *
+     * @return the number of routes
+     */
+    int size() {
+        return metrics.length;
+    }
+}
@@ -0,0 +1,56 @@
+package rover;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Utility class for handling IPv4 addresses packed into an int, most significant byte first
+ */
+class IPUtils {
+
+    /**
+     * Packs the given IPv4 address into an int
+     *
+     * @param address the IPv4 address
+     * @return the address as an int
+     */
+    static int toInt(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return toInt(bytes[0], bytes[1], bytes[2], bytes[3]);
+    }
+
+    /**
+     * Packs the 4 parts of an IPv4 address into an int
+     *
+     * @return the address as an int
+     */
+    static int toInt(byte first, byte second, byte third, byte fourth) {
+        return (first & 0xFF) << 24 | (second & 0xFF) << 16 | (third & 0xFF) << 8 | (fourth & 0xFF);
+    }
+
+    /**
+     * Unpacks the given int into an InetAddress
+     *
+     * @param address the address as an int
+     * @return the address as an InetAddress
+     */
+    static InetAddress toInetAddress(int address) {
+        try {
+            return InetAddress.getByAddress(new byte[]{
+                    (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address});
+        } catch (UnknownHostException e) {
+            // Only thrown for addresses of an illegal length, which can't happen with 4 bytes
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the dotted decimal representation of the address
+     *
+     * @param address the address as an int
+     * @return the dotted decimal representation of the address
+     */
+    static String toString(int address) {
+        return (address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "." + (address & 0xFF);
+    }
+}
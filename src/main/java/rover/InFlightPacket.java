@@ -0,0 +1,60 @@
+package rover;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class to keep track of a JRTP packet which has been sent but not acknowledged yet.
+ * <p>
+ * Instances are slots of the sender's window and are reused for every packet which falls into them, so that no
+ * memory is allocated per packet. The packet is held in a direct buffer, which a channel sends as is, however often it
+ * is resent. A buffer backed by an array would be copied into a temporary direct buffer on every send.
+ */
+class InFlightPacket {
+    final ByteBuffer buffer;
+    int seqNumber, length;
+    long firstSendTime, lastSendTime;
+    long retransmitDeadline;
+    boolean inFlight, retransmitted;
+    boolean lost, fastRetransmitted; // Reported missing by the SACK bits, and resent for that before its timer ran out
+
+    /**
+     * Constructs an empty slot
+     *
+     * @param capacity the largest packet the slot can hold
+     */
+    InFlightPacket(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Records that the packet held in the slot was just sent for the first time
+     *
+     * @param seqNumber the sequence number of the packet
+     * @param length    the length of the encoded packet
+     * @param sendTime  the time at which it was sent
+     * @param rto       the retransmission timeout to apply
+     */
+    void sent(int seqNumber, int length, long sendTime, long rto) {
+        this.seqNumber = seqNumber;
+        this.length = length;
+        this.firstSendTime = sendTime;
+        this.lastSendTime = sendTime;
+        this.retransmitDeadline = sendTime + rto;
+        this.inFlight = true;
+        this.retransmitted = false;
+        this.lost = false;
+        this.fastRetransmitted = false;
+    }
+
+    /**
+     * Records that the packet was sent again
+     *
+     * @param sendTime the time at which it was resent
+     * @param rto      the retransmission timeout to apply
+     */
+    void resent(long sendTime, long rto) {
+        this.lastSendTime = sendTime;
+        this.retransmitDeadline = sendTime + rto;
+        this.retransmitted = true;
+    }
+}
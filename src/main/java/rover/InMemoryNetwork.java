@@ -0,0 +1,377 @@
+package rover;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A simulated network of rovers in one JVM, running on virtual time so that hundreds of rovers run quickly and every
+ * run with the same seed is the same.
+ * <p>
+ * Every rover is given a Host, its transport. Hosts reach each other over links, each with its latency, bandwidth,
+ * loss and reordering: a datagram crosses a link after the datagrams queued before it are sent at the link's rate
+ * plus the latency, unless it is lost, and a reordered datagram is held back for up to another latency so that the
+ * ones sent after it overtake it. Multicast reaches every host linked to the sender which joined the group on the
+ * port, and unicast only reaches the linked hosts, as the rovers' radios would.
+ * <p>
+ * Nothing runs on a thread of its own: run advances the virtual time from one event to the next on the calling thread,
+ * delivering the datagrams and running the event loop of every rover whose datagrams arrived or whose delay ran out.
+ * The rovers have to run on the event loop, their endpoints can't block. Not thread safe.
+ */
+class InMemoryNetwork {
+    private final Random random;
+    private final int mtu;
+    private final Map<InetAddress, Host> hosts = new LinkedHashMap<>();
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now = 0, eventCount = 0; // The virtual time in nanoseconds, and the events queued so far
+    private long datagramsSent = 0, datagramsDelivered = 0, datagramsLost = 0, datagramsReordered = 0,
+            datagramsUnreachable = 0, bytesSent = 0;
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now / 1_000_000;
+        }
+    };
+
+    /**
+     * The properties of a link, the same both ways
+     */
+    static class Link {
+        final long latencyNanos;
+        final long bytesPerSecond; // 0 for a link which takes no time to send on
+        final double loss, reordering; // The share of datagrams lost, and of those which arrive held back
+
+        /**
+         * @param latencyMillis  the time a datagram takes to cross the link once sent
+         * @param bytesPerSecond the rate datagrams are sent at, one after the other, or 0 for no limit
+         * @param loss           the probability that a datagram is lost
+         * @param reordering     the probability that a datagram is held back for up to another latency
+         */
+        Link(double latencyMillis, long bytesPerSecond, double loss, double reordering) {
+            this.latencyNanos = (long) (latencyMillis * 1_000_000);
+            this.bytesPerSecond = bytesPerSecond;
+            this.loss = loss;
+            this.reordering = reordering;
+        }
+    }
+
+    /**
+     * One way of a link, queueing the datagrams sent over it
+     */
+    private static class Hop {
+        final Link link;
+        long busyUntil = 0; // When the last datagram queued is fully sent
+
+        Hop(Link link) {
+            this.link = link;
+        }
+    }
+
+    /**
+     * A datagram arriving at an endpoint, or the turn of a host's event loop if the datagram is null
+     */
+    private static class Event implements Comparable<Event> {
+        final long time, order; // Events at the same time are handled in the order they were queued in
+        final Host host;
+        final SimulatedEndpoint endpoint;
+        final byte[] datagram;
+        final InetSocketAddress source;
+
+        Event(long time, long order, Host host, SimulatedEndpoint endpoint, byte[] datagram, InetSocketAddress source) {
+            this.time = time;
+            this.order = order;
+            this.host = host;
+            this.endpoint = endpoint;
+            this.datagram = datagram;
+            this.source = source;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            return time != other.time ? Long.compare(time, other.time) : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * A port bound on a host, which may have joined a multicast group
+     */
+    private class SimulatedEndpoint implements Transport.Endpoint {
+        final Host host;
+        final InetAddress group; // null if the endpoint didn't join one
+        final InetSocketAddress address;
+        final ArrayDeque<Event> received = new ArrayDeque<>();
+
+        SimulatedEndpoint(Host host, int port, InetAddress group) {
+            this.host = host;
+            this.group = group;
+            this.address = new InetSocketAddress(host.address, port);
+        }
+
+        @Override
+        public void send(ByteBuffer datagram, InetSocketAddress address) {
+            byte[] copy = new byte[datagram.remaining()];
+            datagram.get(copy);
+            if (!host.running) {
+                return;
+            }
+            if (address.getAddress().isMulticastAddress()) {
+                for (Map.Entry<Host, Hop> neighbor : host.hops.entrySet()) {
+                    SimulatedEndpoint endpoint = neighbor.getKey().endpoints.get(address.getPort());
+                    if (endpoint != null && address.getAddress().equals(endpoint.group)) {
+                        transmit(neighbor.getValue(), endpoint, copy, this.address);
+                    }
+                }
+                return;
+            }
+            Host destination = hosts.get(address.getAddress());
+            Hop hop = destination == null ? null : host.hops.get(destination);
+            SimulatedEndpoint endpoint = hop == null ? null : destination.endpoints.get(address.getPort());
+            if (endpoint == null) {
+                datagramsSent++;
+                bytesSent += copy.length;
+                datagramsUnreachable++;
+                return;
+            }
+            transmit(hop, endpoint, copy, this.address);
+        }
+
+        /**
+         * Not supported, the rovers of a simulated network run on the event loop
+         */
+        @Override
+        public InetSocketAddress receive(ByteBuffer buffer) {
+            throw new UnsupportedOperationException("A simulated network only runs rovers on the event loop");
+        }
+
+        @Override
+        public InetSocketAddress poll(ByteBuffer buffer) {
+            Event event = received.poll();
+            if (event == null) {
+                return null;
+            }
+            buffer.put(event.datagram, 0, Math.min(event.datagram.length, buffer.remaining()));
+            return event.source;
+        }
+    }
+
+    /**
+     * A host of the simulated network, the transport of the rover running on it
+     */
+    class Host implements Transport {
+        final InetAddress address;
+        private final Map<Host, Hop> hops = new LinkedHashMap<>(); // The links to the neighbors, by neighbor
+        private final Map<Integer, SimulatedEndpoint> endpoints = new HashMap<>(); // By port
+        private EventLoop eventLoop;
+        private long nextTurn = -1; // The time the event loop runs again if no datagram arrives, -1 if not running
+        private boolean running = true;
+
+        private Host(InetAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public InetAddress localAddress() {
+            return address;
+        }
+
+        @Override
+        public int mtu() {
+            return mtu;
+        }
+
+        @Override
+        public Clock clock() {
+            return clock;
+        }
+
+        /**
+         * Returns a Random seeded from the network's, so that the rovers get the same numbers on every run
+         */
+        @Override
+        public Random newRandom() {
+            return new Random(random.nextLong());
+        }
+
+        @Override
+        public Endpoint bind(int port) {
+            return bind(port, null);
+        }
+
+        @Override
+        public Endpoint joinGroup(InetAddress group, int port) {
+            return bind(port, group);
+        }
+
+        private Endpoint bind(int port, InetAddress group) {
+            SimulatedEndpoint endpoint = new SimulatedEndpoint(this, port, group);
+            if (endpoints.putIfAbsent(port, endpoint) != null) {
+                throw new IllegalStateException("Port " + port + " of " + address + " is already bound");
+            }
+            return endpoint;
+        }
+
+        /**
+         * Runs the first turn of the loop as soon as the simulation runs
+         */
+        @Override
+        public void startEventLoop(String name, EventLoop eventLoop) {
+            this.eventLoop = eventLoop;
+            scheduleTurn(now);
+        }
+
+        private void scheduleTurn(long time) {
+            nextTurn = time;
+            events.add(new Event(time, eventCount++, this, null, null, null));
+        }
+
+        /**
+         * Runs a turn of the event loop, and schedules the next one after the delay it returns
+         */
+        private void runTurn() {
+            try {
+                long delayMillis = eventLoop.runOnce();
+                scheduleTurn(now + Math.max(1, delayMillis) * 1_000_000);
+            } catch (Exception e) {
+                throw new IllegalStateException("The rover on " + address + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Creates an empty network
+     *
+     * @param seed the seed of every random number of the simulation: losses, reordering and the rovers' own
+     * @param mtu  the MTU of every link, see Transport.mtu
+     */
+    InMemoryNetwork(long seed, int mtu) {
+        this.random = new Random(seed);
+        this.mtu = mtu;
+    }
+
+    /**
+     * Adds a host without any links
+     *
+     * @param address the address of the host, the public address of its rover
+     * @return the host, to be given to its rover as its transport
+     */
+    Host addHost(InetAddress address) {
+        Host host = new Host(address);
+        if (hosts.putIfAbsent(address, host) != null) {
+            throw new IllegalArgumentException(address + " is already on the network");
+        }
+        return host;
+    }
+
+    /**
+     * Links two hosts both ways, replacing the link between them if there was one
+     *
+     * @param first  a host
+     * @param second another host
+     * @param link   the properties of the link
+     */
+    void connect(Host first, Host second, Link link) {
+        first.hops.put(second, new Hop(link));
+        second.hops.put(first, new Hop(link));
+    }
+
+    /**
+     * Cuts the link between two hosts, the datagrams already on their way still arrive
+     *
+     * @param first  a host
+     * @param second another host
+     */
+    void disconnect(Host first, Host second) {
+        first.hops.remove(second);
+        second.hops.remove(first);
+    }
+
+    /**
+     * Stops the rover on the host, as if it were switched off: its links are cut, nothing it sends goes anywhere and
+     * its event loop doesn't run any more
+     *
+     * @param host the host
+     */
+    void crash(Host host) {
+        host.running = false;
+        for (Host neighbor : new ArrayList<>(host.hops.keySet())) {
+            disconnect(host, neighbor);
+        }
+    }
+
+    /**
+     * Queues the datagram on the hop, unless it is lost on the way
+     */
+    private void transmit(Hop hop, SimulatedEndpoint endpoint, byte[] datagram, InetSocketAddress source) {
+        datagramsSent++;
+        bytesSent += datagram.length;
+        Link link = hop.link;
+        if (link.loss > 0 && random.nextDouble() < link.loss) {
+            datagramsLost++;
+            return;
+        }
+        long sendTime = link.bytesPerSecond == 0 ? 0 : datagram.length * 1_000_000_000L / link.bytesPerSecond;
+        hop.busyUntil = Math.max(now, hop.busyUntil) + sendTime;
+        long arrival = hop.busyUntil + link.latencyNanos;
+        if (link.reordering > 0 && random.nextDouble() < link.reordering) {
+            datagramsReordered++;
+            arrival += (long) (random.nextDouble() * link.latencyNanos);
+        }
+        events.add(new Event(arrival, eventCount++, endpoint.host, endpoint, datagram, source));
+    }
+
+    /**
+     * Runs the simulation for the given virtual time, delivering every datagram and running every event loop turn due
+     * until then, in the order of their times
+     *
+     * @param millis the virtual time to run for, in milliseconds
+     */
+    void run(long millis) {
+        long end = now + millis * 1_000_000;
+        while (!events.isEmpty() && events.peek().time <= end) {
+            Event event = events.poll();
+            now = event.time;
+            Host host = event.host;
+            if (!host.running) {
+                continue;
+            }
+            if (event.datagram != null) {
+                datagramsDelivered++;
+                event.endpoint.received.add(event);
+                if (host.eventLoop != null) {
+                    host.runTurn();
+                }
+            } else if (event.time == host.nextTurn) { // Otherwise a turn ran since, and scheduled another one
+                host.runTurn();
+            }
+        }
+        now = end;
+    }
+
+    /**
+     * Returns the virtual time since the network was created
+     *
+     * @return the time in milliseconds
+     */
+    long currentTimeMillis() {
+        return now / 1_000_000;
+    }
+
+    /**
+     * Returns the datagram counters
+     *
+     * @return how many datagrams were sent and their bytes, delivered, lost on a link, reordered, and sent to a host
+     * out of range
+     */
+    String getStats() {
+        return "datagrams sent: " + datagramsSent + " (" + bytesSent + " bytes), delivered: " + datagramsDelivered +
+                ", lost: " + datagramsLost + ", reordered: " + datagramsReordered + ", out of range: " +
+                datagramsUnreachable;
+    }
+}
@@ -0,0 +1,221 @@
+package rover;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A routing table stored in one flat buffer of ints, using open addressing with linear probing.
+ * <p>
+ * Every slot takes 3 ints: the destination, the next hop and the subnet mask and metric packed together with a flag
+ * marking the slot as used. Nothing is boxed and no object is kept per route, so a route costs 12 bytes per slot.
+ * The buffer is either a plain int array or a direct buffer outside of the Java heap, which keeps large tables away
+ * from the garbage collector.
+ */
+class IntRoutingTable implements RoutingTable {
+    private final static int
+            SLOT_INTS = 3,
+            USED_FLAG = 1 << 16,
+            MIN_CAPACITY = 16;
+    private final static double MAX_LOAD_FACTOR = 0.6;
+
+    private final boolean offHeap;
+    private IntBuffer slots;
+    private int capacity, size;
+
+    /**
+     * Constructs an empty routing table on the Java heap
+     */
+    IntRoutingTable() {
+        this(MIN_CAPACITY, false);
+    }
+
+    /**
+     * Constructs an empty routing table
+     *
+     * @param expectedRoutes the number of routes to make room for
+     * @param offHeap        true to keep the routes in a direct buffer outside of the Java heap
+     */
+    IntRoutingTable(int expectedRoutes, boolean offHeap) {
+        this.offHeap = offHeap;
+        int initialCapacity = MIN_CAPACITY;
+        while (initialCapacity * MAX_LOAD_FACTOR < expectedRoutes) {
+            initialCapacity *= 2;
+        }
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Replaces the storage with an empty one of the given capacity
+     *
+     * @param newCapacity the number of slots, a power of 2
+     */
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        slots = offHeap ?
+                ByteBuffer.allocateDirect(newCapacity * SLOT_INTS * 4).order(ByteOrder.nativeOrder()).asIntBuffer() :
+                IntBuffer.wrap(new int[newCapacity * SLOT_INTS]);
+    }
+
+    /**
+     * Returns the slot a destination ideally goes to
+     */
+    private int homeSlot(int ipAddress) {
+        // Spread the bits, addresses in the same subnet only differ in their last bits
+        int hash = ipAddress * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & (capacity - 1);
+    }
+
+    private boolean isUsed(int slot) {
+        return (slots.get(slot * SLOT_INTS + 2) & USED_FLAG) != 0;
+    }
+
+    @Override
+    public int find(int ipAddress) {
+        for (int slot = homeSlot(ipAddress); isUsed(slot); slot = (slot + 1) & (capacity - 1)) {
+            if (slots.get(slot * SLOT_INTS) == ipAddress) {
+                return slot;
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    @Override
+    public int put(int ipAddress, byte subnetMask, int nextHop, byte metric) {
+        int slot = homeSlot(ipAddress);
+        while (isUsed(slot) && slots.get(slot * SLOT_INTS) != ipAddress) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (!isUsed(slot)) {
+            if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+                grow();
+                return put(ipAddress, subnetMask, nextHop, metric);
+            }
+            size++;
+        }
+        slots.put(slot * SLOT_INTS, ipAddress);
+        slots.put(slot * SLOT_INTS + 1, nextHop);
+        slots.put(slot * SLOT_INTS + 2, USED_FLAG | (subnetMask & 0xFF) << 8 | (metric & 0xFF));
+        return slot;
+    }
+
+    @Override
+    public boolean remove(int ipAddress) {
+        int slot = find(ipAddress);
+        if (slot == NO_ROUTE) {
+            return false;
+        }
+        size--;
+
+        // Shift the following routes of the same probe sequence back, so that no lookup stops at the hole
+        int hole = slot;
+        for (int next = (hole + 1) & (capacity - 1); isUsed(next); next = (next + 1) & (capacity - 1)) {
+            int home = homeSlot(slots.get(next * SLOT_INTS));
+            // The route may move to the hole only if the hole lies between its home slot and where it is now
+            if (((next - home) & (capacity - 1)) >= ((next - hole) & (capacity - 1))) {
+                for (int index = 0; index < SLOT_INTS; index++) {
+                    slots.put(hole * SLOT_INTS + index, slots.get(next * SLOT_INTS + index));
+                }
+                hole = next;
+            }
+        }
+        slots.put(hole * SLOT_INTS + 2, 0);
+        return true;
+    }
+
+    /**
+     * Doubles the capacity and puts every route again
+     */
+    private void grow() {
+        IntBuffer oldSlots = slots;
+        int oldCapacity = capacity;
+        allocate(capacity * 2);
+        size = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int flags = oldSlots.get(slot * SLOT_INTS + 2);
+            if ((flags & USED_FLAG) != 0) {
+                put(oldSlots.get(slot * SLOT_INTS), (byte) (flags >>> 8), oldSlots.get(slot * SLOT_INTS + 1),
+                        (byte) flags);
+            }
+        }
+    }
+
+    @Override
+    public int ipAddress(int slot) {
+        return slots.get(slot * SLOT_INTS);
+    }
+
+    @Override
+    public byte subnetMask(int slot) {
+        return (byte) (slots.get(slot * SLOT_INTS + 2) >>> 8);
+    }
+
+    @Override
+    public int nextHop(int slot) {
+        return slots.get(slot * SLOT_INTS + 1);
+    }
+
+    @Override
+    public byte metric(int slot) {
+        return (byte) slots.get(slot * SLOT_INTS + 2);
+    }
+
+    @Override
+    public void setSubnetMask(int slot, byte subnetMask) {
+        int flags = slots.get(slot * SLOT_INTS + 2);
+        slots.put(slot * SLOT_INTS + 2, flags & ~0xFF00 | (subnetMask & 0xFF) << 8);
+    }
+
+    @Override
+    public void setNextHop(int slot, int nextHop) {
+        slots.put(slot * SLOT_INTS + 1, nextHop);
+    }
+
+    @Override
+    public void setMetric(int slot, byte metric) {
+        int flags = slots.get(slot * SLOT_INTS + 2);
+        slots.put(slot * SLOT_INTS + 2, flags & ~0xFF | (metric & 0xFF));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int firstSlot() {
+        return nextSlot(-1);
+    }
+
+    @Override
+    public int nextSlot(int slot) {
+        for (int next = slot + 1; next < capacity; next++) {
+            if (isUsed(next)) {
+                return next;
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return (long) capacity * SLOT_INTS * 4;
+    }
+
+    /**
+     * Returns a string representation of the routing table, one route per line in the same format as
+     * RoutingTableEntry
+     *
+     * @return string representation of the routing table
+     */
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder();
+        for (int slot = firstSlot(); slot != NO_ROUTE; slot = nextSlot(slot)) {
+            res.append(IPUtils.toString(ipAddress(slot))).append("/").append(subnetMask(slot)).append(" \t");
+            res.append(IPUtils.toString(nextHop(slot))).append(" \t");
+            res.append(metric(slot)).append(" \t \n");
+        }
+        return res.toString();
+    }
+}
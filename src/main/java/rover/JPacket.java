@@ -1,3 +1,5 @@
+package rover;
+
 import java.net.InetAddress;
 
 /**
@@ -5,8 +7,13 @@ import java.net.InetAddress;
  */
 public class JPacket {
     InetAddress destAddress, sourceAddress;
+    int sessionId; // Tells apart the transfers between the same two rovers
     int seqNumber, ackNumber;
-    int totalSize;
+    long sackBits; // Packets received above the ACK number, bit i stands for ackNumber + 1 + i. Only carried by an ACK
+    long totalSize; // The size of the file, only carried by the SYN
+    int chunkSize; // The payload length of every packet of the transfer but the last, only carried by the SYN
+    int fecBlockSize; // The data packets covered by each parity packet, only carried by a SYN with the FEC flag
+    long transferId; // The id of the file being sent, only carried by a SYN with the RESUME flag
     byte flags;
     byte[] payload;
 
@@ -14,21 +21,32 @@ public class JPacket {
      * Constructs a JPacket with the given values
      * @param destAddress the destination of the JPacket
      * @param sourceAddress the source of the JPacket
+     * @param sessionId the transfer the JPacket belongs to
      * @param seqNumber the sequence number of the JPacket
      * @param ackNumber the acknowledgement number of the JPacket
      * @param flags the flags of the JPacket
      * @param payload the payload being carried by the JPacket
      * @param totalSize the total size of the file to be transferred
+     * @param chunkSize the payload length of every packet of the transfer but the last
+     * @param sackBits the packets received above the acknowledgement number
+     * @param fecBlockSize the data packets covered by each parity packet
+     * @param transferId the id of the file being sent
      */
-    JPacket(InetAddress destAddress, InetAddress sourceAddress,
-            int seqNumber, int ackNumber, byte flags, byte[] payload, int totalSize) {
+    JPacket(InetAddress destAddress, InetAddress sourceAddress, int sessionId,
+            int seqNumber, int ackNumber, byte flags, byte[] payload, long totalSize, int chunkSize, long sackBits,
+            int fecBlockSize, long transferId) {
         this.flags = flags;
         this.destAddress = destAddress;
         this.sourceAddress = sourceAddress;
+        this.sessionId = sessionId;
         this.seqNumber = seqNumber;
         this.ackNumber = ackNumber;
         this.payload = payload;
         this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.sackBits = sackBits;
+        this.fecBlockSize = fecBlockSize;
+        this.transferId = transferId;
     }
 
     /**
@@ -47,15 +65,24 @@ public class JPacket {
         res.append("Flags : ").append(BitUtils.byteBitRepresentation(flags)).append("\n");
         if(JPacketUtil.isBitSet(flags, JPacketUtil.SYN_INDEX)) {
             res.append("Length of total payload ").append(JPacketUtil.isBitSet(flags, JPacketUtil.SYN_INDEX) ? totalSize : "").append("\n");
+            res.append("Chunk size ").append(chunkSize).append("\n");
+            if (JPacketUtil.isBitSet(flags, JPacketUtil.FEC_INDEX)) {
+                res.append("FEC block size ").append(fecBlockSize).append("\n");
+            }
+            if (JPacketUtil.isBitSet(flags, JPacketUtil.RESUME_INDEX)) {
+                res.append("Transfer id ").append(Long.toHexString(transferId)).append("\n");
+            }
         }
 
 
         res.append("Destination Address : ").append(destAddress).append("\n");
         res.append("Source Address : ").append(sourceAddress).append("\n");
+        res.append("Session : ").append(sessionId).append("\n");
 
         res.append(JPacketUtil.isBitSet(flags, JPacketUtil.NORMAL_INDEX)?"Sequence Number : " + seqNumber + "\n":"");
 
         res.append(JPacketUtil.isBitSet(flags, JPacketUtil.ACK_INDEX)?"Acknowledgment Number : " + ackNumber + "\n" :"");
+        res.append(JPacketUtil.isBitSet(flags, JPacketUtil.ACK_INDEX)?"SACK : " + Long.toHexString(sackBits) + "\n" :"");
 
         if(payload != null) {
             res.append("Payload size ").append(payload.length).append("\n");
@@ -0,0 +1,403 @@
+package rover;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the fields of a JPacket in place, on the buffer the packet is received into or sent from.
+ * <p>
+ * Unlike JPacketUtil, nothing is copied or allocated: one flyweight can be wrapped around every packet in turn.
+ * The layout is the same one JPacketUtil produces:
+ * flags (1) | total size (8, SYN only) | chunk size (2, SYN only) | FEC block size (1, SYN with FEC only) |
+ * transfer id (8, SYN with RESUME only) | destination (3) | source (3) | session id (2) | sequence number (4, NORMAL only) |
+ * acknowledgement number (4, ACK only) | SACK bits (8, ACK only) | payload (everything else, never for an ACK).
+ * A NORMAL packet with the FEC flag is a parity packet: its payload is the XOR of the payloads of the FEC block
+ * starting at its sequence number, see FileTransferSender.
+ * The session id is picked by the sender of a file and tells apart the transfers between the same two rovers, the
+ * ACKs carry the id of the transfer they acknowledge. The chunk size is the payload length of every packet of the
+ * transfer but the last, so packet n carries the bytes from n * chunk size on.
+ * The transfer id names the file being sent rather than the session: a sender which starts over with a new session
+ * sends the same id, and the receiver resumes the transfer from its journal (see TransferJournal).
+ * An ACK is cumulative: its number is the next sequence number the receiver waits for, so every packet below it was
+ * received. Bit i of the SACK bits tells that packet ackNumber + 1 + i was received as well.
+ * Addresses are the last 3 bytes of an address in 10.0.0.0/8 and are handed out as ints (see IPUtils).
+ */
+class JPacketFlyweight {
+    final static int MAX_HEADER_SIZE = 1 + 8 + 2 + 1 + 8 + 3 + 3 + 2 + 4 + 4 + 8;
+    private final static int PRIVATE_NETWORK = 10 << 24;
+
+    private ByteBuffer buffer;
+    private int offset, length;
+
+    /**
+     * Points this flyweight at the packet held in the given buffer
+     *
+     * @param buffer the buffer holding the packet
+     * @param offset the index at which the packet starts
+     * @param length the length of the packet, header included
+     * @return this flyweight
+     */
+    JPacketFlyweight wrap(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Returns the size of the header of a packet with the given flags
+     *
+     * @param flags the flags of the packet
+     * @return the size of the header in bytes
+     */
+    static int headerLength(byte flags) {
+        return 1 + synFieldsLength(flags) + 3 + 3 + 2 +
+                (JPacketUtil.isBitSet(flags, JPacketUtil.NORMAL_INDEX) ? 4 : 0) +
+                (JPacketUtil.isBitSet(flags, JPacketUtil.ACK_INDEX) ? 4 + 8 : 0);
+    }
+
+    /**
+     * Returns the size of the fields only a SYN carries, which come right after the flags
+     *
+     * @param flags the flags of the packet
+     * @return the size of the total size, the chunk size, the FEC block size and the transfer id if there are any
+     */
+    private static int synFieldsLength(byte flags) {
+        if (!JPacketUtil.isBitSet(flags, JPacketUtil.SYN_INDEX)) {
+            return 0;
+        }
+        return 8 + 2 + (JPacketUtil.isFecSyn(flags) ? 1 : 0) + (JPacketUtil.isResumableSyn(flags) ? 8 : 0);
+    }
+
+    /**
+     * Returns the index of the transfer id, right after the other fields only a SYN carries
+     *
+     * @param flags the flags of the packet
+     * @return the index of the transfer id, from the start of the packet
+     */
+    private static int transferIdOffset(byte flags) {
+        return 1 + 8 + 2 + (JPacketUtil.isFecSyn(flags) ? 1 : 0);
+    }
+
+    /**
+     * Writes the header at the start of the wrapped packet. The payload, if any, has to be put at payloadOffset()
+     * by the caller, and the length of the packet becomes the header length + payloadLength.
+     *
+     * @param flags         the flags of the JPacket
+     * @param destAddress   the destination of the JPacket
+     * @param sourceAddress the source of the JPacket
+     * @param sessionId     the transfer the JPacket belongs to, the lower 16 bits are written
+     * @param seqNumber     the sequence number, only written for a NORMAL packet
+     * @param ackNumber     the acknowledgement number, only written for an ACK
+     * @param sackBits      the packets received above the acknowledgement number, only written for an ACK
+     * @param totalSize     the total size of the file to be transferred, only written for a SYN
+     * @param chunkSize     the payload length of every packet but the last, only written for a SYN
+     * @param fecBlockSize  the data packets covered by each parity packet, only written for a SYN with the FEC flag
+     * @param transferId    the id of the file being sent, only written for a SYN with the RESUME flag
+     * @param payloadLength the number of payload bytes following the header
+     * @return this flyweight
+     */
+    JPacketFlyweight writeHeader(byte flags, int destAddress, int sourceAddress, int sessionId, int seqNumber,
+                                 int ackNumber, long sackBits, long totalSize, int chunkSize, int fecBlockSize,
+                                 long transferId, int payloadLength) {
+        int index = offset;
+        buffer.put(index++, flags);
+        if (JPacketUtil.isBitSet(flags, JPacketUtil.SYN_INDEX)) {
+            buffer.putLong(index, totalSize);
+            buffer.putShort(index + 8, (short) chunkSize);
+            if (JPacketUtil.isFecSyn(flags)) {
+                buffer.put(index + 8 + 2, (byte) fecBlockSize);
+            }
+            if (JPacketUtil.isResumableSyn(flags)) {
+                buffer.putLong(offset + transferIdOffset(flags), transferId);
+            }
+            index += synFieldsLength(flags);
+        }
+        index = putAddress(index, destAddress);
+        index = putAddress(index, sourceAddress);
+        buffer.putShort(index, (short) sessionId);
+        index += 2;
+        if (JPacketUtil.isBitSet(flags, JPacketUtil.NORMAL_INDEX)) {
+            buffer.putInt(index, seqNumber);
+            index += 4;
+        }
+        if (JPacketUtil.isBitSet(flags, JPacketUtil.ACK_INDEX)) {
+            buffer.putInt(index, ackNumber);
+            buffer.putLong(index + 4, sackBits);
+            index += 4 + 8;
+        }
+        length = index - offset + payloadLength;
+        return this;
+    }
+
+    byte flags() {
+        return buffer.get(offset);
+    }
+
+    boolean isFlagSet(int flagIndex) {
+        return JPacketUtil.isBitSet(flags(), flagIndex);
+    }
+
+    /**
+     * Reads the destination of the packet at the start of the array, without wrapping it. This is all the forwarding
+     * path needs to know of a packet which isn't for this rover.
+     *
+     * @param packet the array holding the packet
+     * @param length the length of the packet
+     * @return the destination address, or 0 if the packet is too short to hold one
+     */
+    static int destAddress(byte[] packet, int length) {
+        int index = 1 + synFieldsLength(packet[0]);
+        if (length < index + 3) {
+            return 0;
+        }
+        return PRIVATE_NETWORK | (packet[index] & 0xFF) << 16 | (packet[index + 1] & 0xFF) << 8 |
+                (packet[index + 2] & 0xFF);
+    }
+
+    /**
+     * Returns the hash of the packet's flow, read from the packet at the start of the array without wrapping it. Every
+     * packet of a transfer has the same flow, its SYN included, so that the forwarding path can keep a transfer on one
+     * of several equal-cost paths.
+     *
+     * @param packet the array holding the packet
+     * @param length the length of the packet
+     * @return the flow hash, or 0 if the packet is too short to hold its addresses and session id
+     */
+    static int flowHash(byte[] packet, int length) {
+        int index = 1 + synFieldsLength(packet[0]);
+        if (length < index + 3 + 3 + 2) {
+            return 0;
+        }
+        return flowHash(
+                (packet[index] & 0xFF) << 16 | (packet[index + 1] & 0xFF) << 8 | (packet[index + 2] & 0xFF),
+                (packet[index + 3] & 0xFF) << 16 | (packet[index + 4] & 0xFF) << 8 | (packet[index + 5] & 0xFF),
+                (packet[index + 6] & 0xFF) << 8 | (packet[index + 7] & 0xFF));
+    }
+
+    /**
+     * Returns the hash of a flow, the transfer between two rovers with the given session id
+     *
+     * @param destAddress   the destination of the packets, only its last 3 bytes are used
+     * @param sourceAddress the source of the packets, only its last 3 bytes are used
+     * @param sessionId     the session of the transfer
+     * @return the flow hash
+     */
+    static int flowHash(int destAddress, int sourceAddress, int sessionId) {
+        int hash = ((destAddress & 0xFFFFFF) * 31 + (sourceAddress & 0xFFFFFF)) * 31 + (sessionId & 0xFFFF);
+        // Spread the bits (MurmurHash3's finalizer), so that taking the hash modulo a few paths depends on all of them
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Returns the total size of the file, only meaningful for a SYN
+     *
+     * @return the total size of the file
+     */
+    long totalSize() {
+        return isFlagSet(JPacketUtil.SYN_INDEX) ? buffer.getLong(offset + 1) : 0;
+    }
+
+    /**
+     * Returns the payload length of every packet of the transfer but the last, only meaningful for a SYN
+     *
+     * @return the chunk size, from 0 to 65535
+     */
+    int chunkSize() {
+        return isFlagSet(JPacketUtil.SYN_INDEX) ? buffer.getShort(offset + 1 + 8) & 0xFFFF : 0;
+    }
+
+    /**
+     * Returns the data packets covered by each parity packet, only meaningful for a SYN with the FEC flag
+     *
+     * @return the FEC block size, from 1 to 255, or 0 if the transfer sends no parity packets
+     */
+    int fecBlockSize() {
+        return JPacketUtil.isFecSyn(flags()) ? buffer.get(offset + 1 + 8 + 2) & 0xFF : 0;
+    }
+
+    /**
+     * Returns the id of the file being sent, only meaningful for a SYN with the RESUME flag
+     *
+     * @return the transfer id, or 0 if the transfer can't be resumed
+     */
+    long transferId() {
+        byte flags = flags();
+        return JPacketUtil.isResumableSyn(flags) ? buffer.getLong(offset + transferIdOffset(flags)) : 0;
+    }
+
+    int destAddress() {
+        return getAddress(addressOffset());
+    }
+
+    int sourceAddress() {
+        return getAddress(addressOffset() + 3);
+    }
+
+    /**
+     * Returns the id of the transfer the packet belongs to
+     *
+     * @return the session id, from 0 to 65535
+     */
+    int sessionId() {
+        return buffer.getShort(addressOffset() + 6) & 0xFFFF;
+    }
+
+    /**
+     * Returns the sequence number. A SYN doesn't carry one and is always the packet 0.
+     *
+     * @return the sequence number
+     */
+    int seqNumber() {
+        return isFlagSet(JPacketUtil.NORMAL_INDEX) ? buffer.getInt(addressOffset() + 8) : 0;
+    }
+
+    int ackNumber() {
+        if (!isFlagSet(JPacketUtil.ACK_INDEX)) {
+            return 0;
+        }
+        return buffer.getInt(addressOffset() + 8 + (isFlagSet(JPacketUtil.NORMAL_INDEX) ? 4 : 0));
+    }
+
+    /**
+     * Returns the packets received above the acknowledgement number, only meaningful for an ACK
+     *
+     * @return the SACK bits, bit i is set if packet ackNumber() + 1 + i was received
+     */
+    long sackBits() {
+        if (!isFlagSet(JPacketUtil.ACK_INDEX)) {
+            return 0;
+        }
+        return buffer.getLong(addressOffset() + 8 + (isFlagSet(JPacketUtil.NORMAL_INDEX) ? 4 : 0) + 4);
+    }
+
+    /**
+     * Returns the index in the buffer at which the payload starts
+     *
+     * @return the index of the payload in the buffer
+     */
+    int payloadOffset() {
+        return offset + headerLength(flags());
+    }
+
+    int payloadLength() {
+        return isFlagSet(JPacketUtil.ACK_INDEX) ? 0 : offset + length - payloadOffset();
+    }
+
+    /**
+     * Returns the length of the whole packet
+     *
+     * @return the length of the packet, header included
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Returns a view of the payload, sharing the wrapped buffer's content. Note that the view itself is a new object.
+     *
+     * @return a view of the payload
+     */
+    ByteBuffer payload() {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(payloadOffset() + payloadLength()).position(payloadOffset());
+        return view.slice();
+    }
+
+    /**
+     * Returns the index of the destination address
+     *
+     * @return the index of the destination address
+     */
+    private int addressOffset() {
+        return offset + 1 + synFieldsLength(flags());
+    }
+
+    private int getAddress(int index) {
+        return PRIVATE_NETWORK | (buffer.get(index) & 0xFF) << 16 | (buffer.get(index + 1) & 0xFF) << 8 |
+                (buffer.get(index + 2) & 0xFF);
+    }
+
+    private int putAddress(int index, int address) {
+        buffer.put(index++, (byte) (address >>> 16));
+        buffer.put(index++, (byte) (address >>> 8));
+        buffer.put(index++, (byte) address);
+        return index;
+    }
+
+    /**
+     * Returns a string representation of the wrapped packet, in the same format as JPacket
+     *
+     * @return a string representation of the wrapped packet
+     */
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder();
+        res.append("Flags : ").append(BitUtils.byteBitRepresentation(flags())).append("\n");
+        if (isFlagSet(JPacketUtil.SYN_INDEX)) {
+            res.append("Length of total payload ").append(totalSize()).append("\n");
+            res.append("Chunk size ").append(chunkSize()).append("\n");
+            if (isFlagSet(JPacketUtil.FEC_INDEX)) {
+                res.append("FEC block size ").append(fecBlockSize()).append("\n");
+            }
+            if (isFlagSet(JPacketUtil.RESUME_INDEX)) {
+                res.append("Transfer id ").append(Long.toHexString(transferId())).append("\n");
+            }
+        }
+        res.append("Destination Address : /").append(IPUtils.toString(destAddress())).append("\n");
+        res.append("Source Address : /").append(IPUtils.toString(sourceAddress())).append("\n");
+        res.append("Session : ").append(sessionId()).append("\n");
+        res.append(isFlagSet(JPacketUtil.NORMAL_INDEX) ? "Sequence Number : " + seqNumber() + "\n" : "");
+        res.append(isFlagSet(JPacketUtil.ACK_INDEX) ? "Acknowledgment Number : " + ackNumber() + "\n" : "");
+        res.append(isFlagSet(JPacketUtil.ACK_INDEX) ? "SACK : " + Long.toHexString(sackBits()) + "\n" : "");
+        if (!isFlagSet(JPacketUtil.ACK_INDEX)) {
+            res.append("Payload size ").append(payloadLength()).append("\n");
+        }
+        return res.toString();
+    }
+
+    /**
+     * Driver program which checks the flyweight against JPacketUtil (Just for testing, can be ignored)
+     *
+     * @param args optional user args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        InetAddress dest = InetAddress.getByName("10.7.2.65"), src = InetAddress.getByName("10.54.63.23");
+        byte[] payload = new byte[]{1, 2, 3, 4, 5, 32};
+        JPacketFlyweight flyweight = new JPacketFlyweight();
+
+        byte fec = BitUtils.setBitInByte((byte) 0, JPacketUtil.FEC_INDEX);
+        for (byte flags : new byte[]{BitUtils.setBitInByte((byte) 0, JPacketUtil.ACK_INDEX),
+                BitUtils.setBitInByte((byte) 0, JPacketUtil.SYN_INDEX),
+                BitUtils.setBitInByte((byte) 0, JPacketUtil.NORMAL_INDEX),
+                BitUtils.setBitInByte(fec, JPacketUtil.SYN_INDEX),
+                BitUtils.setBitInByte(fec, JPacketUtil.NORMAL_INDEX),
+                BitUtils.setBitInByte(BitUtils.setBitInByte(fec, JPacketUtil.SYN_INDEX), JPacketUtil.RESUME_INDEX)}) {
+            boolean isAck = JPacketUtil.isBitSet(flags, JPacketUtil.ACK_INDEX);
+
+            // Decode what JPacketUtil encoded
+            byte[] arr = JPacketUtil.jPacket2Arr(dest, src, 40001, 152, 19, flags, payload, 5_000_000_000L,
+                    1447, 0x8000_0000_0000_0005L, 8, 0x1234_5678_9ABC_DEF0L);
+            System.out.println(flyweight.wrap(ByteBuffer.wrap(arr), 0, arr.length));
+
+            // Encode in place and check JPacketUtil decodes the same thing, at an offset within a bigger buffer
+            ByteBuffer buffer = ByteBuffer.allocateDirect(80);
+            flyweight.wrap(buffer, 3, 0).writeHeader(flags, IPUtils.toInt(dest), IPUtils.toInt(src), 40001, 152,
+                    19, 0x8000_0000_0000_0005L, 5_000_000_000L, 1447, 8, 0x1234_5678_9ABC_DEF0L,
+                    isAck ? 0 : payload.length);
+            if (!isAck) {
+                buffer.duplicate().position(flyweight.payloadOffset()).put(payload);
+            }
+            byte[] encoded = new byte[flyweight.length()];
+            buffer.duplicate().position(3).get(encoded);
+            System.out.println("Encoded in place " + (java.util.Arrays.equals(encoded, arr) ? "matches" : "DIFFERS") +
+                    " JPacketUtil's encoding, payload " + flyweight.payload());
+            System.out.println("=================================");
+        }
+    }
+}
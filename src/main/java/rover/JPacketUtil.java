@@ -1,3 +1,5 @@
+package rover;
+
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
@@ -10,20 +12,33 @@ public class JPacketUtil {
 
     final static int ACK_INDEX = 0,
             SYN_INDEX = 1,
-            NORMAL_INDEX = 2;
+            NORMAL_INDEX = 2,
+            // On a SYN: the transfer sends parity packets. On a NORMAL packet: this is a parity packet.
+            FEC_INDEX = 3,
+            // On a SYN: the transfer may send compressed payloads. On a NORMAL packet: the payload is deflated.
+            COMPRESSION_INDEX = 4,
+            // On a SYN: the transfer can be resumed, the SYN carries its transfer id.
+            RESUME_INDEX = 5;
 
     /**
      * @param srcAddress the source of the JPacket
+     * @param sessionId  the transfer the JPacket belongs to
      * @param seqNumber  the sequence number of the JPacket
      * @param ackNumber  the acknowledgement number of the JPacket
      * @param flags      the flags of the JPacket
      * @param payload    the payload being carried by the JPacket
      * @param totalSize  the total size of the file to be transferred
+     * @param chunkSize  the payload length of every packet of the transfer but the last
+     * @param sackBits   the packets received above the acknowledgement number
+     * @param fecBlockSize the data packets covered by each parity packet, only carried by a SYN with the FEC flag
+     * @param transferId the id of the file being sent, only carried by a SYN with the RESUME flag
      * @return the byte array packet representation of the JPacket
      */
-    static byte[] jPacket2Arr(InetAddress destAddress, InetAddress srcAddress, int seqNumber, int ackNumber, byte flags,
-                              byte[] payload, int totalSize) {
-        return jPacket2Arr(new JPacket(destAddress, srcAddress, seqNumber, ackNumber, flags, payload, totalSize));
+    static byte[] jPacket2Arr(InetAddress destAddress, InetAddress srcAddress, int sessionId, int seqNumber,
+                              int ackNumber, byte flags, byte[] payload, long totalSize, int chunkSize,
+                              long sackBits, int fecBlockSize, long transferId) {
+        return jPacket2Arr(new JPacket(destAddress, srcAddress, sessionId, seqNumber, ackNumber, flags, payload,
+                totalSize, chunkSize, sackBits, fecBlockSize, transferId));
     }
 
 
@@ -33,9 +48,11 @@ public class JPacketUtil {
      * @return JPacket byte array
      */
     static byte[] jPacket2Arr(JPacket jPacket) {
-        int packetSize = 1 + 3 + 3 + // flags + srcIP + dest IP
-                (isBitSet(jPacket.flags, SYN_INDEX) ? 4 : 0) + // Total payload size in bytes
-                (isBitSet(jPacket.flags, ACK_INDEX) ? 4 : 0) +
+        int packetSize = 1 + 3 + 3 + 2 + // flags + srcIP + dest IP + session id
+                (isBitSet(jPacket.flags, SYN_INDEX) ? 8 + 2 : 0) + // Total payload size and chunk size in bytes
+                (isFecSyn(jPacket.flags) ? 1 : 0) + // FEC block size
+                (isResumableSyn(jPacket.flags) ? 8 : 0) + // Transfer id
+                (isBitSet(jPacket.flags, ACK_INDEX) ? 4 + 8 : 0) + // ACK number and SACK bits
                 // If it's not a SYN or an ACK, it's a normal transfer packet
                 (isBitSet(jPacket.flags, NORMAL_INDEX) ? 4 : 0) +
                 (isBitSet(jPacket.flags, ACK_INDEX) ? 0 : jPacket.payload.length); // No payload from an ACK
@@ -46,10 +63,18 @@ public class JPacketUtil {
         packet[index] = jPacket.flags;
         index += 1;
 
-        // If it's a SYN, add totalSize in the packet
+        // If it's a SYN, add totalSize and chunkSize in the packet
         if (isBitSet(jPacket.flags, SYN_INDEX)) {
-            for (byte b : ByteBuffer.allocate(4).putInt(jPacket.totalSize).array()) {
-                packet[index++] = b;
+            index = putInt(packet, index, (int) (jPacket.totalSize >>> 32));
+            index = putInt(packet, index, (int) jPacket.totalSize);
+            packet[index++] = (byte) (jPacket.chunkSize >>> 8);
+            packet[index++] = (byte) jPacket.chunkSize;
+            if (isFecSyn(jPacket.flags)) {
+                packet[index++] = (byte) jPacket.fecBlockSize;
+            }
+            if (isResumableSyn(jPacket.flags)) {
+                index = putInt(packet, index, (int) (jPacket.transferId >>> 32));
+                index = putInt(packet, index, (int) jPacket.transferId);
             }
         }
 
@@ -66,33 +91,40 @@ public class JPacketUtil {
         packet[index++] = srcAddress[2];
         packet[index++] = srcAddress[3];
 
+        // Put session id
+        packet[index++] = (byte) (jPacket.sessionId >>> 8);
+        packet[index++] = (byte) jPacket.sessionId;
 
         // It's a normal packet, with only a payload
         if (isBitSet(jPacket.flags, NORMAL_INDEX)) {
-            byte[] seqNumber = ByteBuffer.allocate(4).putInt(jPacket.seqNumber).array();
-
-            packet[index++] = seqNumber[0];
-            packet[index++] = seqNumber[1];
-            packet[index++] = seqNumber[2];
-            packet[index++] = seqNumber[3];
+            index = putInt(packet, index, jPacket.seqNumber);
         }
 
         // It's an ACK packet
         if (isBitSet(jPacket.flags, ACK_INDEX)) {
-            byte[] ackNumber = ByteBuffer.allocate(4).putInt(jPacket.ackNumber).array();
-            packet[index++] = ackNumber[0];
-            packet[index++] = ackNumber[1];
-            packet[index++] = ackNumber[2];
-            packet[index++] = ackNumber[3];
+            index = putInt(packet, index, jPacket.ackNumber);
+            index = putInt(packet, index, (int) (jPacket.sackBits >>> 32));
+            putInt(packet, index, (int) jPacket.sackBits);
         } else { // If it's not an ACK, it'll definitely have a payload
-            for (int payLoadIndex = 0; payLoadIndex < jPacket.payload.length; payLoadIndex++) {
-                packet[index++] = jPacket.payload[payLoadIndex];
-            }
+            System.arraycopy(jPacket.payload, 0, packet, index, jPacket.payload.length);
         }
 
         return packet;
     }
 
+    /**
+     * Writes the int in big endian order at the given index of the packet
+     *
+     * @return the index following the int
+     */
+    private static int putInt(byte[] packet, int index, int value) {
+        packet[index++] = (byte) (value >>> 24);
+        packet[index++] = (byte) (value >>> 16);
+        packet[index++] = (byte) (value >>> 8);
+        packet[index++] = (byte) value;
+        return index;
+    }
+
 
     /**
      * Converts the given byte array to a JPacket.
@@ -108,10 +140,17 @@ public class JPacketUtil {
 
         // Add the length field
         if (isBitSet(jPacket.flags, SYN_INDEX)) {
-            byte[] temp = Arrays.copyOfRange(packet, index, index + 4);
-            index += 4;
-            jPacket.totalSize = ByteBuffer.wrap(temp).getInt();
-
+            jPacket.totalSize = ByteBuffer.wrap(packet, index, 8).getLong();
+            index += 8;
+            jPacket.chunkSize = (packet[index] & 0xFF) << 8 | (packet[index + 1] & 0xFF);
+            index += 2;
+            if (isFecSyn(jPacket.flags)) {
+                jPacket.fecBlockSize = packet[index++] & 0xFF;
+            }
+            if (isResumableSyn(jPacket.flags)) {
+                jPacket.transferId = ByteBuffer.wrap(packet, index, 8).getLong();
+                index += 8;
+            }
         }
 
         // Add destination and source address
@@ -130,10 +169,15 @@ public class JPacketUtil {
         jPacket.destAddress = InetAddress.getByAddress(destAddr);
         jPacket.sourceAddress = InetAddress.getByAddress(srcAddr);
 
+        jPacket.sessionId = (packet[index] & 0xFF) << 8 | (packet[index + 1] & 0xFF);
+        index += 2;
+
         if (isBitSet(jPacket.flags, ACK_INDEX)) {
             byte[] ackNumber = Arrays.copyOfRange(packet, index, index + 4);
             index += 4;
             jPacket.ackNumber = ByteBuffer.wrap(ackNumber).getInt();
+            jPacket.sackBits = ByteBuffer.wrap(packet, index, 8).getLong();
+            index += 8;
         }
 
         if (isBitSet(jPacket.flags, NORMAL_INDEX)) {
@@ -160,6 +204,26 @@ public class JPacketUtil {
         return (byteToCheck & (1 << bitIndex)) != 0;
     }
 
+    /**
+     * Returns true for the SYN of a transfer sending parity packets, which carries the FEC block size
+     *
+     * @param flags the flags of the packet
+     * @return true if both the SYN and the FEC flags are set
+     */
+    static boolean isFecSyn(byte flags) {
+        return isBitSet(flags, SYN_INDEX) && isBitSet(flags, FEC_INDEX);
+    }
+
+    /**
+     * Returns true for the SYN of a transfer which can be resumed, which carries the transfer id
+     *
+     * @param flags the flags of the packet
+     * @return true if both the SYN and the RESUME flags are set
+     */
+    static boolean isResumableSyn(byte flags) {
+        return isBitSet(flags, SYN_INDEX) && isBitSet(flags, RESUME_INDEX);
+    }
+
     /**
      * Driver program which tests the class
      * @param args optional user args
@@ -169,7 +233,7 @@ public class JPacketUtil {
 
         // Test 1 : Send an ACK
         JPacket jPacket = new JPacket(InetAddress.getByName("10.7.2.65"), InetAddress.getByName("10.54.63.23"),
-                152, 19, BitUtils.setBitInByte((byte) 0, ACK_INDEX), new byte[0], 0);
+                7, 152, 19, BitUtils.setBitInByte((byte) 0, ACK_INDEX), new byte[0], 0, 0, 0x8000_0000_0000_0005L, 0, 0);
         System.out.println(jPacket);
 
         byte[] arr = jPacket2Arr(jPacket);
@@ -185,26 +249,36 @@ public class JPacketUtil {
 
         // Test 2: SYN packet
         byte[] payload = new byte[]{1, 2, 3, 4, 5, 32};
-        checkFlag(payload, SYN_INDEX);
+        checkFlag(payload, BitUtils.setBitInByte((byte) 0, SYN_INDEX));
 
         System.out.println("=================================");
 
         // Test 3: NORMAL packet
-        checkFlag(payload, NORMAL_INDEX);
+        checkFlag(payload, BitUtils.setBitInByte((byte) 0, NORMAL_INDEX));
+
+        System.out.println("=================================");
+
+        // Test 4: SYN of a transfer sending parity packets
+        checkFlag(payload, BitUtils.setBitInByte(BitUtils.setBitInByte((byte) 0, SYN_INDEX), FEC_INDEX));
+
+        System.out.println("=================================");
 
+        // Test 5: SYN of a transfer which can be resumed
+        checkFlag(payload, BitUtils.setBitInByte(BitUtils.setBitInByte((byte) 0, SYN_INDEX), RESUME_INDEX));
     }
 
     /**
      * Utility which checks if the flag is set. (Just for testing, can be ignored)
      * @param payload the payload of the packet
-     * @param synIndex the index of the flags where SYN should be set
+     * @param flags the flags of the packet
      * @throws UnknownHostException
      */
-    private static void checkFlag(byte[] payload, int synIndex) throws UnknownHostException {
+    private static void checkFlag(byte[] payload, byte flags) throws UnknownHostException {
         JPacket jPacket;
         byte[] arr;
         jPacket = new JPacket(InetAddress.getByName("10.7.2.65"), InetAddress.getByName("10.54.63.23"),
-                152, 19, BitUtils.setBitInByte((byte) 0, synIndex), payload, payload.length);
+                7, 152, 19, flags, payload, payload.length,
+                1447, 0, 8, 0x1234_5678_9ABC_DEF0L);
         System.out.println(jPacket);
 
         arr = jPacket2Arr(jPacket);
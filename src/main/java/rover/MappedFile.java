@@ -0,0 +1,56 @@
+package rover;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file memory mapped in windows of WINDOW_SIZE bytes, since a single mapping can't hold more than 2 GB.
+ * <p>
+ * Window n maps the file from n * WINDOW_SIZE on, and runs past the start of the next window by the overlap, the
+ * largest chunk read or written at once. A chunk of up to the overlap starting in window n is then whole in that
+ * window, so a transfer reads and writes its chunks through a single buffer whatever their place in the file.
+ */
+class MappedFile {
+    final static long WINDOW_SIZE = 1L << 30;
+
+    private final ByteBuffer[] windows;
+
+    /**
+     * Maps the file, which has to be at least size bytes long for a READ_WRITE mapping
+     *
+     * @param channel the channel of the file, which may be closed once mapped
+     * @param mode    READ_ONLY or READ_WRITE
+     * @param size    the size of the file
+     * @param overlap the largest chunk read or written at once
+     * @throws IOException if the file can't be mapped
+     */
+    MappedFile(FileChannel channel, FileChannel.MapMode mode, long size, int overlap) throws IOException {
+        windows = new ByteBuffer[(int) Math.max(1, (size + WINDOW_SIZE - 1) / WINDOW_SIZE)];
+        for (int window = 0; window < windows.length; window++) {
+            long start = window * WINDOW_SIZE;
+            windows[window] = channel.map(mode, start, Math.min(size - start, WINDOW_SIZE + overlap));
+        }
+    }
+
+    /**
+     * Returns the window holding the given position, and the chunk starting there
+     *
+     * @param position the position in the file
+     * @return the window, the chunk is at index(position) in it. Its position and limit are the caller's to set and
+     * to clear afterwards.
+     */
+    ByteBuffer window(long position) {
+        return windows[(int) (position / WINDOW_SIZE)];
+    }
+
+    /**
+     * Returns the index of the given position in its window
+     *
+     * @param position the position in the file
+     * @return the index in window(position)
+     */
+    static int index(long position) {
+        return (int) (position % WINDOW_SIZE);
+    }
+}
@@ -0,0 +1,94 @@
+package rover;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of decoded RIP entries, kept as primitive arrays so that decoding an update allocates nothing
+ * once the buffer has grown to the size of the largest update seen.
+ * <p>
+ * Addresses are IPv4 addresses packed into ints (see IPUtils).
+ */
+class RIPEntryBuffer {
+    private final static int INITIAL_CAPACITY = 64;
+
+    byte command, roverId;
+    byte neighborId; // The rover the entries are meant for, RIPPacketUtil.EVERYONE if they are for every rover
+    int size;
+    int[] ipAddresses = new int[INITIAL_CAPACITY];
+    byte[] subnetMasks = new byte[INITIAL_CAPACITY];
+    int[] nextHops = new int[INITIAL_CAPACITY];
+    byte[] metrics = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Empties the buffer, keeping its capacity
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds an entry at the end of the buffer
+     *
+     * @param ipAddress  the destination IP Address
+     * @param subnetMask the subnet mask for the destination
+     * @param nextHop    the next hop towards the destination
+     * @param metric     the cost of getting to the destination
+     */
+    void add(int ipAddress, byte subnetMask, int nextHop, byte metric) {
+        ensureCapacity(size + 1);
+        ipAddresses[size] = ipAddress;
+        subnetMasks[size] = subnetMask;
+        nextHops[size] = nextHop;
+        metrics[size] = metric;
+        size++;
+    }
+
+    /**
+     * Makes this buffer a copy of the other one, reusing this buffer's arrays when they are large enough
+     *
+     * @param other the buffer to copy
+     */
+    void copyFrom(RIPEntryBuffer other) {
+        ensureCapacity(other.size);
+        command = other.command;
+        roverId = other.roverId;
+        neighborId = other.neighborId;
+        size = other.size;
+        System.arraycopy(other.ipAddresses, 0, ipAddresses, 0, size);
+        System.arraycopy(other.subnetMasks, 0, subnetMasks, 0, size);
+        System.arraycopy(other.nextHops, 0, nextHops, 0, size);
+        System.arraycopy(other.metrics, 0, metrics, 0, size);
+    }
+
+    /**
+     * Grows the arrays so that they can hold at least the given number of entries
+     *
+     * @param capacity the number of entries needed
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity <= ipAddresses.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ipAddresses.length * 2);
+        ipAddresses = Arrays.copyOf(ipAddresses, newCapacity);
+        subnetMasks = Arrays.copyOf(subnetMasks, newCapacity);
+        nextHops = Arrays.copyOf(nextHops, newCapacity);
+        metrics = Arrays.copyOf(metrics, newCapacity);
+    }
+
+    /**
+     * Returns a string representation of the entries, in the same format as RoutingTableEntry
+     *
+     * @return string representation of the entries
+     */
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder("[");
+        for (int index = 0; index < size; index++) {
+            res.append(index == 0 ? "" : ", ");
+            res.append(IPUtils.toString(ipAddresses[index])).append("/").append(subnetMasks[index]).append(" \t");
+            res.append(IPUtils.toString(nextHops[index])).append(" \t").append(metrics[index]).append(" \t");
+        }
+        return res.append("]").toString();
+    }
+}
@@ -0,0 +1,273 @@
+package rover;
+
+import java.net.InetAddress;
+import java.util.*;
+
+/**
+ * A utility for byte encoding and decoding RIP packets.
+ */
+public class RIPPacketUtil {
+    static final byte VERSION = 2; // We will only support version 2
+
+    static final int HEADER_SIZE = 8, ENTRY_SIZE = 16;
+
+    // A packet has to fit in a single 1500 byte Ethernet frame after the IP and UDP headers, larger updates are split
+    static final int MAX_PACKET_SIZE = 1500 - 20 - 8,
+            MAX_ENTRIES = (MAX_PACKET_SIZE - HEADER_SIZE) / ENTRY_SIZE;
+
+    static final byte INFINITY = 16; // The metric of an unreachable destination
+    static final byte EVERYONE = 0; // The neighbor id of a packet meant for every rover which hears it
+
+    /**
+     * Returns the RIP packets for the whole table, split so that every packet holds at most MAX_ENTRIES entries
+     *
+     * @param command Either a request(0) or response(1)
+     * @param entries an array of routing table entries to be filled
+     */
+    static List<byte[]> getRIPPackets(byte command, byte roverId, RoutingTable entries) {
+        RIPUpdate update = new RIPUpdate();
+        update.startFromTable(entries);
+        List<byte[]> ripPackets = new ArrayList<>();
+        do {
+            update.encodeChunk(command, roverId, entries, Collections.emptyMap());
+            ripPackets.add(Arrays.copyOf(update.packets[0], update.packetLengths[0]));
+        } while (update.nextChunk());
+        return ripPackets;
+    }
+
+    /**
+     * Encodes a RIP packet for the routes of the table into a caller supplied buffer, which can be reused for every
+     * update. Nothing is allocated.
+     *
+     * @param command Either a request(0) or response(1)
+     * @param roverId the id of the rover sending the packet
+     * @param table   the routing table to be sent
+     * @param buffer  the buffer to write the packet to, entries which don't fit in it are left out
+     * @return the length of the encoded packet
+     */
+    static int encodeRIPPacket(byte command, byte roverId, RoutingTable table, byte[] buffer) {
+        int packetOffset = encodeHeader(command, roverId, EVERYONE, buffer);
+        for (int slot = table.firstSlot(); slot != RoutingTable.NO_ROUTE && packetOffset + ENTRY_SIZE <= buffer.length;
+             slot = table.nextSlot(slot)) {
+            packetOffset = encodeEntry(buffer, packetOffset, table.ipAddress(slot), table.subnetMask(slot),
+                    table.nextHop(slot), table.metric(slot));
+        }
+        return packetOffset;
+    }
+
+    /**
+     * Encodes a RIP packet for everyone with only the routes to the given destinations, as done for every chunk of a
+     * RIPUpdate. Destinations which are no longer in the table are skipped.
+     *
+     * @param command      Either a request(0) or response(1)
+     * @param roverId      the id of the rover sending the packet
+     * @param table        the routing table holding the routes
+     * @param destinations the destinations whose routes are to be sent
+     * @param from         the index of the first destination to send
+     * @param to           the index after the last destination to send
+     * @param buffer       the buffer to write the packet to, entries which don't fit in it are left out
+     * @return the length of the encoded packet
+     */
+    static int encodeRIPPacket(byte command, byte roverId, RoutingTable table, int[] destinations, int from, int to,
+                               byte[] buffer) {
+        int packetOffset = encodeHeader(command, roverId, EVERYONE, buffer);
+        for (int index = from; index < to && packetOffset + ENTRY_SIZE <= buffer.length; index++) {
+            int slot = table.find(destinations[index]);
+            if (slot != RoutingTable.NO_ROUTE) {
+                packetOffset = encodeEntry(buffer, packetOffset, table.ipAddress(slot), table.subnetMask(slot),
+                        table.nextHop(slot), table.metric(slot));
+            }
+        }
+        return packetOffset;
+    }
+
+    /**
+     * Encodes a RIP packet for a single neighbor with only the routes to the given destinations whose next hop is
+     * that neighbor, all of them poisoned to INFINITY. Sent after the untagged packet for everyone holding the same
+     * routes, so the neighbor gets the poisoned reverse without a whole copy of the chunk of its own.
+     *
+     * @param command      Either a request(0) or response(1)
+     * @param roverId      the id of the rover sending the packet
+     * @param table        the routing table holding the routes
+     * @param destinations the destinations whose routes are to be sent
+     * @param from         the index of the first destination to send
+     * @param to           the index after the last destination to send
+     * @param neighborId   the id of the neighbor the packet is for
+     * @param neighbor     the public address of the neighbor the packet is for
+     * @param buffer       the buffer to write the packet to, entries which don't fit in it are left out
+     * @return the length of the encoded packet, HEADER_SIZE if none of the routes goes through the neighbor
+     */
+    static int encodePoisonedRIPPacket(byte command, byte roverId, RoutingTable table, int[] destinations, int from,
+                                       int to, byte neighborId, int neighbor, byte[] buffer) {
+        int packetOffset = encodeHeader(command, roverId, neighborId, buffer);
+        for (int index = from; index < to && packetOffset + ENTRY_SIZE <= buffer.length; index++) {
+            int slot = table.find(destinations[index]);
+            if (slot != RoutingTable.NO_ROUTE && table.nextHop(slot) == neighbor) {
+                packetOffset = encodeEntry(buffer, packetOffset, table.ipAddress(slot), table.subnetMask(slot),
+                        neighbor, INFINITY);
+            }
+        }
+        return packetOffset;
+    }
+
+    /**
+     * Encodes a RIP packet for the given entries into a caller supplied buffer, without allocating anything
+     *
+     * @param command Either a request(0) or response(1)
+     * @param roverId the id of the rover sending the packet
+     * @param entries the entries to be sent
+     * @param buffer  the buffer to write the packet to, entries which don't fit in it are left out
+     * @return the length of the encoded packet
+     */
+    static int encodeRIPPacket(byte command, byte roverId, RIPEntryBuffer entries, byte[] buffer) {
+        int packetOffset = encodeHeader(command, roverId, EVERYONE, buffer);
+        for (int index = 0; index < entries.size && packetOffset + ENTRY_SIZE <= buffer.length; index++) {
+            packetOffset = encodeEntry(buffer, packetOffset, entries.ipAddresses[index], entries.subnetMasks[index],
+                    entries.nextHops[index], entries.metrics[index]);
+        }
+        return packetOffset;
+    }
+
+    /**
+     * Writes the RIP header at the start of the buffer
+     *
+     * @return the offset at which the first entry goes
+     */
+    private static int encodeHeader(byte command, byte roverId, byte neighborId, byte[] ripPacket) {
+        Arrays.fill(ripPacket, 0, HEADER_SIZE, (byte) 0);
+        ripPacket[0] = command;
+        ripPacket[1] = VERSION;
+        // store the rover id in this byte. It's not used either way.
+        ripPacket[2] = roverId;
+        // the id of the neighbor the entries are meant for, 0 for everyone
+        ripPacket[3] = neighborId;
+        ripPacket[4] = 0; // TODO check
+        ripPacket[5] = 2; // 2 for IP
+        // keep route tag as empty as we won't support anything but RIP
+        return HEADER_SIZE;
+    }
+
+    /**
+     * Writes one entry into the packet
+     *
+     * @return the offset at which the next entry goes
+     */
+    private static int encodeEntry(byte[] ripPacket, int packetOffset, int ipAddress, byte subnetMask, int nextHop,
+                                   byte metric) {
+        packetOffset = putInt(ripPacket, packetOffset, ipAddress);
+        // the first 3 bytes will be 0 since the subnet mask will at max be 32
+        packetOffset = putInt(ripPacket, packetOffset, subnetMask);
+        packetOffset = putInt(ripPacket, packetOffset, nextHop);
+        // the first 3 bytes will be 0 since the metric will at max be 15
+        return putInt(ripPacket, packetOffset, metric);
+    }
+
+    /**
+     * Decode the byte representation of a string into a list of routing table entries
+     *
+     * @param packet       the byte array representing the packet
+     * @param packetLength the length of the payload in the packet
+     * @return a list of routing table entries
+     */
+    public static List<RoutingTableEntry> decodeRIPPacket(byte[] packet, int packetLength) {
+        RIPEntryBuffer entries = new RIPEntryBuffer();
+        decodeRIPPacket(packet, packetLength, entries);
+
+        List<RoutingTableEntry> list = new ArrayList<>();
+        for (int index = 0; index < entries.size; index++) {
+            list.add(new RoutingTableEntry(IPUtils.toInetAddress(entries.ipAddresses[index]),
+                    entries.subnetMasks[index], IPUtils.toInetAddress(entries.nextHops[index]),
+                    entries.metrics[index]));
+        }
+        return list;
+    }
+
+    /**
+     * Decodes the packet straight into the given reusable buffer. No strings or InetAddresses are created.
+     *
+     * @param packet       the byte array representing the packet
+     * @param packetLength the length of the payload in the packet
+     * @param entries      the buffer to fill, cleared first
+     */
+    static void decodeRIPPacket(byte[] packet, int packetLength, RIPEntryBuffer entries) {
+        int totalEntries = (packetLength - HEADER_SIZE) / ENTRY_SIZE;
+        entries.clear();
+        entries.ensureCapacity(totalEntries);
+        entries.command = packet[0];
+        entries.roverId = packet[2];
+        entries.neighborId = packet[3];
+
+        int offset = HEADER_SIZE;
+        for (int count = 0; count < totalEntries; count++) {
+            entries.add(getInt(packet, offset), (byte) getInt(packet, offset + 4),
+                    getInt(packet, offset + 8), (byte) getInt(packet, offset + 12));
+            offset += ENTRY_SIZE;
+        }
+    }
+
+    /**
+     * Returns the big endian int starting at the given offset
+     *
+     * @param packet the packet array
+     * @param offset the position to start reading from
+     * @return the int made of the 4 bytes at the offset
+     */
+    private static int getInt(byte[] packet, int offset) {
+        return IPUtils.toInt(packet[offset], packet[offset + 1], packet[offset + 2], packet[offset + 3]);
+    }
+
+    /**
+     * Puts the big endian int at the given offset
+     *
+     * @param ripPacket    the rip packet
+     * @param packetOffset the offset from which to start filling
+     * @param value        the value to put
+     * @return the offset after the int
+     */
+    private static int putInt(byte[] ripPacket, int packetOffset, int value) {
+        ripPacket[packetOffset++] = (byte) (value >>> 24);
+        ripPacket[packetOffset++] = (byte) (value >>> 16);
+        ripPacket[packetOffset++] = (byte) (value >>> 8);
+        ripPacket[packetOffset++] = (byte) value;
+        return packetOffset;
+    }
+
+    /**
+     * Prints the hex dump of the packet
+     * @param ripByteRepresentation the byte representation of the rip packet
+     */
+    private static void printPacket(byte[] ripByteRepresentation) {
+        for (int i = 0; i < ripByteRepresentation.length; i += 1) {
+            System.out.printf("%02x" + ((i + 1) % 4 == 0 ? "\n" : "  -- "), ripByteRepresentation[i]);
+        }
+    }
+
+    /**
+     * Main function which tests the utility
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        // Test for RIP packet util
+        RoutingTable routingTableEntries = new IntRoutingTable();
+        routingTableEntries.put(IPUtils.toInt(InetAddress.getByName("255.255.255.255")),
+                (byte) 32, IPUtils.toInt(InetAddress.getByName("255.0.255.0")), (byte) 15);
+        routingTableEntries.put(IPUtils.toInt(InetAddress.getByName("123.221.1.55")),
+                (byte) 11, IPUtils.toInt(InetAddress.getByName("1.0.1.1")), (byte) 29);
+        byte[] ripByteRepresentation = getRIPPackets((byte) 1, (byte) 12, routingTableEntries).get(0);
+
+        printPacket(ripByteRepresentation);
+
+        System.out.println(decodeRIPPacket(ripByteRepresentation, ripByteRepresentation.length));
+
+        // Decode into a reusable buffer and encode it again into a caller supplied one
+        RIPEntryBuffer entries = new RIPEntryBuffer();
+        decodeRIPPacket(ripByteRepresentation, ripByteRepresentation.length, entries);
+        System.out.println(entries);
+        byte[] reencoded = new byte[ripByteRepresentation.length];
+        int length = encodeRIPPacket((byte) 1, (byte) 12, entries, reencoded);
+        System.out.println("Re-encoded packet is " +
+                (Arrays.equals(ripByteRepresentation, 0, length, reencoded, 0, length) ? "the same" : "DIFFERENT"));
+    }
+
+}
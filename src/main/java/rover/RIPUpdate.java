@@ -0,0 +1,135 @@
+package rover;
+
+import java.net.InetAddress;
+import java.util.*;
+
+/**
+ * A RIP update being sent, regular or triggered, split into chunks of at most RIPPacketUtil.MAX_ENTRIES routes so
+ * that every packet fits in a single datagram.
+ * <p>
+ * The destinations are taken when the update starts, but every chunk is encoded from the current routes right before
+ * it is sent, so a chunk sent later never carries outdated routes. Receivers merge every packet into their table on its
+ * own, so nothing has to be reassembled. The object and its buffers are reused for every update.
+ */
+class RIPUpdate {
+    private int[] destinations = new int[RIPPacketUtil.MAX_ENTRIES];
+    private int destinationCount, chunkStart;
+
+    // The packets of the current chunk, the one for everyone first
+    byte[][] packets = new byte[0][];
+    int[] packetLengths = new int[0];
+
+    /**
+     * Starts an update with every route of the table.
+     * Has to be called while holding the table's lock.
+     *
+     * @param table the routing table
+     */
+    void startFromTable(RoutingTable table) {
+        ensureCapacity(table.size());
+        destinationCount = 0;
+        for (int slot = table.firstSlot(); slot != RoutingTable.NO_ROUTE; slot = table.nextSlot(slot)) {
+            destinations[destinationCount++] = table.ipAddress(slot);
+        }
+        chunkStart = 0;
+    }
+
+    /**
+     * Starts an update with the routes which changed
+     *
+     * @param changedRoutes the destinations whose route changed
+     */
+    void startFromChanged(ChangedRoutes changedRoutes) {
+        ensureCapacity(changedRoutes.size());
+        destinationCount = changedRoutes.size();
+        for (int position = 0; position < destinationCount; position++) {
+            destinations[position] = changedRoutes.get(position);
+        }
+        chunkStart = 0;
+    }
+
+    /**
+     * Returns the number of chunks in the update. Even an empty update has one, since its header still tells the
+     * neighbors that the rover is alive.
+     *
+     * @return the number of chunks
+     */
+    int chunks() {
+        return Math.max(1, (destinationCount + RIPPacketUtil.MAX_ENTRIES - 1) / RIPPacketUtil.MAX_ENTRIES);
+    }
+
+    /**
+     * Moves on to the next chunk
+     *
+     * @return false if the update was already at its last chunk
+     */
+    boolean nextChunk() {
+        if (chunkStart + RIPPacketUtil.MAX_ENTRIES >= destinationCount) {
+            return false;
+        }
+        chunkStart += RIPPacketUtil.MAX_ENTRIES;
+        return true;
+    }
+
+    /**
+     * Encodes the routes of the current chunk whose next hop is the given neighbor into a packet for that neighbor
+     * alone, poisoned to INFINITY
+     *
+     * @param command    Either a request(0) or response(1)
+     * @param roverId    the id of the rover sending the packet
+     * @param table      the routing table holding the routes
+     * @param neighborId the id of the neighbor the packet is for
+     * @param neighbor   the public address of the neighbor the packet is for
+     * @param buffer     the buffer to write the packet to, at least RIPPacketUtil.MAX_PACKET_SIZE bytes long
+     * @return the length of the encoded packet, RIPPacketUtil.HEADER_SIZE if no route of the chunk goes through the
+     * neighbor
+     */
+    int encodePoisonedChunk(byte command, byte roverId, RoutingTable table, byte neighborId, int neighbor,
+                            byte[] buffer) {
+        return RIPPacketUtil.encodePoisonedRIPPacket(command, roverId, table, destinations, chunkStart,
+                Math.min(destinationCount, chunkStart + RIPPacketUtil.MAX_ENTRIES), neighborId, neighbor, buffer);
+    }
+
+    /**
+     * Encodes the current chunk into a packet for everyone with every route of the chunk, followed by a packet for
+     * every neighbor which is the next hop of some of them, holding just those routes poisoned. A chunk goes out about
+     * twice at most however many neighbors there are, rather than once per neighbor. Without neighbors, there is just
+     * the packet for everyone.
+     * Has to be called while holding the table's lock.
+     *
+     * @param command   Either a request(0) or response(1)
+     * @param roverId   the id of the rover sending the packets
+     * @param table     the routing table holding the routes
+     * @param neighbors the ids of the neighbors by their public address
+     * @return the number of packets, found at the start of packets and packetLengths
+     */
+    int encodeChunk(byte command, byte roverId, RoutingTable table, Map<InetAddress, Byte> neighbors) {
+        int maxPackets = 1 + neighbors.size();
+        if (packets.length < maxPackets) {
+            int oldLength = packets.length;
+            packets = Arrays.copyOf(packets, maxPackets);
+            packetLengths = Arrays.copyOf(packetLengths, maxPackets);
+            for (int packet = oldLength; packet < maxPackets; packet++) {
+                packets[packet] = new byte[RIPPacketUtil.MAX_PACKET_SIZE];
+            }
+        }
+
+        packetLengths[0] = RIPPacketUtil.encodeRIPPacket(command, roverId, table, destinations, chunkStart,
+                Math.min(destinationCount, chunkStart + RIPPacketUtil.MAX_ENTRIES), packets[0]);
+        int packetCount = 1;
+        for (Map.Entry<InetAddress, Byte> neighbor : neighbors.entrySet()) {
+            packetLengths[packetCount] = encodePoisonedChunk(command, roverId, table, neighbor.getValue(),
+                    IPUtils.toInt(neighbor.getKey()), packets[packetCount]);
+            if (packetLengths[packetCount] > RIPPacketUtil.HEADER_SIZE) {
+                packetCount++;
+            }
+        }
+        return packetCount;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (destinations.length < capacity) {
+            destinations = new int[Math.max(capacity, destinations.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package rover;
+
+/**
+ * Keeps a smoothed round trip time estimate for a destination and derives the retransmission timeout from it.
+ * <p>
+ * Follows RFC 6298: SRTT and RTTVAR are updated with gains of 1/8 and 1/4, RTO = SRTT + 4 * RTTVAR and the RTO is
+ * doubled every time a retransmission timer runs out. Samples should only be taken from packets which were never
+ * retransmitted (Karn's algorithm), since an ACK for a resent packet can't be matched to a single transmission.
+ */
+class RTTEstimator {
+    final static long MIN_RTO = 50; // Receivers hold their ACKs back for less than this
+    private final static long
+            INITIAL_RTO = 1000,
+            MAX_RTO = 60 * 1000;
+    private final static double
+            ALPHA = 1.0 / 8,
+            BETA = 1.0 / 4;
+
+    private double smoothedRtt, rttVariance;
+    private boolean hasSample = false;
+    private long rto = INITIAL_RTO;
+
+    /**
+     * Feeds a new round trip time measurement to the estimator
+     *
+     * @param rttMillis the time between sending a packet and receiving its ACK, in milliseconds
+     */
+    synchronized void addSample(long rttMillis) {
+        if (!hasSample) {
+            smoothedRtt = rttMillis;
+            rttVariance = rttMillis / 2.0;
+            hasSample = true;
+        } else {
+            rttVariance = (1 - BETA) * rttVariance + BETA * Math.abs(smoothedRtt - rttMillis);
+            smoothedRtt = (1 - ALPHA) * smoothedRtt + ALPHA * rttMillis;
+        }
+        rto = clamp((long) Math.ceil(smoothedRtt + 4 * rttVariance));
+    }
+
+    /**
+     * Doubles the retransmission timeout. Should be called when a retransmission timer runs out.
+     */
+    synchronized void backoff() {
+        rto = clamp(rto * 2);
+    }
+
+    /**
+     * Returns the current retransmission timeout
+     *
+     * @return the current retransmission timeout in milliseconds
+     */
+    synchronized long getRto() {
+        return rto;
+    }
+
+    /**
+     * Returns the smoothed round trip time, or -1 if no sample was taken yet
+     *
+     * @return the smoothed round trip time in milliseconds
+     */
+    synchronized double getSmoothedRtt() {
+        return hasSample ? smoothedRtt : -1;
+    }
+
+    /**
+     * Keeps the RTO within sane bounds
+     *
+     * @param value the computed RTO
+     * @return the RTO clamped to [MIN_RTO, MAX_RTO]
+     */
+    private static long clamp(long value) {
+        return Math.max(MIN_RTO, Math.min(MAX_RTO, value));
+    }
+
+    /**
+     * Returns a string representation of the estimator
+     *
+     * @return string representation of the estimator
+     */
+    @Override
+    public synchronized String toString() {
+        return "SRTT " + (hasSample ? String.format("%.1f", smoothedRtt) + "ms" : "-") +
+                " RTTVAR " + (hasSample ? String.format("%.1f", rttVariance) + "ms" : "-") + " RTO " + rto + "ms";
+    }
+}
@@ -1,11 +1,12 @@
+package rover;
+
 import java.io.IOException;
 import java.net.InetAddress;
-import java.util.TimerTask;
 
 /**
- * A timer task for when a Rover goes down
+ * A timer task for when a Rover goes down, run by the rover's TimingWheel
  */
-public class RouterDeathTimerTask extends TimerTask {
+public class RouterDeathTimerTask implements Runnable {
     private InetAddress routerPrivateAddress, routerPublicAddress;
     private Rover rover;
 
@@ -0,0 +1,82 @@
+package rover;
+
+/**
+ * A routing table keyed on IPv4 addresses packed into ints (see IPUtils).
+ * <p>
+ * Routes are reached through slots: find or put a destination to get its slot, then read or change the route
+ * through it. A slot is only valid until the next put or remove. Implementations are not thread safe, callers
+ * have to synchronize on the table for compound operations.
+ */
+interface RoutingTable {
+    int NO_ROUTE = -1;
+
+    /**
+     * Returns the slot of the route to the given destination
+     *
+     * @param ipAddress the destination
+     * @return the slot of the route, or NO_ROUTE if there is none
+     */
+    int find(int ipAddress);
+
+    /**
+     * Adds a route, or replaces the existing route to the same destination
+     *
+     * @param ipAddress  the destination
+     * @param subnetMask the subnet mask of the destination
+     * @param nextHop    the next hop towards the destination
+     * @param metric     the cost of getting to the destination
+     * @return the slot of the route
+     */
+    int put(int ipAddress, byte subnetMask, int nextHop, byte metric);
+
+    /**
+     * Removes the route to the given destination
+     *
+     * @param ipAddress the destination
+     * @return true if there was a route to remove
+     */
+    boolean remove(int ipAddress);
+
+    int ipAddress(int slot);
+
+    byte subnetMask(int slot);
+
+    int nextHop(int slot);
+
+    byte metric(int slot);
+
+    void setSubnetMask(int slot, byte subnetMask);
+
+    void setNextHop(int slot, int nextHop);
+
+    void setMetric(int slot, byte metric);
+
+    /**
+     * Returns the number of routes in the table
+     *
+     * @return the number of routes
+     */
+    int size();
+
+    /**
+     * Returns the first used slot, to iterate over the routes with nextSlot
+     *
+     * @return the first used slot, or NO_ROUTE if the table is empty
+     */
+    int firstSlot();
+
+    /**
+     * Returns the used slot following the given one
+     *
+     * @param slot the current slot
+     * @return the next used slot, or NO_ROUTE if there are no more routes
+     */
+    int nextSlot(int slot);
+
+    /**
+     * Returns the number of bytes the table's storage takes
+     *
+     * @return the size of the storage in bytes
+     */
+    long memoryUsage();
+}
@@ -1,3 +1,5 @@
+package rover;
+
 import java.net.InetAddress;
 
 /**
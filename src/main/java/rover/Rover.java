@@ -0,0 +1,1119 @@
+package rover;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A Rover class which runs the RIPv2 protocol and updates it's tables accordingly.
+ *
+ * @author Aneesh Joshi
+ */
+public class Rover {
+    private byte id;
+    private final Transport transport; // Every datagram goes through it, see Transport
+    private final Clock clock;
+    private Transport.Endpoint ripEndpoint, dataEndpoint, ackEndpoint;
+    private InetAddress group;
+    private InetSocketAddress groupAddress;
+    private RoutingTable routingTable; // Every access has to be synchronized on the table
+    private volatile ForwardingTable forwardingTable = ForwardingTable.EMPTY; // Compiled from routingTable
+
+    // The other neighbors reaching a destination at the cost of its route, up to maxPaths - 1 of them, compiled into
+    // the forwarding table as further paths of the route. Guarded by the routing table's lock.
+    private EqualCostNextHops equalCostNextHops;
+    private int maxPaths;
+
+    // How packets are spread over the paths of a route: every flow (a transfer between two rovers) keeps to one path
+    // chosen by its flow hash, or its packets take the paths in turn. The counter is only used by the thread
+    // forwarding the data packets.
+    private boolean stripePackets;
+    private int packetsStriped = 0;
+
+    // Destinations whose route changed since the last update was sent, and a counter bumped on every change.
+    // Both are guarded by the routing table's lock.
+    private ChangedRoutes changedRoutes = new ChangedRoutes();
+    private long routeVersion = 0;
+
+    // Triggered updates are held back for a random hold-down so that the changes of every trigger in the meantime go
+    // out in a single update, carrying only the changed routes. Guarded by the routing table's lock.
+    private TimingWheel.Timeout triggeredUpdateTimeout;
+    private final Random random;
+    private boolean triggeredUpdatePending = false;
+    private long triggers = 0, triggersMerged = 0, triggeredUpdatesSent = 0, triggeredUpdatesSuppressed = 0;
+    private Map<InetAddress, RIPEntryBuffer> neighborRoutingTableEntriesCache;
+    private Map<InetAddress, TimingWheel.Timeout> neighborTimers; // Only used by the multicast listener's thread
+
+    // Runs every timer of the rover: RIP updates, neighbor deaths and route garbage collection. The timeouts of the
+    // unreachable routes are kept by destination and guarded by the routing table's lock.
+    private TimingWheel timingWheel;
+    private TimingWheel ackTimingWheel; // Runs the delayed ACK timeouts, finer grained than the routing timers
+    private int ackEvery, ackDelay; // Settings of the delayed ACKs, see FileTransferReceiver
+    private Map<Integer, TimingWheel.Timeout> routeGarbageCollectionTimeouts = new HashMap<>();
+    private InetAddress myPublicAddress, myPrivateAddress;
+    private int myPublicAddressInt, myPrivateAddressInt;
+    private int multicastPort;
+    private int windowSize;
+    private int payloadSize; // The chunks in which the data will be sent, see payloadSizeFor
+    private int fecBlockSize; // The packets covered by each parity packet of the outgoing transfers, 0 for no FEC
+    private int compressionLevel; // The Deflater level of the outgoing transfers, Deflater.NO_COMPRESSION for none
+    private String congestionControllerName;
+
+    // The files to send and the rover each one goes to. Every transfer is a session with an id of its own, starting
+    // from a random one so that the ids of a restarted rover don't run into those of its previous transfers.
+    private List<String> filesToSend;
+    private List<InetAddress> destAddresses;
+    private final AtomicInteger nextSessionId;
+
+    // Without the event loop, every outgoing transfer runs on a thread of its own, a virtual one when available, and
+    // the thread listening on the ACK endpoint hands the ACKs to their session.
+    private ExecutorService sessionExecutor;
+    private Map<Integer, SendSession> sendSessions = new ConcurrentHashMap<>();
+
+    // With the event loop, the transport runs a single loop which serves every endpoint, the timing wheels and the
+    // file senders. The buffers are only used by the loop.
+    private boolean eventLoop;
+    private ByteBuffer loopRipBuffer, loopDataBuffer, loopAckBuffer;
+    private JPacketFlyweight loopJPacket;
+    private RIPEntryBuffer loopEntries;
+    private Map<Integer, FileTransferSender> fileSenders = new HashMap<>(); // Only used by the event loop's thread
+    private List<Integer> pendingTransfers = new ArrayList<>(); // Indexes of the transfers waiting for their route
+    private TimingWheel.Timeout fileTransferStartTimeout;
+
+    // Incoming transfers by source and session id, see sessionKey, and the session writing to each output file. Only
+    // fed by the thread receiving data packets, but finished and idle sessions are removed by the timing wheel.
+    private Map<Long, FileTransferReceiver> receiveSessions = new ConcurrentHashMap<>();
+    private Map<String, Long> receiveSessionFiles = new ConcurrentHashMap<>();
+    private TimingWheel.Timeout idleReceiveSessionsTimeout;
+
+    // Reused for every ACK sent by the file receivers
+    private ByteBuffer ackByteBuffer;
+    private JPacketFlyweight ackFlyweight;
+
+    // Ids of the neighbors which are alive by their public address, each one gets its own update. Guarded by the
+    // routing table's lock.
+    private Map<InetAddress, Byte> neighbors = new LinkedHashMap<>();
+
+    // Reused for every RIP update sent. Both are only used by the timing wheel's tasks, but a triggered update may go
+    // out while the chunks of a regular one are still being paced, so each has its own.
+    private RIPUpdate regularUpdate = new RIPUpdate(), triggeredUpdate = new RIPUpdate();
+    private TimingWheel.Timeout regularUpdateTimeout, regularUpdateChunkTimeout;
+    private int regularUpdateChunksPerBurst;
+    private long regularUpdateBurstGap;
+
+
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            RIP_LISTEN_WINDOW = RIPPacketUtil.MAX_PACKET_SIZE,
+            ROUTE_UPDATE_TIME = 5,
+            ROUTE_DELAY_TIME = 1,
+            TRIGGERED_UPDATE_MIN_DELAY = 500, // Hold-down before sending a triggered update, in milliseconds
+            TRIGGERED_UPDATE_MAX_DELAY = 1500,
+            ROVER_OFFLINE_TIME_LIMIT = 10, // Time to wait before considering a rover to be dead
+            ROVER_OFFLINE_TIMER_START_DELAY = 5,
+            ROUTE_GARBAGE_COLLECTION_TIME = 120, // Time an unreachable route is advertised before it is removed
+            TIMING_WHEEL_TICK = 100, // in milliseconds
+            TIMING_WHEEL_SIZE = 512,
+            ACK_TIMING_WHEEL_TICK = 5, // in milliseconds
+            ACK_TIMING_WHEEL_SIZE = 64,
+            MAX_DATAGRAM_SIZE = 65535 - 20 - 8, // Receive buffers fit any packet, whatever chunk size its sender picked
+            IP_HEADER_SIZE = 20,
+            UDP_HEADER_SIZE = 8,
+            DOES_NOT_MATTER = 0,
+            WAIT_TIME_BEFORE_TRANSFER = 3, // Time to wait before transferring the file
+            INFINITY = 16,
+            UDP_PORT = 6161,
+            UDP_ACK_PORT = 5454,
+            WAIT_TIME_TILL_ROUTE_APPEARS = 5, // Time to wait before checking if the route to the destination rover is up
+            RECEIVE_SESSION_LINGER_TIME = 60, // Time a finished incoming transfer is kept to acknowledge late duplicates
+            // An incoming transfer without a packet for 1 to 2 times this is dropped. Its sender waits up to
+            // RTTEstimator.MAX_RTO between two packets, and starts over from a SYN well before this.
+            RECEIVE_SESSION_IDLE_TIME = 300;
+    private final static byte RIP_REQUEST = 1,
+            RIP_UPDATE = 2,
+            SUBNET_MASK = 24;
+    private final static String OUTPUT_FILENAME = "OUTPUT_FILE";
+    private Map<InetAddress, InetAddress> privateToPublicAddresCache;
+    private Map<InetAddress, RTTEstimator> rttEstimators;
+
+
+    /**
+     * Constructs a rover with the given id with an IP ending in that id. Nothing is bound or started until start() is
+     * called, so the benchmarks can drive a rover's routing without a network.
+     *
+     * @param transport the network the rover is on, real or simulated
+     * @param id        the id of the rover, 1 to 255 read as unsigned: 0 tags the RIP updates meant for everyone
+     */
+    Rover(Transport transport, byte id, int multicastPort, InetAddress multicastIP, List<String> filesToSend,
+                  List<InetAddress> destAddresses, int windowSize, String congestionControllerName, boolean eventLoop,
+                  int ackEvery, int ackDelay, int fecBlockSize, int compressionLevel, int maxPaths,
+                  boolean stripePackets) throws IOException {
+        if (id == RIPPacketUtil.EVERYONE) {
+            throw new IllegalArgumentException("Rover id " + id + " tags the RIP updates meant for every rover");
+        }
+        this.transport = transport;
+        this.clock = transport.clock();
+        this.random = transport.newRandom();
+        this.nextSessionId = new AtomicInteger(random.nextInt(1 << 16));
+        this.id = id;
+        this.windowSize = windowSize;
+        this.congestionControllerName = congestionControllerName;
+        this.multicastPort = multicastPort;
+        this.filesToSend = filesToSend;
+        this.destAddresses = destAddresses;
+        this.eventLoop = eventLoop;
+        this.ackEvery = ackEvery;
+        this.ackDelay = ackDelay;
+        this.fecBlockSize = fecBlockSize;
+        this.compressionLevel = compressionLevel;
+        this.maxPaths = maxPaths;
+        this.stripePackets = stripePackets;
+        ackByteBuffer = ByteBuffer.allocate(JPacketFlyweight.MAX_HEADER_SIZE);
+        ackFlyweight = new JPacketFlyweight().wrap(ackByteBuffer, 0, 0);
+
+        routingTable = new IntRoutingTable();
+        equalCostNextHops = new EqualCostNextHops(maxPaths);
+        neighborRoutingTableEntriesCache = new HashMap<>();
+        neighborTimers = new HashMap<>();
+        privateToPublicAddresCache = new HashMap<>();
+        rttEstimators = new ConcurrentHashMap<>();
+
+        myPublicAddress = transport.localAddress();
+        myPrivateAddress = idToPrivateIp(id);
+        myPublicAddressInt = IPUtils.toInt(myPublicAddress);
+        myPrivateAddressInt = IPUtils.toInt(myPrivateAddress);
+        payloadSize = payloadSizeFor(transport.mtu());
+
+        LOGGER.info("Rover: " + (id & 0xFF) + " has a public IP address of " + myPublicAddress + " and a private address of " +
+                myPrivateAddress + (filesToSend.isEmpty() ? "" : " and will be sending the files " + filesToSend + " to " + destAddresses) +
+                (eventLoop ? ", running on a single event loop" : "") + ", sending chunks of " + payloadSize + " bytes" +
+                (maxPaths > 1 ? " over up to " + maxPaths + " equal-cost paths, " +
+                        (stripePackets ? "striping the packets" : "one per flow") : ""));
+        group = multicastIP;
+        groupAddress = new InetSocketAddress(group, multicastPort);
+
+        // The event loop drives the wheel itself
+        timingWheel = eventLoop ? new TimingWheel(TIMING_WHEEL_TICK, TIMING_WHEEL_SIZE, clock) :
+                new TimingWheel("Rover Timing Wheel", TIMING_WHEEL_TICK, TIMING_WHEEL_SIZE);
+        ackTimingWheel = eventLoop ? new TimingWheel(ACK_TIMING_WHEEL_TICK, ACK_TIMING_WHEEL_SIZE, clock) :
+                new TimingWheel("Rover ACK Timing Wheel", ACK_TIMING_WHEEL_TICK, ACK_TIMING_WHEEL_SIZE);
+
+        // Send my routing tables every 5 seconds
+        regularUpdateTimeout = timingWheel.newTimeout(this::sendRIPUpdate);
+        regularUpdateChunkTimeout = timingWheel.newTimeout(this::sendRegularUpdateChunks);
+        triggeredUpdateTimeout = timingWheel.newTimeout(this::sendTriggeredUpdate);
+        idleReceiveSessionsTimeout = timingWheel.newTimeout(this::dropIdleReceiveSessions);
+    }
+
+    /**
+     * Binds the rover's endpoints and starts listening on them, on the transport's event loop or a thread per
+     * endpoint, then starts sending the files
+     *
+     * @throws IOException if an endpoint can't be bound
+     */
+    void start() throws IOException {
+        ripEndpoint = transport.joinGroup(group, multicastPort);
+        dataEndpoint = transport.bind(UDP_PORT);
+        ackEndpoint = transport.bind(UDP_ACK_PORT);
+        timingWheel.schedule(regularUpdateTimeout, 0);
+        timingWheel.schedule(idleReceiveSessionsTimeout, RECEIVE_SESSION_IDLE_TIME * 1000);
+
+        if (eventLoop) {
+            loopRipBuffer = ByteBuffer.allocate(RIP_LISTEN_WINDOW);
+            loopDataBuffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+            loopAckBuffer = ByteBuffer.allocate(JPacketFlyweight.MAX_HEADER_SIZE);
+            loopJPacket = new JPacketFlyweight();
+            loopEntries = new RIPEntryBuffer();
+            if (!filesToSend.isEmpty()) {
+                for (int transfer = 0; transfer < filesToSend.size(); transfer++) {
+                    pendingTransfers.add(transfer);
+                }
+                fileTransferStartTimeout = timingWheel.newTimeout(this::startFileTransfers);
+                timingWheel.schedule(fileTransferStartTimeout, WAIT_TIME_BEFORE_TRANSFER * 1000);
+            }
+            transport.startEventLoop("Rover Event Loop", this::runEventLoopOnce);
+            return;
+        }
+
+        // Listen for updates from other rovers
+        new Thread(() -> {
+            try {
+                listenMulticast();
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(0);
+            }
+        }).start();
+
+        if (!filesToSend.isEmpty()) {
+            new Thread(() -> {
+                try {
+                    listenForAcks();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    System.exit(42);
+                }
+            }).start();
+            sessionExecutor = SendSession.newSessionExecutor();
+            for (int transfer = 0; transfer < filesToSend.size(); transfer++) {
+                String fileToSend = filesToSend.get(transfer);
+                InetAddress destAddress = destAddresses.get(transfer);
+                sessionExecutor.execute(() -> sendFile(fileToSend, destAddress));
+            }
+        }
+
+        new Thread(this::listenForFileTransfer).start();
+    }
+
+    /**
+     * One turn of the event loop, which serves every endpoint, timer and the file senders on a single thread, so the
+     * rover runs on a constant number of threads whatever the number of neighbors and routes. The transport runs it
+     * whenever a datagram arrives or the delay it returned runs out.
+     * <p>
+     * Every endpoint is drained first, its datagrams are handled just as the threads blocking on the endpoints would.
+     * Then the timeouts which ran out are run and the file senders resend and send what their window allows.
+     *
+     * @return the milliseconds until the next tick of the wheels or retransmission deadline, whichever is earlier
+     * @throws IOException if an endpoint fails
+     */
+    private long runEventLoopOnce() throws IOException {
+        InetSocketAddress source;
+        while ((source = ripEndpoint.poll(loopRipBuffer.clear())) != null) {
+            RIPPacketUtil.decodeRIPPacket(loopRipBuffer.array(), loopRipBuffer.position(), loopEntries);
+            updateEntries(source.getAddress(), loopEntries);
+        }
+        while (dataEndpoint.poll(loopDataBuffer.clear()) != null) {
+            int length = loopDataBuffer.position();
+            if (!forward(loopDataBuffer, length)) {
+                onDataPacket(loopJPacket.wrap(loopDataBuffer.clear(), 0, length), loopDataBuffer);
+            }
+        }
+        while (ackEndpoint.poll(loopAckBuffer.clear()) != null) {
+            loopJPacket.wrap(loopAckBuffer, 0, loopAckBuffer.position());
+            FileTransferSender fileSender = fileSenders.get(loopJPacket.sessionId());
+            if (fileSender != null) {
+                fileSender.onAck(loopJPacket);
+            }
+        }
+
+        long timeout = Math.min(timingWheel.expireTimeouts(), ackTimingWheel.expireTimeouts());
+        for (Iterator<FileTransferSender> senders = fileSenders.values().iterator(); senders.hasNext(); ) {
+            FileTransferSender fileSender = senders.next();
+            fileSender.resendExpired();
+            fileSender.fillWindow();
+            if (fileSender.isDone()) {
+                fileSender.close();
+                senders.remove();
+            } else {
+                timeout = Math.min(timeout,
+                        Math.max(1, fileSender.earliestDeadline() - clock.currentTimeMillis()));
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * Sends the file to the destination rover as a session of its own, on the calling thread. See FileTransferSender
+     * for how the window is run.
+     *
+     * @param fileToSend  path of the file
+     * @param destAddress private address of the destination rover
+     */
+    private void sendFile(String fileToSend, InetAddress destAddress) {
+        try {
+            // wait for paths to normalize before sending the packet
+            Thread.sleep(WAIT_TIME_BEFORE_TRANSFER * 1000);
+            while (forwardingTable.lookup(IPUtils.toInt(destAddress)) == ForwardingTable.NO_ROUTE) {
+                LOGGER.info("No entry for " + destAddress + ". Waiting for " + WAIT_TIME_TILL_ROUTE_APPEARS + " seconds.");
+                Thread.sleep(WAIT_TIME_TILL_ROUTE_APPEARS * 1000);
+            }
+
+            FileTransferSender sender = newFileSender(fileToSend, destAddress);
+            SendSession session = new SendSession(sender);
+            sendSessions.put(sender.sessionId(), session);
+            try {
+                session.run();
+            } finally {
+                sendSessions.remove(sender.sessionId());
+            }
+        } catch (InterruptedException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Receives the ACKs of every outgoing transfer on the ACK endpoint and hands each one to its session
+     *
+     * @throws IOException
+     */
+    private void listenForAcks() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(JPacketFlyweight.MAX_HEADER_SIZE);
+        JPacketFlyweight jPacket = new JPacketFlyweight();
+        while (true) {
+            ackEndpoint.receive(buffer.clear());
+            jPacket.wrap(buffer, 0, buffer.position());
+            SendSession session = sendSessions.get(jPacket.sessionId());
+            if (session != null) {
+                session.onAck(jPacket);
+            }
+        }
+    }
+
+    /**
+     * Starts sending every pending file on the event loop whose destination is reachable, checking the others again
+     * every WAIT_TIME_TILL_ROUTE_APPEARS seconds. Run on the event loop's thread by the timing wheel.
+     */
+    private void startFileTransfers() {
+        for (Iterator<Integer> transfers = pendingTransfers.iterator(); transfers.hasNext(); ) {
+            int transfer = transfers.next();
+            InetAddress destAddress = destAddresses.get(transfer);
+            if (forwardingTable.lookup(IPUtils.toInt(destAddress)) == ForwardingTable.NO_ROUTE) {
+                LOGGER.info("No entry for " + destAddress + ". Waiting for " + WAIT_TIME_TILL_ROUTE_APPEARS + " seconds.");
+                continue;
+            }
+            try {
+                FileTransferSender sender = newFileSender(filesToSend.get(transfer), destAddress);
+                fileSenders.put(sender.sessionId(), sender);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            transfers.remove();
+        }
+        if (!pendingTransfers.isEmpty()) {
+            timingWheel.schedule(fileTransferStartTimeout, WAIT_TIME_TILL_ROUTE_APPEARS * 1000);
+        }
+    }
+
+    /**
+     * Opens the file for sending to the destination rover as a new session. The transfer can be resumed: if this
+     * file was sent to the destination before and cut short, the destination picks it up where it was left.
+     *
+     * @param fileToSend  path of the file
+     * @param destAddress private address of the destination rover
+     * @return the sender of the transfer
+     * @throws IOException if the file can't be opened
+     */
+    private FileTransferSender newFileSender(String fileToSend, InetAddress destAddress) throws IOException {
+        int destAddressInt = IPUtils.toInt(destAddress), sessionId = nextSessionId.getAndIncrement() & 0xFFFF;
+        int flowHash = JPacketFlyweight.flowHash(destAddressInt, myPrivateAddressInt, sessionId);
+
+        // Striped packets of the same window take paths of different delays, so a packet overtaken by a few others
+        // isn't lost yet
+        int duplicateThreshold = FileTransferSender.DUPLICATE_THRESHOLD * (stripePackets ? maxPaths : 1);
+        return new FileTransferSender(fileToSend, destAddressInt, myPrivateAddressInt, sessionId, windowSize,
+                payloadSize, fecBlockSize, compressionLevel, FileTransferSender.transferId(fileToSend),
+                duplicateThreshold, rttEstimators.computeIfAbsent(destAddress, address -> new RTTEstimator()),
+                CongestionController.forName(congestionControllerName),
+                packet -> sendDataPacket(destAddressInt, stripePackets ? packet.seqNumber : flowHash, packet), clock);
+    }
+
+    /**
+     * Sends a data packet towards the destination rover through one of the current next hops. The slot is a direct
+     * buffer, which the data endpoint sends without copying it over UDP. Sessions may send concurrently, each from its
+     * own slots.
+     *
+     * @param destAddress the private address of the destination rover
+     * @param selector    picks the path: the flow hash of the session, or the packet's sequence number when striping
+     * @param packet      the packet held in a slot of the sender's window
+     * @throws IOException
+     */
+    private void sendDataPacket(int destAddress, int selector, InFlightPacket packet) throws IOException {
+        ForwardingTable fib = forwardingTable;
+        int route = fib.lookup(destAddress);
+        if (route == ForwardingTable.NO_ROUTE) {
+            LOGGER.info("No route to " + IPUtils.toString(destAddress) + " at the moment, the packet will be resent");
+            return;
+        }
+        dataEndpoint.send(packet.buffer.clear().limit(packet.length), fib.forwardingAddress(route, selector, false));
+    }
+
+    /**
+     * Sends the first length bytes of the buffer through the endpoint, and clears the buffer for the next datagram
+     *
+     * @param endpoint the endpoint to send through
+     * @param buffer   the buffer holding the datagram
+     * @param length   the length of the datagram
+     * @param address  the socket address to send to
+     * @throws IOException
+     */
+    private static void send(Transport.Endpoint endpoint, ByteBuffer buffer, int length, InetSocketAddress address)
+            throws IOException {
+        endpoint.send(buffer.clear().limit(length), address);
+        buffer.clear();
+    }
+
+    /**
+     * Listens for file transfer on its own thread blocking on the data endpoint, forwards the packets which aren't for
+     * this rover and hands the others to onDataPacket
+     */
+    private void listenForFileTransfer() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        JPacketFlyweight jPacket = new JPacketFlyweight();
+
+        try {
+            while (true) {
+                dataEndpoint.receive(buffer.clear());
+                int length = buffer.position();
+                if (!forward(buffer, length)) {
+                    onDataPacket(jPacket.wrap(buffer.clear(), 0, length), buffer);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(42);
+        }
+    }
+
+    /**
+     * The forwarding fast path: sends a received data packet on if it isn't for this rover.
+     * <p>
+     * Only the destination is read, straight from the receive buffer, and the buffer is sent on unchanged to the
+     * socket address the forwarding table holds for the route. Nothing is decoded, copied or allocated. If the route
+     * has several paths, the flow is read as well to keep it on its path, unless the packets are striped over them.
+     *
+     * @param byteBuffer the buffer the packet was received into, backed by an array
+     * @param length     the length of the received packet
+     * @return false if the packet is for this rover, true if it was forwarded or dropped
+     * @throws IOException if the packet can't be sent
+     */
+    private boolean forward(ByteBuffer byteBuffer, int length) throws IOException {
+        byte[] buffer = byteBuffer.array();
+        int destAddress = JPacketFlyweight.destAddress(buffer, length);
+        if (destAddress == myPrivateAddressInt) {
+            return false;
+        }
+
+        ForwardingTable fib = forwardingTable;
+        int route = fib.lookup(destAddress);
+        if (route == ForwardingTable.NO_ROUTE) {
+            LOGGER.info("No route to " + IPUtils.toString(destAddress) + ", dropping the packet");
+            return true;
+        }
+
+        // No need to check for ACK for this rover since it'll be sent to the ACK endpoint, not the data transfer one
+        boolean isAck = JPacketUtil.isBitSet(buffer[0], JPacketUtil.ACK_INDEX);
+        int selector = fib.pathCount(route) == 1 ? 0 :
+                stripePackets && !isAck ? packetsStriped++ : JPacketFlyweight.flowHash(buffer, length);
+        InetSocketAddress nextHop = fib.forwardingAddress(route, selector, isAck);
+        dataEndpoint.send(byteBuffer.clear().limit(length), nextHop);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Not meant for me. Sent it to " + nextHop);
+        }
+        return true;
+    }
+
+    /**
+     * Processes a received data packet for this rover
+     * <p>
+     * The packet is only looked at through a JPacketFlyweight and goes to the FileTransferReceiver of its session,
+     * which writes its payload straight from the receive buffer.
+     *
+     * @param jPacket the packet, wrapping the buffer
+     * @param buffer  the buffer the packet was received into, backed by an array
+     * @throws IOException
+     */
+    private void onDataPacket(JPacketFlyweight jPacket, ByteBuffer buffer) throws IOException {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Got this packet\n" + jPacket + "\n~~~~~~~~~~~~~~");
+        }
+
+        // Every incoming transfer is written to a file of its own, named after its source and its transfer id, or its
+        // session if it can't be resumed. Only the SYN starts one, anything else without a session is a stray packet.
+        long sessionKey = sessionKey(jPacket.sourceAddress(), jPacket.sessionId());
+        FileTransferReceiver fileReceiver = receiveSessions.get(sessionKey);
+        if (fileReceiver == null) {
+            if (!jPacket.isFlagSet(JPacketUtil.SYN_INDEX)) {
+                return;
+            }
+            String outputFileName = outputFileName(jPacket.sourceAddress(), jPacket.sessionId(), jPacket.transferId());
+
+            // A new session of a resumable transfer comes from a sender which restarted and left the earlier session,
+            // whose receiver is closed before the new one opens the file and its journal
+            Long earlierSession = receiveSessionFiles.put(outputFileName, sessionKey);
+            if (earlierSession != null) {
+                LOGGER.info("Session " + jPacket.sessionId() + " resumes " + outputFileName + ", closing session " +
+                        (earlierSession & 0xFFFF));
+                removeReceiveSession(earlierSession);
+            }
+            fileReceiver = new FileTransferReceiver(outputFileName, windowSize, ackEvery, ackDelay, ackTimingWheel,
+                    this::sendAck);
+            receiveSessions.put(sessionKey, fileReceiver);
+        }
+        if (fileReceiver.onPacket(jPacket, buffer.array())) {
+            System.out.println("FILE FULLY RECEIVED. Saved as '" + fileReceiver.outputFileName() +
+                    "' ============================");
+            fileReceiver.close();
+
+            // Kept for a while so that packets whose ACK was lost are acknowledged again instead of starting a new file
+            timingWheel.schedule(timingWheel.newTimeout(() -> removeReceiveSession(sessionKey)),
+                    RECEIVE_SESSION_LINGER_TIME * 1000);
+        }
+    }
+
+    /**
+     * Closes and forgets an incoming transfer, keeping its journal if it wasn't received in full
+     *
+     * @param sessionKey the key of the transfer in receiveSessions
+     */
+    private void removeReceiveSession(long sessionKey) {
+        FileTransferReceiver fileReceiver = receiveSessions.remove(sessionKey);
+        if (fileReceiver == null) {
+            return;
+        }
+        receiveSessionFiles.remove(fileReceiver.outputFileName(), sessionKey);
+        try {
+            fileReceiver.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drops the incoming transfers which got no packet since the last run, whose sender was switched off or lost its
+     * path for long enough to restart from a SYN (see FileTransferSender.RESTART_TIMEOUTS), and runs again after
+     * RECEIVE_SESSION_IDLE_TIME. A resumable one is picked up from its journal by that SYN or by a later session.
+     * Run by the timing wheel.
+     */
+    private void dropIdleReceiveSessions() {
+        for (Map.Entry<Long, FileTransferReceiver> session : receiveSessions.entrySet()) {
+            if (session.getValue().isIdle()) {
+                LOGGER.info("No packet of " + session.getValue().outputFileName() + " for " +
+                        RECEIVE_SESSION_IDLE_TIME + " seconds, closing session " + (session.getKey() & 0xFFFF));
+                removeReceiveSession(session.getKey());
+            }
+        }
+        timingWheel.schedule(idleReceiveSessionsTimeout, RECEIVE_SESSION_IDLE_TIME * 1000);
+    }
+
+    /**
+     * Returns the key of an incoming transfer in receiveSessions
+     *
+     * @param sourceAddress the private address of the sending rover
+     * @param sessionId     the session id of the transfer
+     * @return the source in the upper bits and the session id in the lower 16
+     */
+    private static long sessionKey(int sourceAddress, int sessionId) {
+        return (long) sourceAddress << 16 | sessionId;
+    }
+
+    /**
+     * Returns the name of the file an incoming transfer is saved as. A resumable transfer is named after its transfer
+     * id, so that every session of the transfer writes to the same file.
+     *
+     * @param sourceAddress the private address of the sending rover
+     * @param sessionId     the session id of the transfer
+     * @param transferId    the transfer id from the SYN, or 0 if the transfer can't be resumed
+     * @return the name of the file
+     */
+    private static String outputFileName(int sourceAddress, int sessionId, long transferId) {
+        return OUTPUT_FILENAME + "_" + IPUtils.toString(sourceAddress) + "_" +
+                (transferId == 0 ? String.valueOf(sessionId) : Long.toHexString(transferId));
+    }
+
+    /**
+     * Sends an ACK to the source of an incoming transfer. The ACK is built in a buffer which is reused for every ACK,
+     * so ACKs are sent one at a time: the receivers send them from the data endpoint's thread and, once delayed, from
+     * the ACK timing wheel's thread.
+     *
+     * @param sourceAddress the source of the transfer, as an int
+     * @param sessionId     the session of the transfer
+     * @param ackNumber     the next sequence number the receiver waits for
+     * @param sackBits      the packets received above the ACK number
+     * @throws IOException
+     */
+    private void sendAck(int sourceAddress, int sessionId, int ackNumber, long sackBits) throws IOException {
+        ForwardingTable fib = forwardingTable;
+        int route = fib.lookup(sourceAddress);
+        if (route == ForwardingTable.NO_ROUTE) {
+            LOGGER.info("No route to " + IPUtils.toString(sourceAddress) + ", can't send the ACK");
+            return;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Sending ACK " + ackNumber + " to " + fib.nextHopAddress(route));
+        }
+
+        synchronized (ackFlyweight) {
+            ackFlyweight.writeHeader(BitUtils.setBitInByte((byte) 0, JPacketUtil.ACK_INDEX), sourceAddress,
+                    myPrivateAddressInt, sessionId, DOES_NOT_MATTER, ackNumber, sackBits, DOES_NOT_MATTER,
+                    DOES_NOT_MATTER, DOES_NOT_MATTER, DOES_NOT_MATTER, 0);
+            // The ACKs of a transfer keep to one path, striping them wouldn't make them any faster
+            send(dataEndpoint, ackByteBuffer, ackFlyweight.length(), fib.forwardingAddress(route,
+                    JPacketFlyweight.flowHash(sourceAddress, myPrivateAddressInt, sessionId), true));
+        }
+    }
+
+    /**
+     * Updates entries as per the Distance Vector Algorithm when new entries are received
+     *
+     * @param newEntries The entries received, along with the sender's rover id and the RIP command
+     */
+    private void updateEntries(InetAddress sourcePublicAddress, RIPEntryBuffer newEntries) throws IOException {
+
+        // Drop your own table entries
+        if (newEntries.roverId == id) {
+            return;
+        }
+
+        InetAddress sourcePrivateAddress = idToPrivateIp(newEntries.roverId);
+        int sourcePublicAddressInt = IPUtils.toInt(sourcePublicAddress);
+
+        // Updates meant for another neighbor still show that the sender is alive, but their entries are the routes
+        // poisoned for that neighbor and not for me
+        boolean entriesAreForMe = newEntries.neighborId == RIPPacketUtil.EVERYONE || newEntries.neighborId == id;
+
+        // Cache the entries of neighbors to recalculate the path when a router dies. The packets tagged for me only
+        // hold the routes through me, the whole chunk is in the one for everyone
+        if (newEntries.neighborId == RIPPacketUtil.EVERYONE) {
+            neighborRoutingTableEntriesCache.computeIfAbsent(sourcePrivateAddress, address -> new RIPEntryBuffer())
+                    .copyFrom(newEntries);
+        }
+        privateToPublicAddresCache.put(sourcePrivateAddress, sourcePublicAddress);
+
+
+        // restart the timer task since we have received the heart beat. The timeout is created once per neighbor and
+        // then re-armed without allocating anything
+        TimingWheel.Timeout deathTimeout = neighborTimers.get(sourcePrivateAddress);
+        if (deathTimeout == null) {
+            deathTimeout = timingWheel.newTimeout(
+                    new RouterDeathTimerTask(this, sourcePrivateAddress, sourcePublicAddress));
+            neighborTimers.put(sourcePrivateAddress, deathTimeout);
+        }
+        timingWheel.schedule(deathTimeout, 7 * 1000);
+
+        boolean updateHappened;
+        synchronized (routingTable) {
+            long oldRouteVersion = routeVersion;
+            boolean pathsChanged = false;
+
+            neighbors.put(sourcePublicAddress, newEntries.roverId);
+
+            // Since we got a message from this router, it must be at a distance of 1
+            setRoute(IPUtils.toInt(sourcePrivateAddress), SUBNET_MASK, sourcePublicAddressInt, (byte) 1);
+
+            for (int index = 0; entriesAreForMe && index < newEntries.size; index++) {
+                // skip your own multicast
+                if (newEntries.ipAddresses[index] == myPrivateAddressInt) {
+                    continue;
+                }
+
+                pathsChanged |= updateTableFromEntry(sourcePublicAddressInt, newEntries.ipAddresses[index],
+                        newEntries.subnetMasks[index], newEntries.nextHops[index], newEntries.metrics[index]);
+            }
+
+            // The equal-cost next hops are only used for forwarding, the neighbors don't need to hear of them
+            updateHappened = routeVersion != oldRouteVersion;
+            if (updateHappened || pathsChanged) {
+                forwardingTable = ForwardingTable.compile(routingTable, equalCostNextHops, INFINITY, UDP_PORT,
+                        UDP_ACK_PORT);
+            }
+            if (updateHappened) {
+                triggerUpdate();
+            }
+        }
+        if (updateHappened) {
+            LOGGER.info(myPrivateAddress + "'s table was updated from received entries. New table is ->\n" + getStringRoutingTable() + "\n");
+        } else if (newEntries.command == RIP_REQUEST) { // If a request was made, we have to send the update
+            LOGGER.info(myPrivateAddress + " got a RIP request. Going to send a RIP update -> \n" + getStringRoutingTable() + " \n");
+            timingWheel.schedule(regularUpdateTimeout, 0);
+        }
+    }
+
+    /**
+     * Returns a private IP based on the IP address
+     *
+     * @param id the rover's id
+     * @return a private IP based on the IP address
+     */
+    private InetAddress idToPrivateIp(byte id) throws UnknownHostException {
+        return InetAddress.getByName("10." + (id & 0xFF) + ".0.1");
+    }
+
+    /**
+     * Send update packets out, one for every neighbor, and schedules the next regular update. Tables too large for a
+     * single datagram are split into chunks of RIPPacketUtil.MAX_ENTRIES routes, which are spread over the first half
+     * of the update interval instead of being sent in one burst. The chunks are paced by the timing wheel, a few per
+     * tick when there are more chunks than ticks.
+     * <p>
+     * Run by the timing wheel, regularUpdate is only used by its tasks.
+     */
+    private void sendRIPUpdate() {
+//        LOGGER.info(myPrivateAddress + " is sending a RIP update\n");
+        timingWheel.schedule(regularUpdateTimeout, ROUTE_UPDATE_TIME * 1000);
+        timingWheel.cancel(regularUpdateChunkTimeout);
+        synchronized (routingTable) {
+            regularUpdate.startFromTable(routingTable);
+
+            // The whole table is sent, so every change is now known to the neighbors
+            changedRoutes.clear();
+        }
+
+        int chunks = regularUpdate.chunks();
+        int bursts = Math.max(1, Math.min(chunks, ROUTE_UPDATE_TIME * 1000 / 2 / TIMING_WHEEL_TICK));
+        regularUpdateChunksPerBurst = (chunks + bursts - 1) / bursts;
+        regularUpdateBurstGap = ROUTE_UPDATE_TIME * 1000 / 2 / bursts;
+        sendRegularUpdateChunks();
+    }
+
+    /**
+     * Sends the next burst of chunks of the regular update and schedules the following one, until the last chunk
+     * is sent
+     */
+    private void sendRegularUpdateChunks() {
+        try {
+            for (int chunk = 0; chunk < regularUpdateChunksPerBurst; chunk++) {
+                sendChunk(regularUpdate);
+                if (!regularUpdate.nextChunk()) {
+                    return;
+                }
+            }
+            timingWheel.schedule(regularUpdateChunkTimeout, regularUpdateBurstGap);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Encodes the update's current chunk once for everyone, then with split horizon and poisoned reverse: the routes
+     * learned from a neighbor are advertised back to it as unreachable in a packet of its own, so two rovers never
+     * count to infinity through each other. That packet only holds the routes through the neighbor, and every route
+     * goes through a single neighbor, so a chunk costs about twice its size rather than once per neighbor.
+     * <p>
+     * The poisoned packets are still multicast, tagged with the id of the neighbor they are for, and only the tagged
+     * neighbor uses the entries. They follow the packet for everyone, so the neighbor ends up with the poisoned
+     * metric even if it didn't read the next hop of its own copy as INFINITY.
+     *
+     * @param update the update being sent
+     */
+    private void sendChunk(RIPUpdate update) throws IOException {
+        int packets;
+        synchronized (routingTable) {
+            packets = update.encodeChunk(RIP_UPDATE, id, routingTable, neighbors);
+        }
+        for (int packet = 0; packet < packets; packet++) {
+            multicast(update.packets[packet], update.packetLengths[packet]);
+        }
+    }
+
+    /**
+     * Asks for a triggered update, as done in RFC 2453 section 3.10.1. The update is sent after a random hold-down of
+     * TRIGGERED_UPDATE_MIN_DELAY to TRIGGERED_UPDATE_MAX_DELAY milliseconds and every trigger until then is merged into
+     * it, so at most one triggered update goes out per hold-down however quickly the table changes.
+     * Has to be called while holding the routing table's lock.
+     */
+    private void triggerUpdate() {
+        triggers++;
+        if (triggeredUpdatePending) {
+            triggersMerged++;
+            return;
+        }
+        triggeredUpdatePending = true;
+        long holdDown = TRIGGERED_UPDATE_MIN_DELAY +
+                random.nextInt(TRIGGERED_UPDATE_MAX_DELAY - TRIGGERED_UPDATE_MIN_DELAY + 1);
+        timingWheel.schedule(triggeredUpdateTimeout, holdDown);
+    }
+
+    /**
+     * Sends the routes which changed since the last update. If a regular update went out during the hold-down, the
+     * changes are already known to the neighbors and nothing is sent.
+     * <p>
+     * Run by the timing wheel, triggeredUpdate is only used by its tasks.
+     */
+    private void sendTriggeredUpdate() {
+        int changedRouteCount;
+        synchronized (routingTable) {
+            triggeredUpdatePending = false;
+            changedRouteCount = changedRoutes.size();
+            if (changedRouteCount == 0) {
+                triggeredUpdatesSuppressed++;
+                return;
+            }
+
+            triggeredUpdate.startFromChanged(changedRoutes);
+            changedRoutes.clear();
+            triggeredUpdatesSent++;
+        }
+        try {
+            do {
+                sendChunk(triggeredUpdate);
+            } while (triggeredUpdate.nextChunk());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        LOGGER.info(myPrivateAddress + " sent a triggered update with " + changedRouteCount + " changed routes (" +
+                getTriggeredUpdateStats() + ")");
+    }
+
+    /**
+     * Returns the triggered update counters
+     *
+     * @return how many triggers there were, how many of them were merged into an already pending update and how many
+     * triggered updates were sent or left out because a regular update had already carried the changes
+     */
+    private String getTriggeredUpdateStats() {
+        synchronized (routingTable) {
+            return "triggers: " + triggers + ", merged: " + triggersMerged + ", triggered updates sent: " +
+                    triggeredUpdatesSent + ", suppressed: " + triggeredUpdatesSuppressed;
+        }
+    }
+
+    /**
+     * Listens on the multicast ip and updates the routing table entries accordingly
+     *
+     * @throws IOException
+     */
+    private void listenMulticast() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RIP_LISTEN_WINDOW);
+        RIPEntryBuffer entries = new RIPEntryBuffer();
+        while (true) {
+            InetSocketAddress source = ripEndpoint.receive(buffer.clear());
+            RIPPacketUtil.decodeRIPPacket(buffer.array(), buffer.position(), entries);
+            updateEntries(source.getAddress(), entries);
+        }
+    }
+
+    /**
+     * Called by RouterDeathTimerTask object when
+     *
+     * @param deadRoverPrivateAddress IP of the rover which died/is offline
+     */
+    void registerNeighborDeath(InetAddress deadRoverPrivateAddress, InetAddress deadRoverPublicAddress) throws IOException {
+        LOGGER.info(deadRoverPrivateAddress + " just died :(\n\n\n");
+
+        int deadRoverPublicAddressInt = IPUtils.toInt(deadRoverPublicAddress);
+        synchronized (routingTable) {
+            neighbors.remove(deadRoverPublicAddress);
+
+            int deadRoverSlot = routingTable.find(IPUtils.toInt(deadRoverPrivateAddress));
+            if (deadRoverSlot != RoutingTable.NO_ROUTE) {
+                setMetric(deadRoverSlot, (byte) INFINITY);
+            }
+
+            // A route through the dead rover fails over to one of its equal-cost next hops if it has any
+            equalCostNextHops.removeNextHop(deadRoverPublicAddressInt);
+            for (int slot = routingTable.firstSlot(); slot != RoutingTable.NO_ROUTE; slot = routingTable.nextSlot(slot)) {
+                if (routingTable.nextHop(slot) == deadRoverPublicAddressInt) {
+                    int alternate = equalCostNextHops.takeAny(routingTable.ipAddress(slot));
+                    if (alternate != 0) {
+                        setRoute(routingTable.ipAddress(slot), routingTable.subnetMask(slot), alternate,
+                                routingTable.metric(slot));
+                    } else {
+                        setMetric(slot, (byte) INFINITY);
+                    }
+                }
+            }
+            forwardingTable = ForwardingTable.compile(routingTable, equalCostNextHops, INFINITY, UDP_PORT, UDP_ACK_PORT);
+
+            // send a triggered update
+            triggerUpdate();
+        }
+
+        LOGGER.info(myPublicAddress + "'s table as updated after rover death is \n" + getStringRoutingTable());
+    }
+
+    /**
+     * Update the routing table based on the given entry.
+     * Note: this function was separated from updateRoutingTable since it is also used when a neighbor dies
+     * <p>
+     * A neighbor other than the route's next hop which offers the destination at the route's cost is kept as an
+     * equal-cost next hop, and forgotten once it offers another cost. If the route's next hop gets worse while there
+     * are equal-cost next hops, one of them takes over at the route's cost instead.
+     *
+     * Has to be called while holding the routing table's lock.
+     *
+     * @param neighborPublicIp the ip of the neighbor who sent this entry
+     * @param ipAddress        the destination of the entry in that neighbor's table
+     * @param subnetMask       the subnet mask of the entry
+     * @param nextHop          the neighbor's next hop for the destination
+     * @param metric           the neighbor's cost for the destination
+     * @return true if the equal-cost next hops changed while the route itself didn't
+     */
+    boolean updateTableFromEntry(int neighborPublicIp, int ipAddress, byte subnetMask, int nextHop,
+                                         byte metric) {
+
+        // If the entry uses me as its next hop, I can't believe it and will read it as INFINITY
+        int entryVal = nextHop == myPublicAddressInt ? INFINITY : metric;
+        byte newMetric = (byte) ((1 + entryVal) >= INFINITY ? INFINITY : 1 + entryVal);
+
+        int slot = routingTable.find(ipAddress);
+
+        if (slot != RoutingTable.NO_ROUTE && routingTable.nextHop(slot) == neighborPublicIp &&
+                newMetric > routingTable.metric(slot)) {
+            int alternate = equalCostNextHops.takeAny(ipAddress);
+            if (alternate != 0) {
+                setRoute(ipAddress, subnetMask, alternate, routingTable.metric(slot));
+                return false;
+            }
+        }
+
+        // If we've never seen the entry's IP before, we immediately add it
+        // If the entry is this tables next hop, we will trust it
+        // Or if the entry is shorter, we update our entry
+        if (slot == RoutingTable.NO_ROUTE ||
+                routingTable.nextHop(slot) == neighborPublicIp || routingTable.metric(slot) > 1 + entryVal) {
+            setRoute(ipAddress, subnetMask, neighborPublicIp, newMetric);
+            return false;
+        }
+        if (newMetric == routingTable.metric(slot) && newMetric < INFINITY) {
+            return equalCostNextHops.add(ipAddress, neighborPublicIp);
+        }
+        return equalCostNextHops.remove(ipAddress, neighborPublicIp);
+    }
+
+    /**
+     * Sets the route to the destination. If the route is new or differs from the current one, the destination is
+     * recorded in changedRoutes and routeVersion is bumped. The equal-cost next hops of the destination are forgotten
+     * if its cost changed, they were kept for the old one.
+     * Has to be called while holding the routing table's lock.
+     *
+     * @param ipAddress  the destination
+     * @param subnetMask the subnet mask of the destination
+     * @param nextHop    the next hop towards the destination
+     * @param metric     the cost of getting to the destination
+     */
+    private void setRoute(int ipAddress, byte subnetMask, int nextHop, byte metric) {
+        int slot = routingTable.find(ipAddress);
+        if (slot != RoutingTable.NO_ROUTE && routingTable.subnetMask(slot) == subnetMask &&
+                routingTable.nextHop(slot) == nextHop && routingTable.metric(slot) == metric) {
+            return;
+        }
+        boolean wasUnreachable = slot != RoutingTable.NO_ROUTE && routingTable.metric(slot) == INFINITY;
+        if (slot == RoutingTable.NO_ROUTE || routingTable.metric(slot) != metric) {
+            equalCostNextHops.clear(ipAddress);
+        } else {
+            // The new next hop may have been one of them
+            equalCostNextHops.remove(ipAddress, nextHop);
+        }
+        routingTable.put(ipAddress, subnetMask, nextHop, metric);
+        changedRoutes.add(ipAddress);
+        routeVersion++;
+
+        if ((metric == INFINITY) != wasUnreachable) {
+            updateGarbageCollectionTimer(ipAddress, metric == INFINITY);
+        }
+    }
+
+    /**
+     * Starts or stops the garbage collection timer of a route, as in RFC 2453 section 3.8: a route which stays
+     * unreachable for ROUTE_GARBAGE_COLLECTION_TIME is advertised as such until then and removed afterwards.
+     * Has to be called while holding the routing table's lock.
+     *
+     * @param ipAddress   the destination of the route
+     * @param unreachable true if the route just became unreachable, false if it just became reachable again
+     */
+    private void updateGarbageCollectionTimer(int ipAddress, boolean unreachable) {
+        TimingWheel.Timeout timeout = routeGarbageCollectionTimeouts.get(ipAddress);
+        if (unreachable) {
+            if (timeout == null) {
+                timeout = timingWheel.newTimeout(() -> collectGarbageRoute(ipAddress));
+                routeGarbageCollectionTimeouts.put(ipAddress, timeout);
+            }
+            timingWheel.schedule(timeout, ROUTE_GARBAGE_COLLECTION_TIME * 1000);
+        } else if (timeout != null) {
+            timingWheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * Removes a route whose garbage collection timer ran out, if it is still unreachable. Run on the timing wheel's
+     * thread.
+     *
+     * @param ipAddress the destination of the route
+     */
+    private void collectGarbageRoute(int ipAddress) {
+        synchronized (routingTable) {
+            int slot = routingTable.find(ipAddress);
+            if (slot == RoutingTable.NO_ROUTE || routingTable.metric(slot) != INFINITY) {
+                return;
+            }
+            routingTable.remove(ipAddress);
+            routeGarbageCollectionTimeouts.remove(ipAddress);
+        }
+        LOGGER.info(myPrivateAddress + " removed the route to " + IPUtils.toString(ipAddress) + " after it was " +
+                "unreachable for " + ROUTE_GARBAGE_COLLECTION_TIME + " seconds");
+    }
+
+    /**
+     * Changes the metric of the route in the given slot, recording the change like setRoute does.
+     * Has to be called while holding the routing table's lock.
+     *
+     * @param slot   the slot of the route
+     * @param metric the new metric
+     */
+    private void setMetric(int slot, byte metric) {
+        setRoute(routingTable.ipAddress(slot), routingTable.subnetMask(slot), routingTable.nextHop(slot), metric);
+    }
+
+    /**
+     * Mulicasts the given byte over the network
+     *
+     * @param buffer packet to be sent
+     * @param length the length of the packet in the buffer
+     */
+    private void multicast(byte[] buffer, int length) throws IOException {
+        send(ripEndpoint, ByteBuffer.wrap(buffer), length, groupAddress);
+    }
+
+    /**
+     * Returns the largest payload a JPacket can carry without being fragmented on its way, which is what the file is
+     * cut into. The chunk size is sent along in the SYN, so the receiver doesn't have to pick the same one.
+     *
+     * @param mtu the MTU of the path, see Transport.mtu
+     * @return the payload size in bytes
+     */
+    private static int payloadSizeFor(int mtu) {
+        return Math.min(mtu - IP_HEADER_SIZE - UDP_HEADER_SIZE, MAX_DATAGRAM_SIZE) - JPacketFlyweight.MAX_HEADER_SIZE;
+    }
+
+    /**
+     * Returns a neat representation of the routing table
+     *
+     * @return a neat representation of the routing table
+     */
+    private String getStringRoutingTable() {
+        synchronized (routingTable) {
+            return "IP Address\tNextHop\t\tMetric\n" + routingTable;
+        }
+    }
+
+    /**
+     * Test only: returns the metric of the route to another rover, for the simulations under src/sim/java to tell when
+     * the routes have converged. Package-private since they are in the rover package, the rover itself never calls it.
+     *
+     * @param roverId the id of the other rover
+     * @return the number of hops to the rover, 0 for this rover and INFINITY if there is no route to it
+     */
+    int metricTo(byte roverId) throws UnknownHostException {
+        if (roverId == id) {
+            return 0;
+        }
+        synchronized (routingTable) {
+            int slot = routingTable.find(IPUtils.toInt(idToPrivateIp(roverId)));
+            return slot == RoutingTable.NO_ROUTE ? INFINITY : routingTable.metric(slot);
+        }
+    }
+
+    /**
+     * Driver function for the Rover class
+     *
+     * @param args the arguments passed to the Rover
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        ArgumentParser argsParser = new ArgumentParser(args);
+        if (argsParser.success) {
+            new Rover(new UdpTransport(), argsParser.roverId, argsParser.multicastPort, argsParser.multicastAddress,
+                    argsParser.filesToSend, argsParser.destAddresses, argsParser.windowSize, argsParser.congestionController,
+                    argsParser.eventLoop, argsParser.ackEvery, argsParser.ackDelay,
+                    argsParser.fecBlockSize, argsParser.compressionLevel, argsParser.maxPaths,
+                    argsParser.stripePackets).start();
+        }
+    }
+}
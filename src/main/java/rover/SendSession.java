@@ -0,0 +1,97 @@
+package rover;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An outgoing transfer run by a thread of its own, which waits for ACKs no longer than the earliest retransmission
+ * deadline and keeps the window of its FileTransferSender full.
+ * <p>
+ * All the sessions of a rover share the ACK socket: a single thread receives the ACKs and hands each one to the session
+ * it belongs to through onAck, which wakes the session up. A ReentrantLock is used rather than synchronized since the
+ * sessions are meant to run on virtual threads, which can't leave their carrier thread while inside synchronized.
+ */
+class SendSession {
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+
+    private final FileTransferSender sender;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ackReceived = lock.newCondition();
+
+    /**
+     * Creates the session of the given sender
+     *
+     * @param sender the sender of the transfer
+     */
+    SendSession(FileTransferSender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Hands an ACK of this session over to its thread
+     *
+     * @param ack the received ACK
+     */
+    void onAck(JPacketFlyweight ack) {
+        lock.lock();
+        try {
+            sender.onAck(ack);
+            ackReceived.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the transfer until every packet is acknowledged, on the calling thread. The deadlines are read on the
+     * sender's clock, but the thread waits in real time, so the clock has to keep up with it: the transfers of rovers
+     * on a simulated network run on their event loop instead.
+     *
+     * @throws IOException          if the file can't be read or a packet can't be sent
+     * @throws InterruptedException if the thread is interrupted while waiting for an ACK
+     */
+    void run() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            sender.fillWindow();
+            while (!sender.isDone()) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine(sender + ", Waiting for ACK\n");
+                }
+
+                // Wait for an ACK no longer than the earliest retransmission deadline
+                long wait = sender.earliestDeadline() - sender.clock().currentTimeMillis();
+                if (wait > 0) {
+                    ackReceived.await(wait, TimeUnit.MILLISECONDS);
+                }
+                sender.resendExpired();
+                sender.fillWindow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        sender.close();
+    }
+
+    /**
+     * Returns an executor running every task on a new virtual thread when the JVM has them (Java 21 onwards), or else
+     * on a pool of platform threads. Looked up by reflection so the code still builds for older releases.
+     *
+     * @return the executor to run the sessions on
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            LOGGER.info("Virtual threads aren't available, the transfers run on a pool of platform threads");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
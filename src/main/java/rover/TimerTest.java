@@ -1,3 +1,5 @@
+package rover;
+
 import java.util.Date;
 import java.util.Timer;
 import java.util.TimerTask;
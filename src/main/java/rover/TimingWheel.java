@@ -0,0 +1,223 @@
+package rover;
+
+/**
+ * A hashed timing wheel which runs many timeouts on a single thread.
+ * <p>
+ * Time is cut into ticks of tickMillis and the wheel has a bucket per tick, wrapping around after wheelSize ticks.
+ * A timeout sits in the bucket of the tick it runs out on and the wheel's thread only looks at one bucket per tick,
+ * so scheduling, re-arming and cancelling are O(1). Timeouts further away than a full turn stay in their bucket
+ * until the wheel comes round on their deadline.
+ * <p>
+ * Timeouts are created once and re-armed as often as needed: they are the nodes of the buckets' linked lists, so
+ * re-arming one just moves it to another list and allocates nothing. Tasks are run on the wheel's thread, outside of
+ * its lock, and may re-arm their own timeout.
+ * <p>
+ * A wheel can also be created without a thread of its own and driven by an event loop calling expireTimeouts.
+ */
+class TimingWheel {
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+
+    // Timeouts which ran out and whose tasks are about to be run, in their own list so that they can still be
+    // cancelled or re-armed until then
+    private final Timeout expired = new Timeout(null);
+
+    private long currentTick = 0;
+    private final Clock clock;
+    private final long startNanos;
+    private final Thread thread; // null if driven by expireTimeouts
+    private volatile boolean running = true;
+
+    /**
+     * A reusable timeout, created by newTimeout
+     */
+    static class Timeout {
+        private final Runnable task;
+        private Timeout previous, next;
+        private long deadlineTick;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * Creates a wheel and starts its thread
+     *
+     * @param name       the name of the wheel's thread
+     * @param tickMillis the length of a tick in milliseconds, timeouts run up to one tick late
+     * @param wheelSize  the number of buckets, a power of 2
+     */
+    TimingWheel(String name, long tickMillis, int wheelSize) {
+        this(name, tickMillis, wheelSize, true, Clock.SYSTEM);
+    }
+
+    /**
+     * Creates a wheel without a thread of its own, expireTimeouts has to be called at least once per tick
+     *
+     * @param tickMillis the length of a tick in milliseconds, timeouts run up to one tick late
+     * @param wheelSize  the number of buckets, a power of 2
+     */
+    TimingWheel(long tickMillis, int wheelSize) {
+        this(tickMillis, wheelSize, Clock.SYSTEM);
+    }
+
+    /**
+     * Creates a wheel without a thread of its own running on the given clock, expireTimeouts has to be called at
+     * least once per tick of that clock
+     *
+     * @param tickMillis the length of a tick in milliseconds, timeouts run up to one tick late
+     * @param wheelSize  the number of buckets, a power of 2
+     * @param clock      the clock the ticks are counted on
+     */
+    TimingWheel(long tickMillis, int wheelSize, Clock clock) {
+        this(null, tickMillis, wheelSize, false, clock);
+    }
+
+    private TimingWheel(String name, long tickMillis, int wheelSize, boolean startThread, Clock clock) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size has to be a power of 2");
+        }
+        this.tickNanos = tickMillis * 1_000_000;
+        this.mask = wheelSize - 1;
+        this.buckets = new Timeout[wheelSize];
+        for (int bucket = 0; bucket < wheelSize; bucket++) {
+            buckets[bucket] = new Timeout(null);
+            buckets[bucket].previous = buckets[bucket].next = buckets[bucket];
+        }
+        expired.previous = expired.next = expired;
+
+        this.clock = clock;
+        startNanos = clock.nanoTime();
+        if (startThread) {
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            thread = null;
+        }
+    }
+
+    /**
+     * Creates a timeout for the given task. It does nothing until it is scheduled.
+     *
+     * @param task the task to run when the timeout runs out
+     * @return the timeout
+     */
+    Timeout newTimeout(Runnable task) {
+        return new Timeout(task);
+    }
+
+    /**
+     * Arms the timeout to run out after the given delay, replacing its previous deadline if it was already armed
+     *
+     * @param timeout     the timeout
+     * @param delayMillis the delay in milliseconds
+     */
+    synchronized void schedule(Timeout timeout, long delayMillis) {
+        unlink(timeout);
+        // The deadline is counted from now rather than from the start of the current tick, which may be most of a tick
+        // ago, and rounded up to the first tick starting at or after it, so a timeout never runs early. It still goes
+        // to a bucket the wheel hasn't reached yet.
+        long deadlineNanos = clock.nanoTime() - startNanos + Math.max(0, delayMillis) * 1_000_000;
+        timeout.deadlineTick = Math.max(currentTick + 1, (deadlineNanos + tickNanos - 1) / tickNanos);
+        link(buckets[(int) (timeout.deadlineTick & mask)], timeout);
+    }
+
+    /**
+     * Disarms the timeout, its task won't be run unless it is scheduled again
+     *
+     * @param timeout the timeout
+     */
+    synchronized void cancel(Timeout timeout) {
+        unlink(timeout);
+    }
+
+    /**
+     * Stops the wheel's thread, pending timeouts are dropped
+     */
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Advances the wheel by one bucket every tick and runs the tasks of the timeouts which ran out
+     */
+    private void run() {
+        while (running) {
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - clock.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            expireTimeouts();
+        }
+    }
+
+    /**
+     * Advances the wheel over every tick which passed and runs the tasks of the timeouts which ran out, on the calling
+     * thread
+     *
+     * @return the milliseconds until the next tick, which is when this should be called again
+     */
+    long expireTimeouts() {
+        long now = clock.nanoTime(), nextTick;
+        synchronized (this) {
+            while (startNanos + (currentTick + 1) * tickNanos <= now) {
+                currentTick++;
+                Timeout bucket = buckets[(int) (currentTick & mask)];
+                for (Timeout timeout = bucket.next; timeout != bucket; ) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= currentTick) {
+                        unlink(timeout);
+                        link(expired, timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            nextTick = currentTick + 1;
+        }
+
+        while (true) {
+            Timeout timeout;
+            synchronized (this) {
+                timeout = expired.next;
+                if (timeout == expired) {
+                    break;
+                }
+                unlink(timeout);
+            }
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        long nextTickNanos = startNanos + nextTick * tickNanos - clock.nanoTime();
+        return Math.max(1, (nextTickNanos + 999_999) / 1_000_000);
+    }
+
+    private static void link(Timeout head, Timeout timeout) {
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+    }
+
+    private static void unlink(Timeout timeout) {
+        if (timeout.previous == null) {
+            return;
+        }
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.previous = timeout.next = null;
+    }
+}
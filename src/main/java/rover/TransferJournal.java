@@ -0,0 +1,107 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The on-disk record of the packets of a resumable transfer which were written to the output file, kept beside it.
+ * <p>
+ * The journal is memory mapped: a header naming the transfer, transfer id (8) | total size (8) | chunk size (4),
+ * followed by a bitmap with bit n set once packet n (the bytes at n * chunk size) is in the output file. Setting a bit
+ * is a single byte store into the mapping, so the journal costs nothing per packet, and the OS writes it back along
+ * with the mapped output file: both survive the rover being killed or restarted. Nothing is forced to the disk per
+ * packet, so a power cut may lose the latest packets, which are then simply sent again.
+ * <p>
+ * A journal whose header doesn't match the SYN is from another file, or another version of the same file, and is
+ * started over. Once the transfer completes the journal is deleted.
+ */
+class TransferJournal {
+    private final static int HEADER_SIZE = 8 + 8 + 4;
+
+    private final File journalFile;
+    private final RandomAccessFile journal;
+    private final MappedByteBuffer bitmap;
+    private final int packetCount;
+    private final boolean resumed;
+
+    /**
+     * Opens the journal of the transfer, resuming the one left by an earlier session of the same transfer if there is
+     * one and starting a new one otherwise
+     *
+     * @param journalFileName the path of the journal
+     * @param transferId      the id of the transfer, from the SYN
+     * @param totalSize       the size of the file
+     * @param chunkSize       the payload length of every packet but the last
+     * @param mayResume       false to start the journal over whatever it holds, if the output file can't be the one
+     *                        it was kept for
+     * @throws IOException if the journal can't be created or mapped
+     */
+    TransferJournal(String journalFileName, long transferId, long totalSize, int chunkSize, boolean mayResume)
+            throws IOException {
+        this.journalFile = new File(journalFileName);
+        this.journal = new RandomAccessFile(journalFile, "rw");
+        this.packetCount = FecUtils.packetCount(totalSize, chunkSize);
+        long size = HEADER_SIZE + (packetCount + 7) / 8;
+        boolean sameTransfer = mayResume && journal.length() == size && journal.readLong() == transferId &&
+                journal.readLong() == totalSize && journal.readInt() == chunkSize;
+        if (!sameTransfer) {
+            journal.setLength(0);
+            journal.setLength(size);
+        }
+        bitmap = journal.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        bitmap.putLong(0, transferId).putLong(8, totalSize).putInt(16, chunkSize);
+        this.resumed = sameTransfer;
+    }
+
+    /**
+     * Returns true if the journal was left by an earlier session of the same transfer
+     *
+     * @return true if the output file already holds the packets the journal tells of
+     */
+    boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Records that the packet was written to the output file
+     *
+     * @param seqNumber the sequence number of the packet
+     */
+    void set(int seqNumber) {
+        int index = HEADER_SIZE + seqNumber / 8;
+        bitmap.put(index, (byte) (bitmap.get(index) | 1 << seqNumber % 8));
+    }
+
+    /**
+     * Returns the first packet which isn't in the output file, the transfer resumes from there
+     *
+     * @return the sequence number of the first packet missing, or the number of packets if none is
+     */
+    int firstMissing() {
+        int seqNumber = 0;
+        // Whole bytes of received packets are skipped at once
+        while (seqNumber + 8 <= packetCount && bitmap.get(HEADER_SIZE + seqNumber / 8) == (byte) 0xFF) {
+            seqNumber += 8;
+        }
+        while (seqNumber < packetCount && (bitmap.get(HEADER_SIZE + seqNumber / 8) & 1 << seqNumber % 8) != 0) {
+            seqNumber++;
+        }
+        return seqNumber;
+    }
+
+    /**
+     * Closes the journal, and deletes it once the transfer is complete
+     *
+     * @param complete true if the whole file was received, the journal isn't needed any more then
+     * @throws IOException if the journal can't be closed
+     */
+    void close(boolean complete) throws IOException {
+        journal.close();
+        if (complete && !journalFile.delete()) {
+            throw new IOException("Can't delete the journal " + journalFile);
+        }
+    }
+}
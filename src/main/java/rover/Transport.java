@@ -0,0 +1,126 @@
+package rover;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Where a rover's datagrams go: the network it is on, as seen from its host.
+ * <p>
+ * A rover only reaches the network through its transport: it binds an endpoint per port (data and ACKs), joins the
+ * multicast group of RIP with another, and sends and receives datagrams through them. The transport also gives the
+ * rover its public address, the MTU of the path, the clock its timers and transfers run on, and where its random
+ * numbers come from, so the same rover runs over real sockets (UdpTransport) or on a simulated network where time is
+ * virtual and every run is the same (InMemoryNetwork).
+ * <p>
+ * With the event loop, the transport also runs the loop: it calls EventLoop.runOnce whenever a datagram arrives or
+ * the delay the last call returned ran out. Without it, the rover blocks a thread on every endpoint, which only real
+ * sockets support.
+ */
+interface Transport {
+
+    /**
+     * A bound datagram socket, or a multicast group joined on a port
+     */
+    interface Endpoint {
+        /**
+         * Sends the datagram between the buffer's position and limit
+         *
+         * @param datagram the datagram, its position is moved to its limit
+         * @param address  the socket address to send to, a unicast address or the group of a multicast endpoint
+         * @throws IOException if the datagram can't be sent
+         */
+        void send(ByteBuffer datagram, InetSocketAddress address) throws IOException;
+
+        /**
+         * Waits for a datagram and puts it into the buffer, only without the event loop
+         *
+         * @param buffer receives the datagram from its position on, a longer datagram is cut short
+         * @return the address the datagram came from
+         * @throws IOException if the endpoint fails
+         */
+        InetSocketAddress receive(ByteBuffer buffer) throws IOException;
+
+        /**
+         * Puts the next datagram waiting into the buffer, if there is one, without waiting
+         *
+         * @param buffer receives the datagram from its position on, a longer datagram is cut short
+         * @return the address the datagram came from, or null if none was waiting
+         * @throws IOException if the endpoint fails
+         */
+        InetSocketAddress poll(ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * One turn of a rover's event loop
+     */
+    interface EventLoop {
+        /**
+         * Polls every endpoint, runs the timers which ran out and lets the file senders send
+         *
+         * @return the milliseconds after which the loop has to run again even if no datagram arrives, at least 1
+         * @throws IOException if an endpoint fails
+         */
+        long runOnce() throws IOException;
+    }
+
+    /**
+     * Returns the address of the rover's host on the network, its public address
+     *
+     * @return the address of the host
+     */
+    InetAddress localAddress() throws IOException;
+
+    /**
+     * Returns the largest datagram, IP and UDP headers included, which crosses the network without being fragmented
+     *
+     * @return the MTU in bytes
+     */
+    int mtu() throws IOException;
+
+    /**
+     * Returns the clock the rover's timers and transfers run on
+     *
+     * @return the clock
+     */
+    Clock clock();
+
+    /**
+     * Returns a new source of random numbers for the rover, seeded by the transport if its runs have to repeat
+     *
+     * @return a new Random
+     */
+    Random newRandom();
+
+    /**
+     * Binds an endpoint to the port on the host's address
+     *
+     * @param port the port
+     * @return the endpoint, blocking until the event loop is started
+     * @throws IOException if the port can't be bound
+     */
+    Endpoint bind(int port) throws IOException;
+
+    /**
+     * Joins the multicast group on the port. Datagrams sent to the group through the endpoint reach every other host
+     * in range which joined it.
+     *
+     * @param group the address of the group
+     * @param port  the port
+     * @return the endpoint
+     * @throws IOException if the group can't be joined
+     */
+    Endpoint joinGroup(InetAddress group, int port) throws IOException;
+
+    /**
+     * Runs the event loop over every endpoint bound so far, which stop blocking. Returns at once, the loop runs on a
+     * thread of its own or on the simulation's.
+     *
+     * @param name      the name of the loop, for its thread
+     * @param eventLoop the turn to run
+     * @throws IOException if the endpoints can't be switched to non-blocking
+     */
+    void startEventLoop(String name, EventLoop eventLoop) throws IOException;
+}
@@ -0,0 +1,131 @@
+package rover;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The transport of a rover on a real network: every endpoint is a UDP datagram channel bound on the host, multicast
+ * goes out of the interface holding the host's address, and the event loop waits on a selector over the channels.
+ * Only one rover can run per host, since every rover binds the same ports.
+ */
+class UdpTransport implements Transport {
+    private final static int DEFAULT_MTU = 1500; // Used if the MTU of the rover's interface can't be found
+
+    private InetAddress localAddress;
+    private final List<DatagramChannel> channels = new ArrayList<>();
+
+    /**
+     * An endpoint backed by a datagram channel
+     */
+    private static class ChannelEndpoint implements Endpoint {
+        private final DatagramChannel channel;
+
+        ChannelEndpoint(DatagramChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void send(ByteBuffer datagram, InetSocketAddress address) throws IOException {
+            channel.send(datagram, address);
+        }
+
+        @Override
+        public InetSocketAddress receive(ByteBuffer buffer) throws IOException {
+            return (InetSocketAddress) channel.receive(buffer);
+        }
+
+        @Override
+        public InetSocketAddress poll(ByteBuffer buffer) throws IOException {
+            return (InetSocketAddress) channel.receive(buffer);
+        }
+    }
+
+    /**
+     * Returns the host's address on the interface the default route goes out of, found by connecting a datagram
+     * socket to Google's DNS server, which sends nothing
+     *
+     * @return this machine's IP on the outgoing interface
+     */
+    @Override
+    public synchronized InetAddress localAddress() throws IOException {
+        if (localAddress == null) {
+            try (DatagramSocket tempSocket = new DatagramSocket()) {
+                tempSocket.connect(InetAddress.getByName("8.8.8.8"), 20800);
+                localAddress = tempSocket.getLocalAddress();
+            }
+        }
+        return localAddress;
+    }
+
+    /**
+     * Returns the MTU of the interface holding the host's address. Every rover shares the multicast network and
+     * forwards over the interface it is on, so it is the MTU of the whole path.
+     *
+     * @return the MTU in bytes
+     */
+    @Override
+    public int mtu() throws IOException {
+        NetworkInterface networkInterface = NetworkInterface.getByInetAddress(localAddress());
+        return networkInterface == null || networkInterface.getMTU() <= 0 ? DEFAULT_MTU : networkInterface.getMTU();
+    }
+
+    @Override
+    public Clock clock() {
+        return Clock.SYSTEM;
+    }
+
+    @Override
+    public Random newRandom() {
+        return new Random();
+    }
+
+    @Override
+    public Endpoint bind(int port) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET).bind(new InetSocketAddress(port));
+        channels.add(channel);
+        return new ChannelEndpoint(channel);
+    }
+
+    @Override
+    public Endpoint joinGroup(InetAddress group, int port) throws IOException {
+        NetworkInterface networkInterface = NetworkInterface.getByInetAddress(localAddress());
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                .bind(new InetSocketAddress(port))
+                .setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+        channel.join(group, networkInterface);
+        channels.add(channel);
+        return new ChannelEndpoint(channel);
+    }
+
+    /**
+     * Registers every channel with a selector and runs the loop on a thread of its own, which waits on the selector
+     * until a channel is ready or the delay returned by the last turn runs out
+     */
+    @Override
+    public void startEventLoop(String name, EventLoop eventLoop) throws IOException {
+        Selector selector = Selector.open();
+        for (DatagramChannel channel : channels) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+        new Thread(() -> {
+            try {
+                while (true) {
+                    selector.select(eventLoop.runOnce());
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(42);
+            }
+        }, name).start();
+    }
+}
@@ -0,0 +1,62 @@
+package rover;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transfers a file over loopback with the real sender and receiver (see LoopbackTransfer), acknowledging every packet
+ * and acknowledging several packets at once, and prints how many ACKs each run sent per data packet and how long it
+ * took. The receiving thread drops a share of the data packets at random as a lossy link would, to show that delaying
+ * the ACKs doesn't slow loss recovery down. (Just for evaluating the ACKs, can be ignored)
+ */
+class AckBenchmark {
+    private final static int
+            FILE_SIZE = 4_000_000,
+            WINDOW_SIZE = 64,
+            PAYLOAD_SIZE = 1400,
+            ACK_DELAY = 10; // in milliseconds
+
+    /**
+     * Driver function which runs the transfer for every loss rate and ACK setting
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("ROVER").setLevel(Level.WARNING);
+        File fileToSend = File.createTempFile("acks", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer over loopback with a window of " + WINDOW_SIZE +
+                " packets and ACKs delayed by at most " + ACK_DELAY + "ms");
+        for (double loss : new double[]{0, 0.01, 0.05}) {
+            for (int ackEvery : new int[]{1, 2, 8}) {
+                // The first run of each setting warms the JIT up
+                run(fileToSend, content, loss, ackEvery, false);
+                run(fileToSend, content, loss, ackEvery, true);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Transfers the file once and prints the ACKs sent and the time it took if asked to
+     */
+    private static void run(File fileToSend, byte[] content, double loss, int ackEvery, boolean print)
+            throws Exception {
+        LoopbackTransfer transfer = LoopbackTransfer.run(fileToSend, content, WINDOW_SIZE, PAYLOAD_SIZE, ackEvery,
+                ACK_DELAY, 0, loss);
+        if (print) {
+            System.out.printf("loss %4.1f%%  ack every %d  %5d data packets  %5d ACKs  %5.3f ACKs/data packet  " +
+                            "%6.0fms  %s%n", loss * 100, ackEvery, transfer.dataPackets, transfer.acks,
+                    (double) transfer.acks / transfer.dataPackets, transfer.elapsedNanos / 1e6,
+                    transfer.intact ? "intact" : "CORRUPTED");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package rover;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+/**
+ * Transfers files of telemetry logs, of random bytes and of both in turn with the real sender and receiver, without
+ * and with compression, and prints the bytes each one put on the wire and the CPU time it took. The packets are handed
+ * from the sender to the receiver in memory, so only the work of both ends is measured, and the time the transfer
+ * would take on a LINK_RATE link is worked out from the bytes on the wire. (Just for evaluating the compression, can
+ * be ignored)
+ */
+class CompressionBenchmark {
+    // Held on to, or the level would be lost once the logger is garbage collected
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            FILE_SIZE = 8_000_000,
+            WINDOW_SIZE = 64,
+            PAYLOAD_SIZE = 1400,
+            LINK_RATE = 1_250_000, // bytes per second, 10 Mbit/s
+            MIXED_BLOCK_SIZE = 1 << 20,
+            ROUNDS = 3;
+
+    /**
+     * Driver function which runs the transfer for every kind of file and compression level
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        LOGGER.setLevel(Level.WARNING);
+        Random random = new Random(42);
+        byte[] logs = telemetry(random), noise = new byte[FILE_SIZE], mixed = new byte[FILE_SIZE];
+        random.nextBytes(noise);
+        for (int offset = 0; offset < FILE_SIZE; offset += MIXED_BLOCK_SIZE) {
+            byte[] source = offset / MIXED_BLOCK_SIZE % 2 == 0 ? logs : noise;
+            System.arraycopy(source, offset, mixed, offset, Math.min(MIXED_BLOCK_SIZE, FILE_SIZE - offset));
+        }
+
+        String[] names = {"none", "fast", "deflate"};
+        int[] levels = {Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION};
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer, chunks of " + PAYLOAD_SIZE +
+                " bytes, link time at " + LINK_RATE * 8 / 1_000_000 + " Mbit/s");
+        String[] files = {"telemetry", "random", "mixed"};
+        byte[][] contents = {logs, noise, mixed};
+        for (int file = 0; file < files.length; file++) {
+            File fileToSend = File.createTempFile("compression", "");
+            fileToSend.deleteOnExit();
+            Files.write(fileToSend.toPath(), contents[file]);
+            for (int level = 0; level < levels.length; level++) {
+                double[] result = new double[0];
+                // Only the last round is printed, the previous ones warm the JIT up
+                for (int round = 0; round < ROUNDS; round++) {
+                    result = run(fileToSend, contents[file], levels[level]);
+                }
+                double linkTime = result[0] / LINK_RATE * 1000;
+                System.out.printf("%-9s  %-7s  %5.2f MB on the wire (%4.1f%%)  %5d of %5d chunks compressed  " +
+                                "%5.1f ms CPU/MB  link time %6.0fms  %s%n", files[file], names[level], result[0] / 1e6,
+                        result[0] * 100 / FILE_SIZE, (int) result[1], (int) result[2], result[3] / (FILE_SIZE / 1e6),
+                        Math.max(linkTime, result[3]), result[4] == 1 ? "intact" : "CORRUPTED");
+            }
+            fileToSend.delete();
+        }
+    }
+
+    /**
+     * Returns FILE_SIZE bytes of log lines like the ones the rovers send home
+     */
+    private static byte[] telemetry(Random random) {
+        StringBuilder logs = new StringBuilder(FILE_SIZE + 200);
+        String[] states = {"OK", "OK", "OK", "DEGRADED", "CHARGING"};
+        long time = 1_792_000_000_000L;
+        while (logs.length() < FILE_SIZE) {
+            time += random.nextInt(250);
+            logs.append(time).append(" rover=").append(random.nextInt(8) + 1)
+                    .append(" temp=").append(180 + random.nextInt(80) / 10.0)
+                    .append(" volt=").append(11 + random.nextInt(20) / 10.0)
+                    .append(" wheel_rpm=").append(random.nextInt(3000))
+                    .append(" heading=").append(random.nextInt(360))
+                    .append(" status=").append(states[random.nextInt(states.length)]).append('\n');
+        }
+        return Arrays.copyOf(logs.toString().getBytes(StandardCharsets.US_ASCII), FILE_SIZE);
+    }
+
+    /**
+     * Transfers the file once, handing every packet over to the receiver and every ACK back to the sender
+     *
+     * @return the bytes sent, the chunks compressed, the packets sent, the CPU time in milliseconds and 1 if the file
+     * arrived intact
+     */
+    private static double[] run(File fileToSend, byte[] content, int compressionLevel) throws Exception {
+        File output = File.createTempFile("compression", "");
+        List<byte[]> packets = new ArrayList<>();
+        long[] bytes = {0, 0};
+        FileTransferSender sender = new FileTransferSender(fileToSend.getPath(), 2, 1, 7, WINDOW_SIZE, PAYLOAD_SIZE,
+                0, compressionLevel, 0, FileTransferSender.DUPLICATE_THRESHOLD, new RTTEstimator(),
+                CongestionController.forName("none"), packet -> {
+            byte[] copy = new byte[packet.length];
+            packet.buffer.clear().limit(packet.length);
+            packet.buffer.get(copy);
+            packets.add(copy);
+            bytes[0] += packet.length;
+            if (JPacketUtil.isBitSet(copy[0], JPacketUtil.NORMAL_INDEX) &&
+                    JPacketUtil.isBitSet(copy[0], JPacketUtil.COMPRESSION_INDEX)) {
+                bytes[1]++;
+            }
+        });
+        byte[] ackBuffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+        JPacketFlyweight ack = new JPacketFlyweight(), jPacket = new JPacketFlyweight();
+        FileTransferReceiver receiver = new FileTransferReceiver(output.getPath(), WINDOW_SIZE, 1, 10,
+                new TimingWheel(5, 64), (sourceAddress, sessionId, ackNumber, sackBits) -> sender.onAck(
+                LoopbackTransfer.writeAck(ack, ackBuffer, sourceAddress, 2, sessionId, ackNumber, sackBits)));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        int packetsSent = 0;
+        while (!sender.isDone()) {
+            packets.clear();
+            sender.fillWindow();
+            packetsSent += packets.size();
+            for (byte[] packet : packets) {
+                receiver.onPacket(jPacket.wrap(ByteBuffer.wrap(packet), 0, packet.length), packet);
+            }
+        }
+        long cpuTime = threads.getCurrentThreadCpuTime() - cpuStart;
+        sender.close();
+        receiver.close();
+
+        boolean intact = Arrays.equals(Files.readAllBytes(output.toPath()), content);
+        output.delete();
+        return new double[]{bytes[0], bytes[1], packetsSent, cpuTime / 1e6, intact ? 1 : 0};
+    }
+}
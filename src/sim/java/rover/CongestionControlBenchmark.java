@@ -0,0 +1,137 @@
+package rover;
+
+import java.util.*;
+
+/**
+ * Simulates two JRTP transfers sharing one forwarding rover and prints how the bandwidth is shared between them for
+ * every congestion controller. (Just for evaluating the controllers, can be ignored)
+ * <p>
+ * The forwarding rover can forward one packet per millisecond and holds at most FORWARDER_QUEUE_SIZE packets, every
+ * other packet is dropped like an overrun socket buffer would. Time advances in steps of 1 millisecond and the second
+ * transfer starts after SECOND_FLOW_START, so the benchmark also shows how quickly the first one makes room for it.
+ */
+class CongestionControlBenchmark {
+    private final static int
+            FORWARDER_QUEUE_SIZE = 40,
+            SENDER_TO_FORWARDER_DELAY = 5, // in milliseconds
+            FORWARDER_TO_SENDER_DELAY = 10, // forwarder -> receiver -> forwarder -> sender, in milliseconds
+            WINDOW_SIZE = 256,
+            SECOND_FLOW_START = 2000,
+            MEASURE_FROM = 10000,
+            SIMULATION_TIME = 30000;
+
+    /**
+     * State of one simulated sender
+     */
+    private static class Flow {
+        CongestionController congestionController;
+        RTTEstimator rttEstimator = new RTTEstimator();
+        TreeMap<Integer, InFlightPacket> unackedPackets = new TreeMap<>();
+        int nextSeqNumber = 0;
+        long lastWindowReductionTime = -1, start, delivered = 0, losses = 0;
+
+        Flow(String controllerName, long start) {
+            this.congestionController = CongestionController.forName(controllerName);
+            this.start = start;
+        }
+    }
+
+    /**
+     * Runs the simulation for the given congestion controller
+     *
+     * @param controllerName the congestion controller used by both transfers
+     */
+    private static void simulate(String controllerName) {
+        Flow[] flows = {new Flow(controllerName, 0), new Flow(controllerName, SECOND_FLOW_START)};
+
+        // {time, flow, seqNumber}, for packets arriving at the forwarder and ACKs arriving at the senders
+        PriorityQueue<long[]> arrivals = new PriorityQueue<>(Comparator.comparingLong(event -> event[0]));
+        PriorityQueue<long[]> acks = new PriorityQueue<>(Comparator.comparingLong(event -> event[0]));
+        ArrayDeque<long[]> forwarderQueue = new ArrayDeque<>();
+
+        for (long now = 0; now < SIMULATION_TIME; now++) {
+            while (!arrivals.isEmpty() && arrivals.peek()[0] <= now) {
+                long[] arrival = arrivals.poll();
+                if (forwarderQueue.size() < FORWARDER_QUEUE_SIZE) {
+                    forwarderQueue.add(arrival);
+                }
+            }
+
+            if (!forwarderQueue.isEmpty()) {
+                long[] forwarded = forwarderQueue.poll();
+                acks.add(new long[]{now + FORWARDER_TO_SENDER_DELAY, forwarded[1], forwarded[2]});
+            }
+
+            while (!acks.isEmpty() && acks.peek()[0] <= now) {
+                long[] ack = acks.poll();
+                Flow flow = flows[(int) ack[1]];
+                InFlightPacket acked = flow.unackedPackets.remove((int) ack[2]);
+                if (acked == null) {
+                    continue;
+                }
+                long rtt = acked.retransmitted ? -1 : now - acked.firstSendTime;
+                if (rtt >= 0) {
+                    flow.rttEstimator.addSample(rtt);
+                }
+                flow.congestionController.onAck(rtt);
+                if (now >= MEASURE_FROM) {
+                    flow.delivered++;
+                }
+            }
+
+            for (int flowIndex = 0; flowIndex < flows.length; flowIndex++) {
+                Flow flow = flows[flowIndex];
+                if (now < flow.start) {
+                    continue;
+                }
+
+                for (Map.Entry<Integer, InFlightPacket> unacked : flow.unackedPackets.entrySet()) {
+                    InFlightPacket inFlightPacket = unacked.getValue();
+                    if (inFlightPacket.retransmitDeadline > now) {
+                        continue;
+                    }
+                    if (inFlightPacket.lastSendTime >= flow.lastWindowReductionTime) {
+                        flow.rttEstimator.backoff();
+                        flow.congestionController.onLoss();
+                        flow.lastWindowReductionTime = now;
+                    }
+                    flow.losses++;
+                    inFlightPacket.resent(now, flow.rttEstimator.getRto());
+                    arrivals.add(new long[]{now + SENDER_TO_FORWARDER_DELAY, flowIndex, unacked.getKey()});
+                }
+
+                int baseSeqNumber = flow.unackedPackets.isEmpty() ? flow.nextSeqNumber : flow.unackedPackets.firstKey();
+                while (flow.nextSeqNumber < baseSeqNumber + WINDOW_SIZE &&
+                        flow.unackedPackets.size() < flow.congestionController.getCongestionWindow()) {
+                    InFlightPacket inFlightPacket = new InFlightPacket(0);
+                    inFlightPacket.sent(flow.nextSeqNumber, 0, now, flow.rttEstimator.getRto());
+                    flow.unackedPackets.put(flow.nextSeqNumber, inFlightPacket);
+                    arrivals.add(new long[]{now + SENDER_TO_FORWARDER_DELAY, flowIndex, flow.nextSeqNumber});
+                    flow.nextSeqNumber++;
+                }
+            }
+        }
+
+        double measuredSeconds = (SIMULATION_TIME - MEASURE_FROM) / 1000.0;
+        double first = flows[0].delivered / measuredSeconds, second = flows[1].delivered / measuredSeconds;
+        double jainIndex = (first + second) * (first + second) / (2 * (first * first + second * second));
+        System.out.printf("%-6s flow 1: %7.1f pkts/s (%5d resent)  flow 2: %7.1f pkts/s (%5d resent)  " +
+                        "link use: %5.1f%%  Jain's fairness index: %.3f%n",
+                controllerName, first, flows[0].losses, second, flows[1].losses,
+                (first + second) / 10, jainIndex);
+    }
+
+    /**
+     * Runs the simulation for every congestion controller
+     *
+     * @param args arguments passed to the main function
+     */
+    public static void main(String[] args) {
+        System.out.println("Two transfers through one forwarding rover (1000 pkts/s, queue of " +
+                FORWARDER_QUEUE_SIZE + " packets), measured from " + MEASURE_FROM / 1000 + "s to " +
+                SIMULATION_TIME / 1000 + "s");
+        for (String controllerName : new String[]{"none", "aimd", "delay"}) {
+            simulate(controllerName);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package rover;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Transfers a file over loopback with the real sender and receiver (see LoopbackTransfer), without and with parity
+ * packets, and prints the goodput of each run along with the packets it sent and the packets the receiver rebuilt.
+ * The receiving thread drops a share of the packets at random, parity packets included, as the lossy links between
+ * rovers do.
+ * (Just for evaluating the forward error correction, can be ignored)
+ */
+class FecBenchmark {
+    private final static int
+            FILE_SIZE = 16_000_000,
+            WINDOW_SIZE = 64,
+            PAYLOAD_SIZE = 1400,
+            ACK_EVERY = 2,
+            ACK_DELAY = 10, // in milliseconds
+            ROUNDS = 3;
+
+    /**
+     * Driver function which runs the transfer for every loss rate and FEC block size
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("ROVER").setLevel(Level.WARNING);
+        File fileToSend = File.createTempFile("fec", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer over loopback with a window of " + WINDOW_SIZE +
+                " packets, median of " + ROUNDS + " runs, block size 0 sends no parity packets");
+        // Warms the JIT up
+        run(fileToSend, content, 0.05, 8);
+        for (double loss : new double[]{0, 0.01, 0.05, 0.10}) {
+            for (int fecBlockSize : new int[]{0, 4, 8, 16}) {
+                double[][] results = new double[ROUNDS][];
+                for (int round = 0; round < ROUNDS; round++) {
+                    results[round] = run(fileToSend, content, loss, fecBlockSize);
+                }
+                Arrays.sort(results, Comparator.comparingDouble(result -> result[0]));
+                double[] median = results[ROUNDS / 2];
+                System.out.printf("loss %4.1f%%  block size %2d  %6.0fms  goodput %6.1f MB/s  %5.0f packets sent  " +
+                                "%4.0f rebuilt  %s%n", loss * 100, fecBlockSize, median[0], FILE_SIZE / median[0] / 1e3,
+                        median[1], median[2], median[3] == 1 ? "intact" : "CORRUPTED");
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Transfers the file once
+     *
+     * @return the time it took in milliseconds, the packets sent, the packets rebuilt and 1 if the file is intact
+     */
+    private static double[] run(File fileToSend, byte[] content, double loss, int fecBlockSize) throws Exception {
+        Logger logger = Logger.getLogger("ROVER");
+        int[] rebuilt = {0};
+        Handler rebuiltCounter = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getMessage().startsWith("Rebuilt")) {
+                    rebuilt[0]++;
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // Only the rebuilt packets are counted, nothing is printed
+        logger.setLevel(Level.FINE);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(rebuiltCounter);
+        LoopbackTransfer transfer = LoopbackTransfer.run(fileToSend, content, WINDOW_SIZE, PAYLOAD_SIZE, ACK_EVERY,
+                ACK_DELAY, fecBlockSize, loss);
+        logger.removeHandler(rebuiltCounter);
+        logger.setUseParentHandlers(true);
+        logger.setLevel(Level.WARNING);
+        return new double[]{transfer.elapsedNanos / 1e6, transfer.dataPackets, rebuilt[0], transfer.intact ? 1 : 0};
+    }
+}
@@ -0,0 +1,174 @@
+package rover;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how many packets an intermediate rover forwards per second on one core, with the decoding path the Rover
+ * used to forward with and with the fast path which only reads the destination. (Just for evaluating forwarding, can
+ * be ignored)
+ * <p>
+ * The decoding path copies the packet out of the receive buffer, decodes it with JPacketUtil, prints it, looks the
+ * next hop up in the InetAddress keyed map and sends a new DatagramPacket, as listenForFileTransfer used to. The fast
+ * path reads the destination from the receive buffer, looks it up in the ForwardingTable and sends the buffer as is,
+ * through a DatagramChannel like the event loop and through a DatagramSocket like the data socket's thread. Every
+ * next hop is a socket on loopback which is never read, so the kernel drops the packets once its buffer is full and
+ * sending costs the same whatever was sent before.
+ * <p>
+ * Rates are per CPU second of the forwarding thread, and each path is also run without sending to show what it costs
+ * on top of the system call.
+ */
+class ForwardingBenchmark {
+    private final static int
+            ROUTES = 1000,
+            PACKET_KINDS = 1024,
+            PAYLOAD_SIZE = 1400,
+            PACKETS = 200_000,
+            ROUNDS = 5;
+
+    /**
+     * Forwards one received packet, which is in the first length bytes of buffer
+     */
+    private interface ForwardingPath {
+        void forward(byte[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * Returns the destination of the route with the given index, in the 10.0.0.0/8 range the rovers use
+     */
+    private static int destination(int index) {
+        return 10 << 24 | index << 8 | 1;
+    }
+
+    /**
+     * Driver function which prints the forwarding rate of every path
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket sink = new DatagramSocket(0, loopback), ackSink = new DatagramSocket(0, loopback);
+
+        Map<InetAddress, RoutingTableEntry> map = new ConcurrentHashMap<>();
+        RoutingTable routingTable = new IntRoutingTable();
+        for (int index = 0; index < ROUTES; index++) {
+            InetAddress destination = IPUtils.toInetAddress(destination(index));
+            map.put(destination, new RoutingTableEntry(destination, (byte) 24, loopback, (byte) 2));
+            routingTable.put(destination(index), (byte) 24, IPUtils.toInt(loopback), (byte) 2);
+        }
+        ForwardingTable forwardingTable = ForwardingTable.compile(routingTable, 16, sink.getLocalPort(),
+                ackSink.getLocalPort());
+
+        // Data packets of a full chunk, addressed to random rovers of the table
+        Random random = new Random(42);
+        byte[][] packets = new byte[PACKET_KINDS][];
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        random.nextBytes(payload);
+        InetAddress source = IPUtils.toInetAddress(destination(ROUTES));
+        for (int index = 0; index < PACKET_KINDS; index++) {
+            packets[index] = JPacketUtil.jPacket2Arr(IPUtils.toInetAddress(destination(random.nextInt(ROUTES))),
+                    source, 7, index, 0, BitUtils.setBitInByte((byte) 0, JPacketUtil.NORMAL_INDEX), payload, 0, 0,
+                    0, 0, 0);
+        }
+
+        PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        DatagramSocket socket = new DatagramSocket(0, loopback);
+        DatagramChannel channel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+        int[] checksum = {0};
+
+        ForwardingPath decoding = (buffer, length) -> {
+            byte[] actualPacket = Arrays.copyOfRange(buffer, 0, length);
+            JPacket jPacket = JPacketUtil.arr2JPacket(actualPacket);
+            discard.println(jPacket);
+            RoutingTableEntry route = map.get(jPacket.destAddress);
+            socket.send(new DatagramPacket(actualPacket, actualPacket.length, route.nextHop,
+                    route.metric == 1 && JPacketUtil.isBitSet(jPacket.flags, JPacketUtil.ACK_INDEX) ?
+                            ackSink.getLocalPort() : sink.getLocalPort()));
+            discard.println("Not meant for me. Sent it to " + route.nextHop);
+        };
+        ForwardingPath decodingWithoutSend = (buffer, length) -> {
+            byte[] actualPacket = Arrays.copyOfRange(buffer, 0, length);
+            JPacket jPacket = JPacketUtil.arr2JPacket(actualPacket);
+            discard.println(jPacket);
+            RoutingTableEntry route = map.get(jPacket.destAddress);
+            checksum[0] += new DatagramPacket(actualPacket, actualPacket.length, route.nextHop,
+                    sink.getLocalPort()).getLength();
+            discard.println("Not meant for me. Sent it to " + route.nextHop);
+        };
+
+        ByteBuffer channelBuffer = ByteBuffer.allocate(JPacketFlyweight.MAX_HEADER_SIZE + PAYLOAD_SIZE);
+        ForwardingPath fastChannel = (buffer, length) -> {
+            int route = forwardingTable.lookup(JPacketFlyweight.destAddress(buffer, length));
+            channel.send(channelBuffer.clear().limit(length), forwardingTable.forwardingAddress(route,
+                    JPacketUtil.isBitSet(buffer[0], JPacketUtil.ACK_INDEX)));
+        };
+        DatagramPacket socketPacket = new DatagramPacket(new byte[0], 0);
+        ForwardingPath fastSocket = (buffer, length) -> {
+            int route = forwardingTable.lookup(JPacketFlyweight.destAddress(buffer, length));
+            socketPacket.setSocketAddress(forwardingTable.forwardingAddress(route,
+                    JPacketUtil.isBitSet(buffer[0], JPacketUtil.ACK_INDEX)));
+            socketPacket.setLength(length);
+            socket.send(socketPacket);
+        };
+        ForwardingPath fastWithoutSend = (buffer, length) -> {
+            int route = forwardingTable.lookup(JPacketFlyweight.destAddress(buffer, length));
+            checksum[0] += forwardingTable.forwardingAddress(route,
+                    JPacketUtil.isBitSet(buffer[0], JPacketUtil.ACK_INDEX)).getPort();
+        };
+
+        String[] names = {"decoding path", "decoding path without send", "fast path (channel)",
+                "fast path (socket)", "fast path without send"};
+        ForwardingPath[] paths = {decoding, decodingWithoutSend, fastChannel, fastSocket, fastWithoutSend};
+        System.out.println(PAYLOAD_SIZE + " byte payloads to " + ROUTES + " destinations, forwarded on one thread");
+        for (int path = 0; path < paths.length; path++) {
+            double[] rates = new double[2];
+            for (int round = 0; round < ROUNDS; round++) {
+                rates = run(paths[path], packets, channelBuffer, socketPacket);
+            }
+            // Only the last round is printed, the previous ones warm the JIT up
+            System.out.printf("%-28s %10.0f packets/s per core  %10.0f packets/s%n", names[path], rates[0],
+                    rates[1]);
+        }
+        System.out.println("(checksum " + checksum[0] + ")");
+    }
+
+    /**
+     * Forwards PACKETS packets with the given path, each one copied into the receive buffer first as if it had just
+     * been received
+     *
+     * @return the packets forwarded per CPU second and per second
+     */
+    private static double[] run(ForwardingPath path, byte[][] packets, ByteBuffer receiveBuffer,
+                                DatagramPacket receivePacket) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        byte[] buffer = receiveBuffer.array();
+        receivePacket.setData(buffer);
+        long cpuStart = threads.getCurrentThreadCpuTime(), start = System.nanoTime();
+        for (int index = 0; index < PACKETS; index++) {
+            byte[] packet = packets[index & (PACKET_KINDS - 1)];
+            System.arraycopy(packet, 0, buffer, 0, packet.length);
+            path.forward(buffer, packet.length);
+        }
+        long cpuTime = threads.getCurrentThreadCpuTime() - cpuStart, elapsed = System.nanoTime() - start;
+        return new double[]{PACKETS * 1e9 / cpuTime, PACKETS * 1e9 / elapsed};
+    }
+}
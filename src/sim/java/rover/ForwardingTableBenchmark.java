@@ -0,0 +1,81 @@
+package rover;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares the cost of finding the next hop of a packet in the InetAddress keyed map the Rover used to forward with,
+ * in the IntRoutingTable and in the compiled ForwardingTable. (Just for evaluating the tables, can be ignored)
+ * <p>
+ * The map lookup includes creating the InetAddress key from the packet's destination, as the forwarding path had to.
+ */
+class ForwardingTableBenchmark {
+    private final static int[] ROUTE_COUNTS = {1000, 10000, 100000};
+    private final static int
+            LOOKUPS = 1 << 22,
+            ROUNDS = 5;
+
+    /**
+     * Returns the destination of the route with the given index, in the 10.0.0.0/8 range the rovers use
+     */
+    private static int destination(int index) {
+        return 10 << 24 | index << 8 | 1;
+    }
+
+    /**
+     * Driver function which prints the time per lookup for every table at every size
+     *
+     * @param args arguments passed to the main function
+     */
+    public static void main(String[] args) {
+        System.out.println("Routes\tConcurrentHashMap\tIntRoutingTable\tForwardingTable (LPM)");
+        for (int routeCount : ROUTE_COUNTS) {
+            Map<InetAddress, RoutingTableEntry> map = new ConcurrentHashMap<>();
+            RoutingTable routingTable = new IntRoutingTable();
+            InetAddress nextHop = IPUtils.toInetAddress(IPUtils.toInt((byte) 172, (byte) 17, (byte) 0, (byte) 2));
+            for (int index = 0; index < routeCount; index++) {
+                InetAddress destination = IPUtils.toInetAddress(destination(index));
+                map.put(destination, new RoutingTableEntry(destination, (byte) 24, nextHop, (byte) 2));
+                routingTable.put(destination(index), (byte) 24, IPUtils.toInt(nextHop), (byte) 2);
+            }
+            ForwardingTable forwardingTable = ForwardingTable.compile(routingTable, 16, 6161, 5454);
+
+            // Packets are addressed to random rovers of the table
+            Random random = new Random(42);
+            int[] packets = new int[LOOKUPS];
+            for (int index = 0; index < LOOKUPS; index++) {
+                packets[index] = destination(random.nextInt(routeCount));
+            }
+
+            double mapTime = 0, tableTime = 0, fibTime = 0;
+            long checksum = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int packet : packets) {
+                    checksum += map.get(IPUtils.toInetAddress(packet)).metric;
+                }
+                mapTime = (double) (System.nanoTime() - start) / LOOKUPS;
+
+                start = System.nanoTime();
+                for (int packet : packets) {
+                    synchronized (routingTable) {
+                        checksum += routingTable.metric(routingTable.find(packet));
+                    }
+                }
+                tableTime = (double) (System.nanoTime() - start) / LOOKUPS;
+
+                start = System.nanoTime();
+                for (int packet : packets) {
+                    checksum += forwardingTable.metric(forwardingTable.lookup(packet));
+                }
+                fibTime = (double) (System.nanoTime() - start) / LOOKUPS;
+            }
+
+            // Only the last round is printed, the previous ones warm the JIT up
+            System.out.printf("%d\t%.1f ns/lookup\t\t%.1f ns/lookup\t%.1f ns/lookup\t(checksum %d)%n",
+                    routeCount, mapTime, tableTime, fibTime, checksum);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Runs two real rovers on an InMemoryNetwork and cuts the link between them while one sends a file to the other, then
+ * puts it back and checks that the file still arrives intact. After a short outage the receiver still has the session
+ * when the sender restarts it from a SYN. After one longer than the receiver's idle limit the receiver has dropped the
+ * session, and the SYN picks the transfer up from the receiver's journal. Prints how long each transfer took once the
+ * link was back, and fails if one didn't finish or the outage didn't play out as expected. Run by gradle check.
+ */
+class LinkOutageBenchmark {
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            MULTICAST_PORT = 520,
+            MTU = 1500,
+            FILE_SIZE = 4_000_000,
+            CHECK_EVERY = 100, // Virtual milliseconds between the checks of the output file
+            TIME_LIMIT = 600_000, // Virtual milliseconds after which a run gives up
+            CUT_AFTER = 1000, // Virtual milliseconds between the SYN's arrival and the cut
+            SHORT_OUTAGE = 90_000, // Longer than RTTEstimator.MAX_RTO, shorter than the receive session idle time
+            LONG_OUTAGE = 700_000; // Longer than twice the receive session idle time, which surely drops the session
+    private final static long SEED = 42;
+    private final static String OUTPUT_PREFIX = "OUTPUT_FILE_10.1.0.1_";
+
+    /**
+     * Driver function which runs a short and a long outage
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception if a transfer didn't finish intact
+     */
+    public static void main(String[] args) throws Exception {
+        File fileToSend = File.createTempFile("outage", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(SEED).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer between two rovers over a link of 2 ms and " +
+                "10 Mbit/s, cut " + CUT_AFTER + " ms after the SYN arrived");
+        boolean passed = run(fileToSend, content, SHORT_OUTAGE, false) & run(fileToSend, content, LONG_OUTAGE, true);
+        if (!passed) {
+            throw new IllegalStateException("A transfer didn't survive its outage");
+        }
+    }
+
+    /**
+     * Sends the file across an outage of the given length
+     *
+     * @param outage         the virtual milliseconds the link is cut for
+     * @param sessionDropped whether the receiver is expected to drop the session during the outage
+     * @return true if the file arrived intact and the session was dropped as expected
+     */
+    private static boolean run(File fileToSend, byte[] content, long outage, boolean sessionDropped)
+            throws IOException {
+        deleteOutputs();
+        int[] restarts = {0}, drops = {0}, resumes = {0};
+        Handler counter = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                String message = record.getMessage();
+                if (message.contains("restarting session")) {
+                    restarts[0]++;
+                } else if (message.startsWith("No packet of")) {
+                    drops[0]++;
+                } else if (message.startsWith("Resuming " + OUTPUT_PREFIX)) {
+                    resumes[0]++;
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // Only the restarts, the dropped sessions and the resumes are counted, nothing is printed
+        LOGGER.setLevel(Level.INFO);
+        LOGGER.setUseParentHandlers(false);
+        LOGGER.addHandler(counter);
+        InMemoryNetwork network = new InMemoryNetwork(SEED, MTU);
+        InMemoryNetwork.Host sender = network.addHost(InetAddress.getByName("192.168.0.1")),
+                receiver = network.addHost(InetAddress.getByName("192.168.0.2"));
+        InMemoryNetwork.Link link = new InMemoryNetwork.Link(2, 1_250_000, 0, 0);
+        InetAddress group = InetAddress.getByName("233.0.0.0");
+        Rover sendingRover = new Rover(sender, (byte) 1, MULTICAST_PORT, group, List.of(fileToSend.getPath()),
+                List.of(InetAddress.getByName("10.2.0.1")), 32, "aimd", true, 2, 10, 0, 0, 1, false);
+        Rover receivingRover = new Rover(receiver, (byte) 2, MULTICAST_PORT, group, Collections.emptyList(),
+                Collections.emptyList(), 32, "aimd", true, 2, 10, 0, 0, 1, false);
+        network.connect(sender, receiver, link);
+        sendingRover.start();
+        receivingRover.start();
+
+        boolean started = runUntil(network, () -> output() != null) >= 0;
+        network.run(CUT_AFTER);
+        network.disconnect(sender, receiver);
+        network.run(outage);
+        network.connect(sender, receiver, link);
+        long transferTime = started ? runUntil(network, () -> {
+            File output = output();
+            return output != null && Arrays.equals(Files.readAllBytes(output.toPath()), content);
+        }) : -1;
+        LOGGER.removeHandler(counter);
+        LOGGER.setUseParentHandlers(true);
+        LOGGER.setLevel(Level.WARNING);
+        deleteOutputs();
+
+        boolean passed = transferTime >= 0 && (drops[0] > 0) == sessionDropped && (resumes[0] > 0) == sessionDropped;
+        System.out.printf("  outage of %3d s  %s %6d ms after the link was back, %d restarts, session %s, %s%n",
+                outage / 1000, transferTime >= 0 ? "intact" : "NOT RECEIVED", transferTime, restarts[0],
+                drops[0] > 0 ? "dropped" : "kept", resumes[0] > 0 ? "resumed from the journal" : "not resumed");
+        System.out.println("    " + network.getStats());
+        return passed;
+    }
+
+    /**
+     * Runs the network until the condition holds, checking it every CHECK_EVERY virtual milliseconds
+     *
+     * @return the virtual milliseconds it took, or -1 if it didn't hold within TIME_LIMIT
+     */
+    private static long runUntil(InMemoryNetwork network, Condition condition) throws IOException {
+        long start = network.currentTimeMillis();
+        while (!condition.holds()) {
+            if (network.currentTimeMillis() - start >= TIME_LIMIT) {
+                return -1;
+            }
+            network.run(CHECK_EVERY);
+        }
+        return network.currentTimeMillis() - start;
+    }
+
+    private interface Condition {
+        boolean holds() throws IOException;
+    }
+
+    /**
+     * Returns the file the receiving rover saves the transfer as, or null until the SYN arrived
+     */
+    private static File output() {
+        File[] outputs = new File(".").listFiles((directory, name) -> name.startsWith(OUTPUT_PREFIX) &&
+                !name.endsWith(".journal"));
+        return outputs == null || outputs.length == 0 ? null : outputs[0];
+    }
+
+    /**
+     * Deletes the output file and its journal, so that every run starts from scratch
+     */
+    private static void deleteOutputs() {
+        File[] outputs = new File(".").listFiles((directory, name) -> name.startsWith(OUTPUT_PREFIX));
+        for (File output : outputs == null ? new File[0] : outputs) {
+            output.delete();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfers a file over loopback with the real sender and receiver, as the simulations measuring them do. The sender
+ * runs as a SendSession on the calling thread, the receiver on a thread of its own which drops a share of the packets
+ * at random, parity packets included, as a lossy link would. ACKs go back over a socket of their own, the delayed ones
+ * from the receiver's timing wheel.
+ * <p>
+ * Also holds the ACK encoding every simulation acknowledges its packets with, over sockets or in memory.
+ */
+class LoopbackTransfer {
+    final static int
+            SOURCE_ADDRESS = IPUtils.toInt((byte) 10, (byte) 1, (byte) 0, (byte) 1),
+            DEST_ADDRESS = IPUtils.toInt((byte) 10, (byte) 2, (byte) 0, (byte) 1);
+
+    final long elapsedNanos; // The time the sender took
+    final int dataPackets, acks; // Received on the loopback sockets, dropped packets included
+    final boolean intact;
+
+    private LoopbackTransfer(long elapsedNanos, int dataPackets, int acks, boolean intact) {
+        this.elapsedNanos = elapsedNanos;
+        this.dataPackets = dataPackets;
+        this.acks = acks;
+        this.intact = intact;
+    }
+
+    /**
+     * Transfers the file once from SOURCE_ADDRESS to DEST_ADDRESS, with the AIMD congestion controller
+     *
+     * @param fileToSend   the file to send
+     * @param content      the content of the file, which the received file is checked against
+     * @param windowSize   the window size of the sender and of the receiver
+     * @param payloadSize  the payload size of the packets
+     * @param ackEvery     the receiver acknowledges every ackEvery packets in order
+     * @param ackDelay     the longest an ACK is held back, in milliseconds
+     * @param fecBlockSize the packets covered by a parity packet, 0 for none
+     * @param loss         the share of the packets the receiver drops
+     * @return how the transfer went
+     * @throws Exception if the transfer fails
+     */
+    static LoopbackTransfer run(File fileToSend, byte[] content, int windowSize, int payloadSize, int ackEvery,
+                                int ackDelay, int fecBlockSize, double loss) throws Exception {
+        File output = File.createTempFile("loopback", "");
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket dataSocket = new DatagramSocket(0, loopback), ackSocket = new DatagramSocket(0, loopback);
+        DatagramChannel sendChannel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+        dataSocket.setReceiveBufferSize(1 << 22);
+        TimingWheel ackTimingWheel = new TimingWheel("ACK Timing Wheel", 5, 64);
+        AtomicInteger dataPackets = new AtomicInteger(), acks = new AtomicInteger();
+
+        FileTransferReceiver receiver = new FileTransferReceiver(output.getPath(), windowSize, ackEvery, ackDelay,
+                ackTimingWheel, ackSender(ackSocket, acks));
+        Thread receiving = new Thread(() -> {
+            Random random = new Random(7);
+            byte[] buffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE + payloadSize];
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            JPacketFlyweight jPacket = new JPacketFlyweight();
+            try {
+                while (true) {
+                    packet.setLength(buffer.length);
+                    dataSocket.receive(packet);
+                    dataPackets.incrementAndGet();
+                    if (random.nextDouble() < loss) {
+                        continue;
+                    }
+                    if (receiver.onPacket(jPacket.wrap(ByteBuffer.wrap(buffer), 0, packet.getLength()), buffer)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // The socket is closed at the end of the run
+            }
+        });
+        receiving.setDaemon(true);
+        receiving.start();
+
+        SendSession session = new SendSession(new FileTransferSender(fileToSend.getPath(), DEST_ADDRESS,
+                SOURCE_ADDRESS, 1, windowSize, payloadSize, fecBlockSize, 0, 0,
+                FileTransferSender.DUPLICATE_THRESHOLD, new RTTEstimator(), CongestionController.forName("aimd"),
+                packet -> sendChannel.send(packet.buffer.clear().limit(packet.length),
+                        dataSocket.getLocalSocketAddress())));
+        Thread ackListener = new Thread(() -> {
+            byte[] buffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            JPacketFlyweight jPacket = new JPacketFlyweight();
+            try {
+                while (true) {
+                    packet.setLength(buffer.length);
+                    ackSocket.receive(packet);
+                    session.onAck(jPacket.wrap(ByteBuffer.wrap(buffer), 0, packet.getLength()));
+                }
+            } catch (IOException e) {
+                // The socket is closed at the end of the run
+            }
+        });
+        ackListener.setDaemon(true);
+        ackListener.start();
+
+        long start = System.nanoTime();
+        session.run();
+        long elapsed = System.nanoTime() - start;
+        receiving.join(1000);
+        receiver.close();
+        ackTimingWheel.stop();
+        dataSocket.close();
+        ackSocket.close();
+        sendChannel.close();
+
+        boolean intact = Arrays.equals(Files.readAllBytes(output.toPath()), content);
+        output.delete();
+        return new LoopbackTransfer(elapsed, dataPackets.get(), acks.get(), intact);
+    }
+
+    /**
+     * Returns an AckSender which sends the ACKs of transfers to DEST_ADDRESS to the ACK socket's own address, one at a
+     * time since the delayed ones are sent from a timing wheel's thread
+     *
+     * @param ackSocket the socket the sender listens for ACKs on
+     * @param acks      counts the ACKs sent
+     * @return the AckSender
+     */
+    static FileTransferReceiver.AckSender ackSender(DatagramSocket ackSocket, AtomicInteger acks) {
+        byte[] ackBuffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+        JPacketFlyweight ack = new JPacketFlyweight();
+        DatagramPacket ackPacket = new DatagramPacket(ackBuffer, 0, ackSocket.getLocalSocketAddress());
+        return (sourceAddress, sessionId, ackNumber, sackBits) -> {
+            synchronized (ack) {
+                ackPacket.setLength(writeAck(ack, ackBuffer, sourceAddress, DEST_ADDRESS, sessionId, ackNumber,
+                        sackBits).length());
+                ackSocket.send(ackPacket);
+                acks.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Writes an ACK into the buffer, as Rover.sendAck does
+     *
+     * @param ack           the flyweight to write it with
+     * @param buffer        the buffer to write it to, at least JPacketFlyweight.MAX_HEADER_SIZE bytes long
+     * @param sourceAddress the source of the transfer, which the ACK goes to
+     * @param destAddress   the destination of the transfer, which sends the ACK
+     * @param sessionId     the session of the transfer
+     * @param ackNumber     the next sequence number the receiver waits for
+     * @param sackBits      the packets received above the ACK number
+     * @return the flyweight, wrapping the ACK
+     */
+    static JPacketFlyweight writeAck(JPacketFlyweight ack, byte[] buffer, int sourceAddress, int destAddress,
+                                     int sessionId, int ackNumber, long sackBits) {
+        return ack.wrap(ByteBuffer.wrap(buffer), 0, 0).writeHeader(
+                BitUtils.setBitInByte((byte) 0, JPacketUtil.ACK_INDEX), sourceAddress, destAddress, sessionId, 0,
+                ackNumber, sackBits, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,194 @@
+package rover;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends files over one or several equal-cost paths, kept per flow or with the packets striped over them, and prints
+ * the goodput and the packets sent more than once. The paths are simulated links of LINK_RATE bytes per second with
+ * a drop-tail queue of QUEUE_LIMIT packets and a fixed delay each. The real sender and receiver run on one thread, the
+ * path of every packet is picked through a forwarding table compiled with the equal-cost next hops, as Rover does.
+ * (Just for evaluating equal-cost multipath, can be ignored)
+ */
+class MultipathBenchmark {
+    // Held on to, or the level would be lost once the logger is garbage collected
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            FILE_SIZE = 4_000_000,
+            WINDOW_SIZE = 128,
+            PAYLOAD_SIZE = 1400,
+            LINK_RATE = 2_500_000, // bytes per second, 20 Mbit/s per path
+            QUEUE_LIMIT = 32, // packets waiting for a link
+            SOURCE_ADDRESS = IPUtils.toInt((byte) 10, (byte) 1, (byte) 0, (byte) 1),
+            DEST_ADDRESS = IPUtils.toInt((byte) 10, (byte) 2, (byte) 0, (byte) 1);
+
+    /**
+     * A packet on its way over a path, or an ACK on its way back
+     */
+    private static class Delivery {
+        final long time;
+        final int transfer;
+        final byte[] packet;
+
+        Delivery(long time, int transfer, byte[] packet) {
+            this.time = time;
+            this.transfer = transfer;
+            this.packet = packet;
+        }
+    }
+
+    /**
+     * Driver function which runs the transfers for every setting
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        LOGGER.setLevel(Level.WARNING);
+        File fileToSend = File.createTempFile("multipath", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+
+        int threshold = FileTransferSender.DUPLICATE_THRESHOLD;
+        System.out.println(FILE_SIZE / 1_000_000 + "MB per transfer, paths of " + LINK_RATE * 8 / 1_000_000 +
+                " Mbit/s with a queue of " + QUEUE_LIMIT + " packets");
+        // The first run warms the JIT up
+        run(fileToSend, content, 1, new int[]{5}, false, threshold, false);
+        run(fileToSend, content, 1, new int[]{5}, false, threshold, true);
+        run(fileToSend, content, 1, new int[]{5, 5}, false, threshold, true);
+        run(fileToSend, content, 2, new int[]{5}, false, threshold, true);
+        run(fileToSend, content, 2, new int[]{5, 5}, false, threshold, true);
+        run(fileToSend, content, 1, new int[]{5, 5}, true, threshold * 2, true);
+        run(fileToSend, content, 1, new int[]{5, 5, 5, 5}, true, threshold * 4, true);
+        run(fileToSend, content, 1, new int[]{5, 15}, true, threshold, true);
+        run(fileToSend, content, 1, new int[]{5, 15}, true, threshold * 2, true);
+        System.exit(0);
+    }
+
+    /**
+     * Sends the file once per transfer, all of them at the same time, and prints the results if asked to
+     *
+     * @param transfers          the number of transfers, each one a flow of its own
+     * @param delays             the delay of every path, in milliseconds
+     * @param stripe             true to stripe the packets over the paths, false to keep every flow on one path
+     * @param duplicateThreshold the senders' fast retransmit threshold
+     */
+    private static void run(File fileToSend, byte[] content, int transfers, int[] delays, boolean stripe,
+                            int duplicateThreshold, boolean print) throws Exception {
+        // Every path is a next hop of the route to the destination, the first one is the routing table's
+        RoutingTable routingTable = new IntRoutingTable();
+        EqualCostNextHops equalCostNextHops = new EqualCostNextHops(delays.length);
+        Map<InetSocketAddress, Integer> paths = new HashMap<>();
+        for (int path = 0; path < delays.length; path++) {
+            int nextHop = IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) (path + 1));
+            if (path == 0) {
+                routingTable.put(DEST_ADDRESS, (byte) 24, nextHop, (byte) 2);
+            } else {
+                equalCostNextHops.add(DEST_ADDRESS, nextHop);
+            }
+            paths.put(new InetSocketAddress(IPUtils.toInetAddress(nextHop), 6161), path);
+        }
+        ForwardingTable forwardingTable = ForwardingTable.compile(routingTable, equalCostNextHops, 16, 6161, 5454);
+        int route = forwardingTable.lookup(DEST_ADDRESS);
+
+        long[] linkBusyUntil = new long[delays.length];
+        long serializationTime = (long) (PAYLOAD_SIZE + JPacketFlyweight.MAX_HEADER_SIZE) * 1_000_000_000 / LINK_RATE;
+        PriorityQueue<Delivery> deliveries = new PriorityQueue<>((a, b) -> Long.compare(a.time, b.time));
+        PriorityQueue<Delivery> acks = new PriorityQueue<>((a, b) -> Long.compare(a.time, b.time));
+        long[] packetsSent = new long[1];
+
+        FileTransferSender[] senders = new FileTransferSender[transfers];
+        FileTransferReceiver[] receivers = new FileTransferReceiver[transfers];
+        File[] outputs = new File[transfers];
+        int[] ackPaths = new int[transfers];
+        boolean[] done = new boolean[transfers];
+        for (int transfer = 0; transfer < transfers; transfer++) {
+            int sessionId = transfer + 1, flow = transfer;
+            int flowHash = JPacketFlyweight.flowHash(DEST_ADDRESS, SOURCE_ADDRESS, sessionId);
+            ackPaths[flow] = paths.get(forwardingTable.forwardingAddress(route, flowHash, false));
+            senders[transfer] = new FileTransferSender(fileToSend.getPath(), DEST_ADDRESS, SOURCE_ADDRESS, sessionId,
+                    WINDOW_SIZE, PAYLOAD_SIZE, 0, 0, 0, duplicateThreshold, new RTTEstimator(),
+                    CongestionController.forName("aimd"), packet -> {
+                packetsSent[0]++;
+                int path = paths.get(forwardingTable.forwardingAddress(route,
+                        stripe ? packet.seqNumber : flowHash, false));
+                long now = System.nanoTime(), departure = Math.max(now, linkBusyUntil[path]) + serializationTime;
+                // Drop-tail: the packet is lost if the queue of its link is full
+                if (departure - now > QUEUE_LIMIT * serializationTime) {
+                    return;
+                }
+                linkBusyUntil[path] = departure;
+                byte[] copy = new byte[packet.length];
+                packet.buffer.clear().limit(packet.length);
+                packet.buffer.get(copy);
+                deliveries.add(new Delivery(departure + delays[path] * 1_000_000L, flow, copy));
+            });
+
+            outputs[transfer] = File.createTempFile("multipath", "");
+            receivers[transfer] = new FileTransferReceiver(outputs[transfer].getPath(), WINDOW_SIZE, 1, 10,
+                    new TimingWheel(5, 64), (sourceAddress, session, ackNumber, sackBits) -> {
+                byte[] ack = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+                LoopbackTransfer.writeAck(new JPacketFlyweight(), ack, sourceAddress, DEST_ADDRESS, session, ackNumber,
+                        sackBits);
+                // The ACKs of a flow keep to its path, and are too small to queue
+                acks.add(new Delivery(System.nanoTime() + delays[ackPaths[flow]] * 1_000_000L, flow, ack));
+            });
+        }
+
+        JPacketFlyweight jPacket = new JPacketFlyweight();
+        long start = System.nanoTime();
+        int transfersLeft = transfers;
+        while (transfersLeft > 0) {
+            for (FileTransferSender sender : senders) {
+                if (!sender.isDone()) {
+                    sender.resendExpired();
+                    sender.fillWindow();
+                }
+            }
+            long now = System.nanoTime();
+            while (!deliveries.isEmpty() && deliveries.peek().time <= now) {
+                Delivery delivery = deliveries.poll();
+                if (receivers[delivery.transfer].onPacket(jPacket.wrap(ByteBuffer.wrap(delivery.packet), 0,
+                        delivery.packet.length), delivery.packet) && !done[delivery.transfer]) {
+                    done[delivery.transfer] = true;
+                    transfersLeft--;
+                }
+            }
+            while (!acks.isEmpty() && acks.peek().time <= now) {
+                Delivery ack = acks.poll();
+                senders[ack.transfer].onAck(jPacket.wrap(ByteBuffer.wrap(ack.packet), 0, ack.packet.length));
+            }
+            LockSupport.parkNanos(20_000);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        boolean intact = true;
+        for (int transfer = 0; transfer < transfers; transfer++) {
+            senders[transfer].close();
+            receivers[transfer].close();
+            intact &= Arrays.equals(Files.readAllBytes(outputs[transfer].toPath()), content);
+            outputs[transfer].delete();
+        }
+        if (print) {
+            long packets = (long) transfers * FecUtils.packetCount(FILE_SIZE, PAYLOAD_SIZE);
+            System.out.printf("%d transfer%s  %d path%s %-12s  %-10s  threshold %2d  %6.2f MB/s  " +
+                            "%5.1f%% packets resent  %s%n", transfers, transfers > 1 ? "s" : " ", delays.length,
+                    delays.length > 1 ? "s" : " ", Arrays.toString(delays), delays.length == 1 ? "" :
+                            stripe ? "per packet" : "per flow", duplicateThreshold,
+                    (double) transfers * FILE_SIZE / 1e6 / (elapsed / 1e9), (packetsSent[0] - packets) * 100.0 / packets,
+                    intact ? "intact" : "CORRUPTED");
+        }
+    }
+}
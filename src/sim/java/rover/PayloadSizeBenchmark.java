@@ -0,0 +1,124 @@
+package rover;
+
+import java.util.*;
+
+/**
+ * Simulates a JRTP transfer over a lossy link with payloads cut to fit the MTU and with payloads larger than it, and
+ * prints the goodput of each. (Just for evaluating the payload size, can be ignored)
+ * <p>
+ * A packet larger than the MTU is sent as several IP fragments and is lost if any one of them is, so its chance of
+ * getting through drops with every fragment and every loss resends all of them. Each fragment carries an IP header of
+ * its own. The link carries LINK_RATE bytes per millisecond, time advances in steps of 1 millisecond and the sender
+ * uses the same RTTEstimator as the real one with a fixed window, so only the payload size differs between runs.
+ */
+class PayloadSizeBenchmark {
+    private final static int
+            MTU = 1500,
+            IP_HEADER_SIZE = 20,
+            UDP_HEADER_SIZE = 8,
+            LINK_RATE = 1250, // bytes per millisecond, 10 Mbit/s
+            ONE_WAY_DELAY = 10, // in milliseconds
+            WINDOW_SIZE = 64,
+            FILE_SIZE = 10_000_000,
+            SIMULATION_TIME = 600_000; // gives up after this many milliseconds
+
+    /**
+     * Runs the simulation for the given payload size and fragment loss rate
+     *
+     * @param payloadSize  the chunk size of the transfer
+     * @param fragmentLoss the probability of losing each IP fragment
+     */
+    private static void simulate(int payloadSize, double fragmentLoss) {
+        Random random = new Random(42);
+        int packetCount = (FILE_SIZE + payloadSize - 1) / payloadSize;
+        int datagramSize = UDP_HEADER_SIZE + JPacketFlyweight.MAX_HEADER_SIZE + payloadSize;
+        int fragmentPayload = (MTU - IP_HEADER_SIZE) / 8 * 8;
+        int fragments = (datagramSize + fragmentPayload - 1) / fragmentPayload;
+        int wireSize = datagramSize + fragments * IP_HEADER_SIZE;
+
+        RTTEstimator rttEstimator = new RTTEstimator();
+        TreeMap<Integer, InFlightPacket> unackedPackets = new TreeMap<>();
+        ArrayDeque<Integer> linkQueue = new ArrayDeque<>();
+        // {time, seqNumber}, for ACKs arriving at the sender
+        PriorityQueue<long[]> acks = new PriorityQueue<>(Comparator.comparingLong(event -> event[0]));
+        int nextSeqNumber = 0, acked = 0;
+        long lastBackoffTime = -1, sent = 0, linkBytes = 0, now;
+
+        for (now = 0; now < SIMULATION_TIME && acked < packetCount; now++) {
+            // The link drains LINK_RATE bytes every millisecond, a packet leaves once all of its bytes are through
+            linkBytes += LINK_RATE;
+            while (!linkQueue.isEmpty() && linkBytes >= wireSize) {
+                linkBytes -= wireSize;
+                int seqNumber = linkQueue.poll();
+                boolean lost = false;
+                for (int fragment = 0; fragment < fragments; fragment++) {
+                    lost |= random.nextDouble() < fragmentLoss;
+                }
+                // The ACK fits in one fragment
+                if (!lost && random.nextDouble() >= fragmentLoss) {
+                    acks.add(new long[]{now + 2 * ONE_WAY_DELAY, seqNumber});
+                }
+            }
+            if (linkQueue.isEmpty()) {
+                linkBytes = 0;
+            }
+
+            while (!acks.isEmpty() && acks.peek()[0] <= now) {
+                InFlightPacket ackedPacket = unackedPackets.remove((int) acks.poll()[1]);
+                if (ackedPacket == null) {
+                    continue;
+                }
+                if (!ackedPacket.retransmitted) {
+                    rttEstimator.addSample(now - ackedPacket.firstSendTime);
+                }
+                acked++;
+            }
+
+            for (Map.Entry<Integer, InFlightPacket> unacked : unackedPackets.entrySet()) {
+                InFlightPacket inFlightPacket = unacked.getValue();
+                if (inFlightPacket.retransmitDeadline > now) {
+                    continue;
+                }
+                if (inFlightPacket.lastSendTime >= lastBackoffTime) {
+                    rttEstimator.backoff();
+                    lastBackoffTime = now;
+                }
+                inFlightPacket.resent(now, rttEstimator.getRto());
+                linkQueue.add(unacked.getKey());
+                sent++;
+            }
+
+            int baseSeqNumber = unackedPackets.isEmpty() ? nextSeqNumber : unackedPackets.firstKey();
+            while (nextSeqNumber < packetCount && nextSeqNumber < baseSeqNumber + WINDOW_SIZE) {
+                InFlightPacket inFlightPacket = new InFlightPacket(0);
+                inFlightPacket.sent(nextSeqNumber, 0, now, rttEstimator.getRto());
+                unackedPackets.put(nextSeqNumber, inFlightPacket);
+                linkQueue.add(nextSeqNumber);
+                nextSeqNumber++;
+                sent++;
+            }
+        }
+
+        double goodput = (double) acked / packetCount * FILE_SIZE / now * 1000 / 1e6;
+        System.out.printf("payload %5d bytes (%d fragments)  fragment loss %4.1f%%  %s in %6.1fs  " +
+                        "goodput %5.3f MB/s  %6d packets sent for %6d%n",
+                payloadSize, fragments, fragmentLoss * 100, acked == packetCount ? "done" : "NOT DONE",
+                now / 1000.0, goodput, sent, packetCount);
+    }
+
+    /**
+     * Runs the simulation for an MTU sized and an oversized payload at several loss rates
+     *
+     * @param args arguments passed to the main function
+     */
+    public static void main(String[] args) {
+        int mtuPayload = MTU - IP_HEADER_SIZE - UDP_HEADER_SIZE - JPacketFlyweight.MAX_HEADER_SIZE;
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer over a " + LINK_RATE * 8 / 1000 +
+                " Mbit/s link with a " + 2 * ONE_WAY_DELAY + "ms RTT and a window of " + WINDOW_SIZE + " packets");
+        for (double fragmentLoss : new double[]{0, 0.01, 0.05, 0.10}) {
+            for (int payloadSize : new int[]{5000, mtuPayload}) {
+                simulate(payloadSize, fragmentLoss);
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package rover;
+
+import java.util.*;
+
+/**
+ * Simulates a network of rovers running RIP, kills one of them and prints how long the others take to converge on
+ * the new routes. (Just for evaluating the count to infinity protection, can be ignored)
+ * <p>
+ * The rovers use the real routing table, RIP encoding and decoding and the same update rules as Rover: updates every
+ * ROUTE_UPDATE_TIME, triggered updates after a random hold-down and a neighbor is dead after ROVER_DEATH_TIME without
+ * hearing from it. Time advances in steps of 1 millisecond. Three ways of protecting against count to infinity are
+ * compared:
+ * <ul>
+ * <li>none: the same table is multicast to every neighbor and believed as is</li>
+ * <li>receive: the same table is multicast to every neighbor, which reads the entries that use it as their next hop
+ * as INFINITY</li>
+ * <li>poison: the same table is multicast to every neighbor as in receive, followed by split horizon and poisoned
+ * reverse: every neighbor gets the routes through it poisoned, multicast and tagged with the neighbor they are for</li>
+ * </ul>
+ */
+class RIPConvergenceBenchmark {
+    private final static int
+            ROUTE_UPDATE_TIME = 5000, // in milliseconds
+            TRIGGERED_UPDATE_MIN_DELAY = 500,
+            TRIGGERED_UPDATE_MAX_DELAY = 1500,
+            ROVER_DEATH_TIME = 7000,
+            LINK_DELAY = 5,
+            DEATH_AT = 30000,
+            SIMULATION_TIME = 150000,
+            RUNS = 20,
+            INFINITY = RIPPacketUtil.INFINITY;
+    private final static byte SUBNET_MASK = 24, RIP_UPDATE = 2;
+
+    /**
+     * State of one simulated rover
+     */
+    private static class SimRover {
+        final int index, privateAddress, publicAddress;
+        final byte roverId;
+        final RoutingTable routingTable = new IntRoutingTable();
+        final ChangedRoutes changedRoutes = new ChangedRoutes();
+        final Set<Integer> neighbors = new LinkedHashSet<>(); // rover indexes of the neighbors heard from
+        final long[] lastHeard;
+        long nextRegularUpdate, triggeredUpdateAt = -1;
+        boolean alive = true;
+
+        SimRover(int index, int rovers, long firstUpdate) {
+            this.index = index;
+            this.roverId = (byte) (index + 1);
+            this.privateAddress = IPUtils.toInt((byte) 10, (byte) (index + 1), (byte) 0, (byte) 1);
+            this.publicAddress = IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) (index + 1));
+            this.lastHeard = new long[rovers];
+            this.nextRegularUpdate = firstUpdate;
+        }
+    }
+
+    /**
+     * An update on its way to a rover
+     */
+    private static class Delivery {
+        final long time;
+        final int from, to;
+        final byte[] packet;
+
+        Delivery(long time, int from, int to, byte[] packet) {
+            this.time = time;
+            this.from = from;
+            this.to = to;
+            this.packet = packet;
+        }
+    }
+
+    private final String mode;
+    private final int[][] links;
+    private final SimRover[] rovers;
+    private final Random random;
+    private final ArrayDeque<Delivery> deliveries = new ArrayDeque<>();
+    private final RIPEntryBuffer entries = new RIPEntryBuffer();
+    private final RIPUpdate update = new RIPUpdate();
+    private long now, lastChange, updatesSent, bytesSent;
+
+    /**
+     * Sets up the simulation
+     *
+     * @param mode  the count to infinity protection, one of none, receive and poison
+     * @param links the neighbors of every rover
+     * @param seed  the seed for the update timers
+     */
+    private RIPConvergenceBenchmark(String mode, int[][] links, long seed) {
+        this.mode = mode;
+        this.links = links;
+        this.random = new Random(seed);
+        this.rovers = new SimRover[links.length];
+        for (int index = 0; index < links.length; index++) {
+            rovers[index] = new SimRover(index, links.length, random.nextInt(ROUTE_UPDATE_TIME));
+        }
+    }
+
+    /**
+     * Runs the simulation, killing the given rover at DEATH_AT
+     *
+     * @param victim the index of the rover to kill
+     * @return the milliseconds between the death and the last route change, or -1 if the routes ended up wrong
+     */
+    private long run(int victim) {
+        for (now = 0; now < SIMULATION_TIME; now++) {
+            if (now == DEATH_AT) {
+                rovers[victim].alive = false;
+                lastChange = now;
+            }
+
+            while (!deliveries.isEmpty() && deliveries.peek().time <= now) {
+                Delivery delivery = deliveries.poll();
+                if (rovers[delivery.to].alive && rovers[delivery.from].alive) {
+                    receive(rovers[delivery.to], delivery.from, delivery.packet);
+                }
+            }
+
+            for (SimRover rover : rovers) {
+                if (!rover.alive) {
+                    continue;
+                }
+                for (Iterator<Integer> iterator = rover.neighbors.iterator(); iterator.hasNext(); ) {
+                    int neighbor = iterator.next();
+                    if (now - rover.lastHeard[neighbor] >= ROVER_DEATH_TIME) {
+                        iterator.remove();
+                        registerNeighborDeath(rover, rovers[neighbor]);
+                    }
+                }
+                if (now >= rover.nextRegularUpdate) {
+                    sendUpdates(rover, false);
+                    rover.nextRegularUpdate += ROUTE_UPDATE_TIME;
+                }
+                if (rover.triggeredUpdateAt >= 0 && now >= rover.triggeredUpdateAt) {
+                    rover.triggeredUpdateAt = -1;
+                    if (rover.changedRoutes.size() > 0) {
+                        sendUpdates(rover, true);
+                    }
+                }
+            }
+        }
+        return routesAreCorrect(victim) ? lastChange - DEATH_AT : -1;
+    }
+
+    /**
+     * Sends the rover's update to its neighbors, like Rover.sendRIPUpdate and Rover.sendTriggeredUpdate
+     */
+    private void sendUpdates(SimRover rover, boolean changedOnly) {
+        if (changedOnly) {
+            update.startFromChanged(rover.changedRoutes);
+        } else {
+            update.startFromTable(rover.routingTable);
+        }
+        rover.changedRoutes.clear();
+
+        do {
+            multicast(rover, encode(rover));
+            if (mode.equals("poison")) {
+                for (int neighbor : rover.neighbors) {
+                    byte[] poisoned = encodePoisoned(rover, rovers[neighbor]);
+                    if (poisoned.length > RIPPacketUtil.HEADER_SIZE) {
+                        multicast(rover, poisoned);
+                    }
+                }
+            }
+        } while (update.nextChunk());
+    }
+
+    /**
+     * Delivers the packet to every rover linked to the sender
+     */
+    private void multicast(SimRover rover, byte[] packet) {
+        for (int neighbor : links[rover.index]) {
+            deliveries.add(new Delivery(now + LINK_DELAY, rover.index, neighbor, packet));
+        }
+        updatesSent++;
+        bytesSent += packet.length;
+    }
+
+    /**
+     * Encodes the current chunk of the rover's update for everyone
+     */
+    private byte[] encode(SimRover rover) {
+        update.encodeChunk(RIP_UPDATE, rover.roverId, rover.routingTable, Collections.emptyMap());
+        return Arrays.copyOf(update.packets[0], update.packetLengths[0]);
+    }
+
+    /**
+     * Encodes the routes of the current chunk through the given neighbor, poisoned, for that neighbor alone
+     */
+    private byte[] encodePoisoned(SimRover rover, SimRover neighbor) {
+        byte[] buffer = new byte[RIPPacketUtil.MAX_PACKET_SIZE];
+        int length = update.encodePoisonedChunk(RIP_UPDATE, rover.roverId, rover.routingTable, neighbor.roverId,
+                neighbor.publicAddress, buffer);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Merges a received update into the rover's table, like Rover.updateEntries
+     */
+    private void receive(SimRover rover, int from, byte[] packet) {
+        RIPPacketUtil.decodeRIPPacket(packet, packet.length, entries);
+        SimRover neighbor = rovers[from];
+        rover.neighbors.add(from);
+        rover.lastHeard[from] = now;
+
+        setRoute(rover, neighbor.privateAddress, SUBNET_MASK, neighbor.publicAddress, (byte) 1);
+        if (entries.neighborId != RIPPacketUtil.EVERYONE && entries.neighborId != rover.roverId) {
+            return;
+        }
+        for (int index = 0; index < entries.size; index++) {
+            if (entries.ipAddresses[index] == rover.privateAddress) {
+                continue;
+            }
+            int entryVal = mode.equals("none") || entries.nextHops[index] != rover.publicAddress ?
+                    entries.metrics[index] : INFINITY;
+            byte newMetric = (byte) Math.min(INFINITY, 1 + entryVal);
+            int slot = rover.routingTable.find(entries.ipAddresses[index]);
+            if (slot == RoutingTable.NO_ROUTE || rover.routingTable.nextHop(slot) == neighbor.publicAddress ||
+                    rover.routingTable.metric(slot) > 1 + entryVal) {
+                setRoute(rover, entries.ipAddresses[index], entries.subnetMasks[index], neighbor.publicAddress,
+                        newMetric);
+            }
+        }
+    }
+
+    /**
+     * Sets every route through the dead neighbor to INFINITY, like Rover.registerNeighborDeath
+     */
+    private void registerNeighborDeath(SimRover rover, SimRover dead) {
+        RoutingTable table = rover.routingTable;
+        for (int slot = table.firstSlot(); slot != RoutingTable.NO_ROUTE; slot = table.nextSlot(slot)) {
+            if (table.ipAddress(slot) == dead.privateAddress || table.nextHop(slot) == dead.publicAddress) {
+                setRoute(rover, table.ipAddress(slot), table.subnetMask(slot), table.nextHop(slot), (byte) INFINITY);
+            }
+        }
+    }
+
+    /**
+     * Sets a route like Rover.setRoute and arms a triggered update if it changed
+     */
+    private void setRoute(SimRover rover, int ipAddress, byte subnetMask, int nextHop, byte metric) {
+        RoutingTable table = rover.routingTable;
+        int slot = table.find(ipAddress);
+        if (slot != RoutingTable.NO_ROUTE && table.subnetMask(slot) == subnetMask && table.nextHop(slot) == nextHop &&
+                table.metric(slot) == metric) {
+            return;
+        }
+        table.put(ipAddress, subnetMask, nextHop, metric);
+        rover.changedRoutes.add(ipAddress);
+        lastChange = now;
+        if (rover.triggeredUpdateAt < 0) {
+            rover.triggeredUpdateAt = now + TRIGGERED_UPDATE_MIN_DELAY +
+                    random.nextInt(TRIGGERED_UPDATE_MAX_DELAY - TRIGGERED_UPDATE_MIN_DELAY + 1);
+        }
+    }
+
+    /**
+     * Checks that every surviving rover has the shortest path metric to every other rover, and INFINITY to the dead
+     * one and to those which can't be reached anymore
+     */
+    private boolean routesAreCorrect(int victim) {
+        for (SimRover rover : rovers) {
+            if (!rover.alive) {
+                continue;
+            }
+            int[] distances = distancesFrom(rover.index, victim);
+            for (SimRover destination : rovers) {
+                if (destination == rover) {
+                    continue;
+                }
+                int slot = rover.routingTable.find(destination.privateAddress);
+                int metric = slot == RoutingTable.NO_ROUTE ? INFINITY : rover.routingTable.metric(slot);
+                if (metric != Math.min(INFINITY, distances[destination.index])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int[] distancesFrom(int source, int victim) {
+        int[] distances = new int[links.length];
+        Arrays.fill(distances, INFINITY);
+        distances[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(source));
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int next : links[current]) {
+                if (next != victim && distances[next] == INFINITY) {
+                    distances[next] = distances[current] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Returns the links of a line of rovers
+     */
+    private static int[][] line(int rovers) {
+        int[][] links = new int[rovers][];
+        for (int index = 0; index < rovers; index++) {
+            links[index] = index == 0 ? new int[]{1} :
+                    index == rovers - 1 ? new int[]{index - 1} : new int[]{index - 1, index + 1};
+        }
+        return links;
+    }
+
+    /**
+     * Returns the links of a ring of rovers
+     */
+    private static int[][] ring(int rovers) {
+        int[][] links = new int[rovers][];
+        for (int index = 0; index < rovers; index++) {
+            links[index] = new int[]{(index + rovers - 1) % rovers, (index + 1) % rovers};
+        }
+        return links;
+    }
+
+    /**
+     * Runs every protection on a few topologies and prints the mean convergence time after a rover dies
+     *
+     * @param args arguments passed to the main function
+     */
+    public static void main(String[] args) {
+        Object[][] scenarios = {
+                {"line of 6, end rover dies", line(6), 5},
+                {"line of 6, middle rover dies", line(6), 2},
+                {"ring of 6, a rover dies", ring(6), 0},
+        };
+        System.out.println("Time from a rover's death until the last route change, mean of " + RUNS + " runs " +
+                "(the death is noticed after " + ROVER_DEATH_TIME + "ms)");
+        for (Object[] scenario : scenarios) {
+            System.out.println(scenario[0]);
+            for (String mode : new String[]{"none", "receive", "poison"}) {
+                long totalTime = 0, totalUpdates = 0, totalBytes = 0;
+                int wrong = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    RIPConvergenceBenchmark benchmark = new RIPConvergenceBenchmark(mode, (int[][]) scenario[1], run);
+                    long convergenceTime = benchmark.run((Integer) scenario[2]);
+                    if (convergenceTime < 0) {
+                        wrong++;
+                    } else {
+                        totalTime += convergenceTime;
+                    }
+                    totalUpdates += benchmark.updatesSent;
+                    totalBytes += benchmark.bytesSent;
+                }
+                System.out.printf("  %-8s %7.0f ms  %6d updates of %8d bytes sent per run  %d runs with wrong routes%n",
+                        mode, wrong == RUNS ? Double.NaN : totalTime / (double) (RUNS - wrong), totalUpdates / RUNS,
+                        totalBytes / RUNS, wrong);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package rover;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Collections;
+
+/**
+ * Sends tables of a few thousand routes as RIPUpdate chunks over a loopback socket into a receive buffer of
+ * RIPPacketUtil.MAX_PACKET_SIZE bytes, and prints how many datagrams each table took and whether the receiver ended up
+ * with every route, which a single datagram read into Rover's old 1024 byte buffer couldn't do.
+ * (Just for evaluating the split RIP updates, can be ignored)
+ */
+class RIPScaleBenchmark {
+    /**
+     * Driver function which sends tables of 63 to 5000 routes
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        DatagramSocket sender = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        DatagramSocket receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        receiver.setReceiveBufferSize(1 << 20);
+        receiver.setSoTimeout(1000);
+
+        for (int routes : new int[]{63, 1000, 3000, 5000}) {
+            RoutingTable table = new IntRoutingTable();
+            for (int route = 0; route < routes; route++) {
+                table.put(IPUtils.toInt((byte) 10, (byte) (route >>> 8), (byte) route, (byte) 0), (byte) 24,
+                        IPUtils.toInt((byte) 192, (byte) 168, (byte) 0, (byte) (1 + route % 250)),
+                        (byte) (1 + route % 15));
+            }
+
+            // What the old receiver got: the first 1024 bytes of one datagram holding the whole table
+            int oldLength = RIPPacketUtil.HEADER_SIZE + routes * RIPPacketUtil.ENTRY_SIZE;
+            int oldRoutesReceived = (Math.min(1024, oldLength) - RIPPacketUtil.HEADER_SIZE) / RIPPacketUtil.ENTRY_SIZE;
+
+            RIPUpdate update = new RIPUpdate();
+            update.startFromTable(table);
+            DatagramPacket sent = new DatagramPacket(new byte[0], 0, receiver.getLocalSocketAddress());
+            byte[] receiveBuffer = new byte[RIPPacketUtil.MAX_PACKET_SIZE];
+            DatagramPacket received = new DatagramPacket(receiveBuffer, receiveBuffer.length);
+            RIPEntryBuffer entries = new RIPEntryBuffer();
+            RoutingTable receivedTable = new IntRoutingTable();
+            int datagrams = 0, largest = 0;
+            long start = System.nanoTime();
+            do {
+                int packets = update.encodeChunk((byte) 2, (byte) 1, table, Collections.emptyMap());
+                for (int packet = 0; packet < packets; packet++) {
+                    sent.setData(update.packets[packet], 0, update.packetLengths[packet]);
+                    sender.send(sent);
+                    largest = Math.max(largest, update.packetLengths[packet]);
+
+                    received.setLength(receiveBuffer.length);
+                    receiver.receive(received);
+                    datagrams++;
+                    RIPPacketUtil.decodeRIPPacket(received.getData(), received.getLength(), entries);
+                    for (int index = 0; index < entries.size; index++) {
+                        receivedTable.put(entries.ipAddresses[index], entries.subnetMasks[index],
+                                entries.nextHops[index], entries.metrics[index]);
+                    }
+                }
+            } while (update.nextChunk());
+            long elapsed = System.nanoTime() - start;
+
+            boolean same = receivedTable.size() == table.size();
+            for (int slot = table.firstSlot(); same && slot != RoutingTable.NO_ROUTE; slot = table.nextSlot(slot)) {
+                int receivedSlot = receivedTable.find(table.ipAddress(slot));
+                same = receivedSlot != RoutingTable.NO_ROUTE &&
+                        receivedTable.subnetMask(receivedSlot) == table.subnetMask(slot) &&
+                        receivedTable.nextHop(receivedSlot) == table.nextHop(slot) &&
+                        receivedTable.metric(receivedSlot) == table.metric(slot);
+            }
+            System.out.printf("%5d routes: old receiver got %4d, now %3d datagrams of at most %4d bytes gave %5d " +
+                            "routes (%s) in %.2fms%n", routes, oldRoutesReceived, datagrams, largest,
+                    receivedTable.size(), same ? "the same" : "DIFFERENT", elapsed / 1e6);
+        }
+        sender.close();
+        receiver.close();
+    }
+}
@@ -0,0 +1,105 @@
+package rover;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cuts a transfer short after a share of its packets were sent, some of them lost, as a restart of either rover would,
+ * then sends the file again in a new session and prints how many packets the new session sent and whether the file
+ * arrived intact, with a transfer id (resumed from the receiver's journal) and without (from scratch). The packets are
+ * handed from the sender to the receiver in memory. (Just for evaluating resumed transfers, can be ignored)
+ */
+class ResumeBenchmark {
+    // Held on to, or the level would be lost once the logger is garbage collected
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            FILE_SIZE = 8_000_000,
+            WINDOW_SIZE = 64,
+            PAYLOAD_SIZE = 1400;
+    private final static double LOSS = 0.05; // Of the packets of the session which is cut short
+
+    /**
+     * Driver function which cuts the transfer short at several points, then resumes it or starts it over
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        LOGGER.setLevel(Level.WARNING);
+        File fileToSend = File.createTempFile("resume", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+        long transferId = FileTransferSender.transferId(fileToSend.getPath());
+
+        int packetCount = FecUtils.packetCount(FILE_SIZE, PAYLOAD_SIZE);
+        System.out.println("A " + FILE_SIZE / 1_000_000 + "MB transfer of " + packetCount + " packets, " +
+                LOSS * 100 + "% of them lost before the cut");
+        for (double cut : new double[]{0.1, 0.5, 0.9}) {
+            for (boolean resumable : new boolean[]{false, true}) {
+                File output = File.createTempFile("resume", "");
+                String journal = FileTransferReceiver.journalFileName(output.getPath());
+                int cutAt = (int) (packetCount * cut);
+                transfer(fileToSend, output, resumable ? transferId : 0, 1, cutAt);
+                int sent = transfer(fileToSend, output, resumable ? transferId : 0, 2, Integer.MAX_VALUE);
+                boolean intact = Arrays.equals(Files.readAllBytes(output.toPath()), content);
+                System.out.printf("cut at %3.0f%%  %-12s  %5d packets sent after the cut (%5.1f%% of the file)  " +
+                                "journal %s  %s%n", cut * 100, resumable ? "resumed" : "from scratch", sent,
+                        sent * 100.0 / packetCount,
+                        !resumable ? "none" : new File(journal).exists() ? "LEFT BEHIND" : "deleted",
+                        intact ? "intact" : "CORRUPTED");
+                output.delete();
+            }
+        }
+    }
+
+    /**
+     * Sends the file in a new session, handing every packet over to the receiver and every ACK back to the sender,
+     * until it is done or maxPackets were sent. Only the session which is cut short loses packets.
+     *
+     * @return the number of packets sent
+     */
+    private static int transfer(File fileToSend, File output, long transferId, int sessionId, int maxPackets)
+            throws Exception {
+        Random random = new Random(sessionId);
+        boolean lossy = maxPackets != Integer.MAX_VALUE;
+        List<byte[]> packets = new ArrayList<>();
+        FileTransferSender sender = new FileTransferSender(fileToSend.getPath(), 2, 1, sessionId, WINDOW_SIZE,
+                PAYLOAD_SIZE, 0, 0, transferId, FileTransferSender.DUPLICATE_THRESHOLD, new RTTEstimator(),
+                CongestionController.forName("none"), packet -> {
+            byte[] copy = new byte[packet.length];
+            packet.buffer.clear().limit(packet.length);
+            packet.buffer.get(copy);
+            packets.add(copy);
+        });
+        byte[] ackBuffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+        JPacketFlyweight ack = new JPacketFlyweight(), jPacket = new JPacketFlyweight();
+        FileTransferReceiver receiver = new FileTransferReceiver(output.getPath(), WINDOW_SIZE, 1, 10,
+                new TimingWheel(5, 64), (sourceAddress, session, ackNumber, sackBits) -> sender.onAck(
+                LoopbackTransfer.writeAck(ack, ackBuffer, sourceAddress, 2, session, ackNumber, sackBits)));
+
+        int packetsSent = 0;
+        while (!sender.isDone() && packetsSent < maxPackets) {
+            packets.clear();
+            sender.fillWindow();
+            sender.resendExpired();
+            for (byte[] packet : packets) {
+                // The SYN always gets through, the transfer wouldn't start otherwise
+                if (packetsSent++ < maxPackets && (!lossy || packetsSent == 1 || random.nextDouble() >= LOSS)) {
+                    receiver.onPacket(jPacket.wrap(ByteBuffer.wrap(packet), 0, packet.length), packet);
+                }
+            }
+        }
+        sender.close();
+        receiver.close();
+        return packetsSent;
+    }
+}
@@ -0,0 +1,78 @@
+package rover;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how much memory a route takes in the InetAddress keyed map the Rover used to keep its routes in, and in
+ * an IntRoutingTable on and off the heap. (Just for evaluating the routing tables, can be ignored)
+ * <p>
+ * The heap numbers are the growth of the used heap after a full GC, so they are only as precise as System.gc() is.
+ */
+class RoutingTableMemoryBenchmark {
+    private final static int[] ROUTE_COUNTS = {1000, 10000, 100000};
+    private final static int NEXT_HOP = IPUtils.toInt((byte) 172, (byte) 17, (byte) 0, (byte) 2);
+
+    /**
+     * Returns the used heap after asking for a few GCs
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int count = 0; count < 5; count++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Returns the destination of the route with the given index, in the 10.0.0.0/8 range the rovers use
+     */
+    private static int destination(int index) {
+        return 10 << 24 | index << 8 | 1;
+    }
+
+    /**
+     * Driver function which prints the bytes per route for every table at every size
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println("Routes\tConcurrentHashMap\tIntRoutingTable (heap)\tIntRoutingTable (off heap)");
+        for (int routeCount : ROUTE_COUNTS) {
+            long before = usedHeap();
+            Map<InetAddress, RoutingTableEntry> map = new ConcurrentHashMap<>();
+            InetAddress nextHop = IPUtils.toInetAddress(NEXT_HOP);
+            for (int index = 0; index < routeCount; index++) {
+                InetAddress destination = IPUtils.toInetAddress(destination(index));
+                map.put(destination, new RoutingTableEntry(destination, (byte) 24, nextHop, (byte) 1));
+            }
+            double mapBytes = (double) (usedHeap() - before) / routeCount;
+
+            before = usedHeap();
+            RoutingTable heapTable = new IntRoutingTable();
+            for (int index = 0; index < routeCount; index++) {
+                heapTable.put(destination(index), (byte) 24, NEXT_HOP, (byte) 1);
+            }
+            double heapBytes = (double) (usedHeap() - before) / routeCount;
+
+            RoutingTable offHeapTable = new IntRoutingTable(16, true);
+            for (int index = 0; index < routeCount; index++) {
+                offHeapTable.put(destination(index), (byte) 24, NEXT_HOP, (byte) 1);
+            }
+            double offHeapBytes = (double) offHeapTable.memoryUsage() / routeCount;
+
+            System.out.printf("%d\t%.1f B/route\t\t%.1f B/route\t\t%.1f B/route (direct memory)%n",
+                    routeCount, mapBytes, heapBytes, offHeapBytes);
+
+            // keep the tables reachable until they have been measured
+            if (map.size() + heapTable.size() + offHeapTable.size() != 3 * routeCount) {
+                throw new IllegalStateException("Lost routes");
+            }
+        }
+    }
+}
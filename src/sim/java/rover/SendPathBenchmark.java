@@ -0,0 +1,158 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Measures the cost of sending the chunks of a file over loopback with every way of putting a JRTP packet together.
+ * (Just for evaluating the send path, can be ignored)
+ * <ul>
+ * <li>encoding: the chunk is read into a new array, JPacketUtil encodes a new packet and a new DatagramPacket is sent,
+ * as the Rover used to</li>
+ * <li>heap slot: the chunk is copied from the mapped file after the header in a window slot backed by an array, which
+ * the channel copies into a temporary direct buffer on every send, and the socket into a native buffer</li>
+ * <li>direct slot: the same with a slot which is a direct buffer, sent by the channel as is</li>
+ * <li>gathering write: the header in a small direct buffer and a slice of the mapped file are written together by a
+ * channel connected to the destination, nothing is copied before the kernel</li>
+ * </ul>
+ * Every packet goes to a socket on loopback which is never read, so the kernel drops the packets once its buffer is
+ * full and sending costs the same whatever was sent before. Rates are per CPU second of the sending thread.
+ */
+class SendPathBenchmark {
+    private final static int
+            FILE_SIZE = 64 << 20,
+            CHUNK_SIZE = 1447,
+            ROUNDS = 5;
+
+    /**
+     * Sends the chunk with the given sequence number
+     */
+    private interface SendPath {
+        void send(int seqNumber) throws IOException;
+    }
+
+    /**
+     * Driver function which prints the sending rate and the allocations of every path
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("chunks", "");
+        file.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(file.toPath(), content);
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        ByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+        int chunks = FILE_SIZE / CHUNK_SIZE;
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket sink = new DatagramSocket(0, loopback), socket = new DatagramSocket(0, loopback);
+        InetSocketAddress sinkAddress = (InetSocketAddress) sink.getLocalSocketAddress();
+        DatagramChannel channel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+        DatagramChannel connectedChannel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0))
+                .connect(sinkAddress);
+        InetAddress dest = IPUtils.toInetAddress(IPUtils.toInt((byte) 10, (byte) 2, (byte) 0, (byte) 1)),
+                source = IPUtils.toInetAddress(IPUtils.toInt((byte) 10, (byte) 1, (byte) 0, (byte) 1));
+        int destInt = IPUtils.toInt(dest), sourceInt = IPUtils.toInt(source);
+        byte flags = BitUtils.setBitInByte((byte) 0, JPacketUtil.NORMAL_INDEX);
+        int headerLength = JPacketFlyweight.headerLength(flags);
+        JPacketFlyweight jPacket = new JPacketFlyweight();
+
+        SendPath encoding = seqNumber -> {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            ByteBuffer view = mapped.duplicate();
+            view.position(seqNumber * CHUNK_SIZE);
+            view.get(chunk);
+            byte[] packet = JPacketUtil.jPacket2Arr(dest, source, 7, seqNumber, 0, flags, chunk, 0, 0, 0, 0, 0);
+            socket.send(new DatagramPacket(packet, packet.length, sinkAddress));
+        };
+
+        ByteBuffer heapBuffer = ByteBuffer.allocate(JPacketFlyweight.MAX_HEADER_SIZE + CHUNK_SIZE);
+        DatagramPacket heapPacket = new DatagramPacket(heapBuffer.array(), 0, sinkAddress);
+        SendPath heapChannel = seqNumber -> {
+            int length = fillSlot(heapBuffer, mapped, jPacket, flags, destInt, sourceInt, seqNumber);
+            channel.send(heapBuffer.clear().limit(length), sinkAddress);
+        };
+        SendPath heapSocket = seqNumber -> {
+            heapPacket.setLength(fillSlot(heapBuffer, mapped, jPacket, flags, destInt, sourceInt, seqNumber));
+            socket.send(heapPacket);
+        };
+
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(JPacketFlyweight.MAX_HEADER_SIZE + CHUNK_SIZE);
+        SendPath directChannel = seqNumber -> {
+            int length = fillSlot(directBuffer, mapped, jPacket, flags, destInt, sourceInt, seqNumber);
+            channel.send(directBuffer.clear().limit(length), sinkAddress);
+        };
+
+        ByteBuffer header = ByteBuffer.allocateDirect(JPacketFlyweight.MAX_HEADER_SIZE);
+        ByteBuffer payload = mapped.duplicate();
+        ByteBuffer[] datagram = {header, payload};
+        SendPath gathering = seqNumber -> {
+            jPacket.wrap(header, 0, 0).writeHeader(flags, destInt, sourceInt, 7, seqNumber, 0, 0, 0, 0, 0, 0, CHUNK_SIZE);
+            header.clear().limit(headerLength);
+            payload.limit(seqNumber * CHUNK_SIZE + CHUNK_SIZE).position(seqNumber * CHUNK_SIZE);
+            connectedChannel.write(datagram);
+        };
+
+        String[] names = {"encoding", "heap slot (channel)", "heap slot (socket)", "direct slot (channel)",
+                "gathering write (connected channel)"};
+        SendPath[] paths = {encoding, heapChannel, heapSocket, directChannel, gathering};
+        System.out.println(chunks + " chunks of " + CHUNK_SIZE + " bytes sent on one thread");
+        for (int path = 0; path < paths.length; path++) {
+            double[] result = new double[3];
+            for (int round = 0; round < ROUNDS; round++) {
+                result = run(paths[path], chunks);
+            }
+            // Only the last round is printed, the previous ones warm the JIT up
+            System.out.printf("%-36s %8.0f packets/s per core  %7.1f MB/s per core  %6.0f bytes allocated/packet%n",
+                    names[path], result[0], result[0] * CHUNK_SIZE / 1e6, result[2]);
+        }
+        fileChannel.close();
+    }
+
+    /**
+     * Writes the header of the chunk's packet at the start of the slot and copies the chunk from the mapping after it
+     *
+     * @return the length of the packet
+     */
+    private static int fillSlot(ByteBuffer slot, ByteBuffer mapped, JPacketFlyweight jPacket, byte flags,
+                                int destAddress, int sourceAddress, int seqNumber) {
+        int headerLength = JPacketFlyweight.headerLength(flags);
+        mapped.limit(seqNumber * CHUNK_SIZE + CHUNK_SIZE).position(seqNumber * CHUNK_SIZE);
+        slot.clear().position(headerLength);
+        slot.put(mapped);
+        mapped.clear();
+        jPacket.wrap(slot, 0, 0).writeHeader(flags, destAddress, sourceAddress, 7, seqNumber, 0, 0, 0, 0, 0,
+                0, CHUNK_SIZE);
+        return jPacket.length();
+    }
+
+    /**
+     * Sends every chunk once with the given path
+     *
+     * @return the packets sent per CPU second and per second, and the bytes allocated per packet
+     */
+    private static double[] run(SendPath path, int chunks) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedStart = threads.getThreadAllocatedBytes(thread);
+        long cpuStart = threads.getCurrentThreadCpuTime(), start = System.nanoTime();
+        for (int seqNumber = 0; seqNumber < chunks; seqNumber++) {
+            path.send(seqNumber);
+        }
+        long cpuTime = threads.getCurrentThreadCpuTime() - cpuStart, elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedStart;
+        return new double[]{chunks * 1e9 / cpuTime, chunks * 1e9 / elapsed, (double) allocated / chunks};
+    }
+}
@@ -0,0 +1,158 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs hundreds of transfers at once over loopback, each one a SendSession on the executor the rover uses, and checks
+ * that every file arrives intact. Reports how long it took and the most platform threads alive at once, which stays
+ * flat with virtual threads (Java 21 onwards) and grows with the sessions on the fallback thread pool.
+ * (Just for evaluating the sessions, can be ignored)
+ */
+class SendSessionBenchmark {
+    private final static int
+            SESSIONS = 500,
+            FILE_SIZE = 50_000,
+            WINDOW_SIZE = 8,
+            MAX_PAYLOAD_SIZE = 1000,
+            SOURCE_ADDRESS = IPUtils.toInt((byte) 10, (byte) 1, (byte) 0, (byte) 1),
+            DEST_ADDRESS = IPUtils.toInt((byte) 10, (byte) 2, (byte) 0, (byte) 1);
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        // Every session logs its last chunk and its end
+        Logger.getLogger("ROVER").setLevel(Level.WARNING);
+
+        File directory = Files.createTempDirectory("sessions").toFile();
+        File fileToSend = new File(directory, "file");
+        byte[] content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket dataSocket = new DatagramSocket(0, loopback), ackSocket = new DatagramSocket(0, loopback);
+        DatagramChannel sendChannel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+        dataSocket.setReceiveBufferSize(1 << 22);
+        ackSocket.setReceiveBufferSize(1 << 22);
+        Map<Integer, SendSession> sessions = new ConcurrentHashMap<>();
+        CountDownLatch received = new CountDownLatch(SESSIONS), sent = new CountDownLatch(SESSIONS);
+
+        Thread receiver = new Thread(() -> receive(dataSocket, ackSocket, directory, received));
+        receiver.setDaemon(true);
+        receiver.start();
+        Thread ackListener = new Thread(() -> {
+            byte[] buffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE];
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            JPacketFlyweight ack = new JPacketFlyweight();
+            try {
+                while (true) {
+                    packet.setLength(buffer.length);
+                    ackSocket.receive(packet);
+                    SendSession session = sessions.get(ack.wrap(ByteBuffer.wrap(buffer), 0, packet.getLength())
+                            .sessionId());
+                    if (session != null) {
+                        session.onAck(ack);
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        ackListener.setDaemon(true);
+        ackListener.start();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        int threadsBefore = threads.getThreadCount();
+        ExecutorService executor = SendSession.newSessionExecutor();
+        long start = System.nanoTime();
+        for (int sessionId = 0; sessionId < SESSIONS; sessionId++) {
+            int id = sessionId;
+            executor.execute(() -> {
+                try {
+                    SendSession session = new SendSession(new FileTransferSender(fileToSend.getPath(), DEST_ADDRESS,
+                            SOURCE_ADDRESS, id, WINDOW_SIZE, MAX_PAYLOAD_SIZE, 0, 0, 0,
+                            FileTransferSender.DUPLICATE_THRESHOLD, new RTTEstimator(),
+                            CongestionController.forName("aimd"), packet -> sendChannel.send(
+                            packet.buffer.clear().limit(packet.length), dataSocket.getLocalSocketAddress())));
+                    sessions.put(id, session);
+                    session.run();
+                    sent.countDown();
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        boolean done = sent.await(2, TimeUnit.MINUTES) && received.await(10, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        int intact = 0;
+        for (int sessionId = 0; sessionId < SESSIONS; sessionId++) {
+            File output = new File(directory, "OUTPUT_FILE_" + sessionId);
+            if (output.exists() && Arrays.equals(Files.readAllBytes(output.toPath()), content)) {
+                intact++;
+            }
+            output.delete();
+        }
+        fileToSend.delete();
+        directory.delete();
+
+        System.out.printf("Java %s, %s: %d sessions of %d bytes %s in %.0fms, %d of %d files intact, " +
+                        "at most %d platform threads (%d before)%n", Runtime.version(),
+                executor.getClass().getSimpleName(), SESSIONS, FILE_SIZE, done ? "done" : "NOT DONE", elapsed / 1e6,
+                intact, SESSIONS, threads.getPeakThreadCount(), threadsBefore);
+        System.exit(0);
+    }
+
+    /**
+     * Receives the packets of every session on the data socket and acknowledges them to the ACK socket, like the
+     * destination rover would
+     */
+    private static void receive(DatagramSocket dataSocket, DatagramSocket ackSocket, File directory,
+                                CountDownLatch received) {
+        byte[] buffer = new byte[JPacketFlyweight.MAX_HEADER_SIZE + MAX_PAYLOAD_SIZE];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        JPacketFlyweight jPacket = new JPacketFlyweight();
+        Map<Integer, FileTransferReceiver> receivers = new HashMap<>();
+        TimingWheel ackTimingWheel = new TimingWheel("ACK Timing Wheel", 5, 64);
+        FileTransferReceiver.AckSender ackSender = LoopbackTransfer.ackSender(ackSocket, new AtomicInteger());
+        try {
+            while (true) {
+                packet.setLength(buffer.length);
+                dataSocket.receive(packet);
+                jPacket.wrap(byteBuffer, 0, packet.getLength());
+                FileTransferReceiver fileReceiver = receivers.get(jPacket.sessionId());
+                if (fileReceiver == null) {
+                    fileReceiver = new FileTransferReceiver(
+                            new File(directory, "OUTPUT_FILE_" + jPacket.sessionId()).getPath(), WINDOW_SIZE,
+                            2, 10, ackTimingWheel, ackSender);
+                    receivers.put(jPacket.sessionId(), fileReceiver);
+                }
+                if (fileReceiver.onPacket(jPacket, buffer)) {
+                    fileReceiver.close();
+                    received.countDown();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package rover;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs hundreds of real rovers on an InMemoryNetwork, a torus where every rover is linked to the four around it, and
+ * prints how long their routes take to converge, in virtual time and in the time the simulation took to run. Then one
+ * rover is switched off and the others converge again, and a file is sent across the torus over lossy links which
+ * reorder datagrams. The first run is repeated with the same seed, which has to come out the same.
+ * (Just for evaluating the simulated network, can be ignored)
+ */
+class SimulatedNetworkBenchmark {
+    // Held on to, or the level would be lost once the logger is garbage collected
+    private final static Logger LOGGER = Logger.getLogger("ROVER");
+    private final static int
+            SIDE = 15, // 225 rovers, at most 14 hops apart
+            MULTICAST_PORT = 520,
+            MTU = 1500,
+            CHECK_EVERY = 100, // Virtual milliseconds between the checks of the routes
+            TIME_LIMIT = 300_000, // Virtual milliseconds after which a run gives up
+            FILE_SIZE = 500_000,
+            INFINITY = RIPPacketUtil.INFINITY;
+    private final static long SEED = 42;
+
+    private final InMemoryNetwork network;
+    private final InMemoryNetwork.Host[] hosts;
+    private final Rover[] rovers;
+    private final boolean[] crashed;
+
+    /**
+     * Builds the torus and starts every rover, on the event loop as it has to on a simulated network
+     *
+     * @param seed        the seed of the network
+     * @param link        the properties of every link
+     * @param fileToSend  a file the first rover sends to the rover farthest from it, or null
+     */
+    SimulatedNetworkBenchmark(long seed, InMemoryNetwork.Link link, String fileToSend) throws IOException {
+        network = new InMemoryNetwork(seed, MTU);
+        hosts = new InMemoryNetwork.Host[SIDE * SIDE];
+        rovers = new Rover[SIDE * SIDE];
+        crashed = new boolean[SIDE * SIDE];
+        InetAddress group = InetAddress.getByName("233.0.0.0");
+        for (int index = 0; index < hosts.length; index++) {
+            hosts[index] = network.addHost(InetAddress.getByName("192.168.0." + (index + 1)));
+            List<String> files = index == 0 && fileToSend != null ? List.of(fileToSend) : Collections.emptyList();
+            List<InetAddress> destinations = files.isEmpty() ? Collections.emptyList() :
+                    List.of(privateAddress(farthest()));
+            rovers[index] = new Rover(hosts[index], (byte) (index + 1), MULTICAST_PORT, group, files, destinations,
+                    32, "aimd", true, 2, 10, 0, 0, 1, false);
+        }
+        for (int index = 0; index < hosts.length; index++) {
+            for (int neighbor : neighbors(index)) {
+                if (neighbor > index) {
+                    network.connect(hosts[index], hosts[neighbor], link);
+                }
+            }
+            rovers[index].start();
+        }
+    }
+
+    /**
+     * Returns the rovers to the right, left, below and above, wrapping around the edges
+     */
+    private static int[] neighbors(int index) {
+        int row = index / SIDE, column = index % SIDE;
+        return new int[]{row * SIDE + (column + 1) % SIDE, row * SIDE + (column + SIDE - 1) % SIDE,
+                (row + 1) % SIDE * SIDE + column, (row + SIDE - 1) % SIDE * SIDE + column};
+    }
+
+    /**
+     * Returns the rover halfway round the torus both ways from the first one
+     */
+    private static int farthest() {
+        return SIDE / 2 * SIDE + SIDE / 2;
+    }
+
+    private static InetAddress privateAddress(int index) throws IOException {
+        return InetAddress.getByName("10." + (index + 1) + ".0.1");
+    }
+
+    /**
+     * Returns the hops from the rover to every other one over the links still up, by breadth first search
+     */
+    private int[] hopsFrom(int source) {
+        int[] hops = new int[rovers.length];
+        Arrays.fill(hops, INFINITY);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        hops[source] = 0;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            for (int neighbor : neighbors(index)) {
+                if (!crashed[neighbor] && hops[neighbor] == INFINITY) {
+                    hops[neighbor] = Math.min(hops[index] + 1, INFINITY);
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * Returns whether every running rover's metric to every other rover is the number of hops to it
+     */
+    private boolean converged() throws IOException {
+        for (int index = 0; index < rovers.length; index++) {
+            if (crashed[index]) {
+                continue;
+            }
+            int[] hops = hopsFrom(index);
+            for (int other = 0; other < rovers.length; other++) {
+                if (rovers[index].metricTo((byte) (other + 1)) != hops[other]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the network until the condition holds, checking it every CHECK_EVERY virtual milliseconds
+     *
+     * @return the virtual milliseconds it took, or -1 if it didn't hold within TIME_LIMIT
+     */
+    private long runUntil(Condition condition) throws IOException {
+        long start = network.currentTimeMillis();
+        while (!condition.holds()) {
+            if (network.currentTimeMillis() - start >= TIME_LIMIT) {
+                return -1;
+            }
+            network.run(CHECK_EVERY);
+        }
+        return network.currentTimeMillis() - start;
+    }
+
+    private interface Condition {
+        boolean holds() throws IOException;
+    }
+
+    /**
+     * Runs the routes to convergence, switches the first rover off and runs them to convergence again
+     *
+     * @return the virtual milliseconds of the two convergences, followed by the wall time of the whole run
+     */
+    private long[] convergeAndCrash() throws IOException {
+        long wallStart = System.nanoTime();
+        long convergence = runUntil(this::converged);
+        network.crash(hosts[0]);
+        crashed[0] = true;
+        long reconvergence = runUntil(this::converged);
+        return new long[]{convergence, reconvergence, (System.nanoTime() - wallStart) / 1_000_000};
+    }
+
+    private static void printRun(String name, SimulatedNetworkBenchmark benchmark, long[] times) {
+        System.out.printf("  %-32s converged in %6d ms, again %6d ms after a rover died, simulated in %5d ms%n", name,
+                times[0], times[1], times[2]);
+        System.out.println("    " + benchmark.network.getStats());
+    }
+
+    /**
+     * Driver function which runs the scenarios
+     *
+     * @param args arguments passed to the main function
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        LOGGER.setLevel(Level.WARNING);
+        InMemoryNetwork.Link clean = new InMemoryNetwork.Link(2, 1_250_000, 0, 0),
+                lossy = new InMemoryNetwork.Link(2, 1_250_000, 0.02, 0.05);
+
+        System.out.println(SIDE * SIDE + " rovers on a " + SIDE + "x" + SIDE + " torus, links of 2 ms and 10 Mbit/s");
+        SimulatedNetworkBenchmark benchmark = new SimulatedNetworkBenchmark(SEED, clean, null);
+        printRun("clean links", benchmark, benchmark.convergeAndCrash());
+        benchmark = new SimulatedNetworkBenchmark(SEED, lossy, null);
+        long[] lossyTimes = benchmark.convergeAndCrash();
+        printRun("2% loss, 5% reordered", benchmark, lossyTimes);
+        String lossyStats = benchmark.network.getStats();
+        benchmark = new SimulatedNetworkBenchmark(SEED, lossy, null);
+        long[] repeatTimes = benchmark.convergeAndCrash();
+        printRun("the same again, same seed", benchmark, repeatTimes);
+        System.out.println("    " + (repeatTimes[0] == lossyTimes[0] && repeatTimes[1] == lossyTimes[1] &&
+                benchmark.network.getStats().equals(lossyStats) ? "identical" : "DIFFERENT") + " to the first run");
+
+        File fileToSend = File.createTempFile("simulated", "");
+        fileToSend.deleteOnExit();
+        byte[] content = new byte[FILE_SIZE];
+        new Random(SEED).nextBytes(content);
+        Files.write(fileToSend.toPath(), content);
+        String outputPrefix = "OUTPUT_FILE_10.1.0.1_";
+        benchmark = new SimulatedNetworkBenchmark(SEED, lossy, fileToSend.getPath());
+        long wallStart = System.nanoTime();
+        long transferTime = benchmark.runUntil(() -> {
+            File[] outputs = new File(".").listFiles((directory, name) -> name.startsWith(outputPrefix));
+            return outputs != null && outputs.length == 1 &&
+                    Arrays.equals(Files.readAllBytes(outputs[0].toPath()), content);
+        });
+        System.out.printf("  %d bytes sent %d hops over the lossy links in %d ms, simulated in %d ms%n", FILE_SIZE,
+                benchmark.hopsFrom(0)[farthest()], transferTime, (System.nanoTime() - wallStart) / 1_000_000);
+        System.out.println("    " + benchmark.network.getStats());
+        File[] outputs = new File(".").listFiles((directory, name) -> name.startsWith(outputPrefix));
+        for (File output : outputs == null ? new File[0] : outputs) {
+            output.delete();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package rover;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the cost of re-arming the death timers of 10k neighbors on every heartbeat. (Just for evaluating the
+ * TimingWheel, can be ignored)
+ * <ul>
+ * <li>thread per neighbor: cancelling the neighbor's java.util.Timer and starting a new one, as Rover used to</li>
+ * <li>shared Timer: cancelling the neighbor's TimerTask and scheduling a new one on a single java.util.Timer</li>
+ * <li>timing wheel: re-arming the neighbor's TimingWheel.Timeout</li>
+ * </ul>
+ * Then checks how late the wheel runs 10k timeouts.
+ */
+class TimingWheelBenchmark {
+    private final static int
+            NEIGHBORS = 10_000,
+            HEARTBEAT_ROUNDS = 20,
+            DEATH_TIME = 7000, // in milliseconds
+            TICK = 100,
+            WHEEL_SIZE = 512;
+
+    private final static com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String name, long nanos, long bytes, int rearms) {
+        System.out.printf("%-20s %9.1f ns per re-arm  %7.1f bytes allocated per re-arm  %d threads%n", name,
+                nanos / (double) rearms, bytes / (double) rearms, Thread.activeCount());
+    }
+
+    /**
+     * Re-arms a java.util.Timer per neighbor like Rover used to: cancel the old Timer, which ends its thread, and start
+     * a new one
+     */
+    private static void threadPerNeighbor(int rounds) {
+        Timer[] timers = new Timer[NEIGHBORS];
+        long start = System.nanoTime(), bytes = allocatedBytes();
+        try {
+            for (int round = 0; round < rounds; round++) {
+                for (int neighbor = 0; neighbor < NEIGHBORS; neighbor++) {
+                    if (timers[neighbor] != null) {
+                        timers[neighbor].cancel();
+                    }
+                    timers[neighbor] = new Timer("Neighbor " + neighbor + " Death Timer");
+                    timers[neighbor].schedule(new TimerTask() {
+                        @Override
+                        public void run() {
+                        }
+                    }, DEATH_TIME);
+                }
+            }
+            report("thread per neighbor", System.nanoTime() - start, allocatedBytes() - bytes, rounds * NEIGHBORS);
+        } catch (OutOfMemoryError e) {
+            System.out.println("thread per neighbor  failed: " + e.getMessage());
+        } finally {
+            for (Timer timer : timers) {
+                if (timer != null) {
+                    timer.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-arms a TimerTask per neighbor on a single java.util.Timer
+     */
+    private static void sharedTimer(int rounds) {
+        Timer timer = new Timer("Shared Death Timer", true);
+        TimerTask[] tasks = new TimerTask[NEIGHBORS];
+        long start = System.nanoTime(), bytes = allocatedBytes();
+        for (int round = 0; round < rounds; round++) {
+            for (int neighbor = 0; neighbor < NEIGHBORS; neighbor++) {
+                if (tasks[neighbor] != null) {
+                    tasks[neighbor].cancel();
+                }
+                tasks[neighbor] = new TimerTask() {
+                    @Override
+                    public void run() {
+                    }
+                };
+                timer.schedule(tasks[neighbor], DEATH_TIME);
+            }
+            // Cancelled tasks stay in the Timer's queue until purged
+            timer.purge();
+        }
+        report("shared Timer", System.nanoTime() - start, allocatedBytes() - bytes, rounds * NEIGHBORS);
+        timer.cancel();
+    }
+
+    /**
+     * Re-arms a TimingWheel.Timeout per neighbor
+     */
+    private static void timingWheel(int rounds) {
+        TimingWheel wheel = new TimingWheel("Benchmark Timing Wheel", TICK, WHEEL_SIZE);
+        TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[NEIGHBORS];
+        for (int neighbor = 0; neighbor < NEIGHBORS; neighbor++) {
+            timeouts[neighbor] = wheel.newTimeout(() -> {
+            });
+        }
+        long start = System.nanoTime(), bytes = allocatedBytes();
+        for (int round = 0; round < rounds; round++) {
+            for (int neighbor = 0; neighbor < NEIGHBORS; neighbor++) {
+                wheel.schedule(timeouts[neighbor], DEATH_TIME);
+            }
+        }
+        report("timing wheel", System.nanoTime() - start, allocatedBytes() - bytes, rounds * NEIGHBORS);
+        wheel.stop();
+    }
+
+    /**
+     * Schedules a timeout per neighbor with a random delay and measures how late they run
+     */
+    private static void timingWheelLateness() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel("Benchmark Timing Wheel", TICK, WHEEL_SIZE);
+        CountDownLatch done = new CountDownLatch(NEIGHBORS);
+        AtomicLong totalLateness = new AtomicLong(), maxLateness = new AtomicLong();
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int neighbor = 0; neighbor < NEIGHBORS; neighbor++) {
+            long deadline = start + random.nextInt(3000) * 1_000_000L;
+            wheel.schedule(wheel.newTimeout(() -> {
+                long lateness = System.nanoTime() - deadline;
+                totalLateness.addAndGet(lateness);
+                maxLateness.accumulateAndGet(lateness, Math::max);
+                done.countDown();
+            }), (deadline - System.nanoTime()) / 1_000_000);
+        }
+        done.await();
+        System.out.printf("timing wheel ran %d timeouts %.1fms late on average, %.1fms at most (tick of %dms)%n",
+                NEIGHBORS, totalLateness.get() / 1e6 / NEIGHBORS, maxLateness.get() / 1e6, TICK);
+        wheel.stop();
+    }
+
+    /**
+     * Runs every benchmark, with a warm up round first
+     *
+     * @param args arguments passed to the main function
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Re-arming the death timers of " + NEIGHBORS + " neighbors " + HEARTBEAT_ROUNDS +
+                " times");
+        sharedTimer(1);
+        timingWheel(1);
+        threadPerNeighbor(2);
+        sharedTimer(HEARTBEAT_ROUNDS);
+        timingWheel(HEARTBEAT_ROUNDS);
+        timingWheelLateness();
+    }
+}